@@ -0,0 +1,20 @@
+package com.flowstate.api.controller;
+
+import com.flowstate.api.service.BatchTooLargeException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * 批量接口超出单次条目上限时返回 400，响应体带上限值便于客户端拆分。
+ */
+@RestControllerAdvice
+public class BatchTooLargeHandler {
+
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> handleBatchTooLarge(BatchTooLargeException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage(), "limit", e.getLimit()));
+    }
+}
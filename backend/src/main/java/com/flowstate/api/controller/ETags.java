@@ -0,0 +1,39 @@
+package com.flowstate.api.controller;
+
+/**
+ * 实体版本与 ETag 的互相转换：ETag 为带引号的版本号，如 "3"。
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * 解析 If-Match，没有该请求头或为 * 时返回 null（不做版本检查）。
+     * If-Match 按强比较匹配，弱 ETag 与多个 ETag 都不接受。
+     */
+    static Long parseIfMatch(String header) {
+        if (header == null || header.isBlank() || header.trim().equals("*")) {
+            return null;
+        }
+        String value = header.trim();
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            throw new RuntimeException("If-Match 无效");
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("If-Match 无效");
+        }
+    }
+
+    // If-Match 优先，其次是请求体中的 version
+    static Long expectedVersion(String ifMatch, Long bodyVersion) {
+        Long version = parseIfMatch(ifMatch);
+        return version != null ? version : bodyVersion;
+    }
+}
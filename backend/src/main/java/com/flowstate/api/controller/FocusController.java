@@ -1,13 +1,17 @@
 package com.flowstate.api.controller;
 
+import com.flowstate.api.dto.FocusSessionPageResponse;
 import com.flowstate.api.dto.FocusSessionRequest;
 import com.flowstate.api.dto.FocusSessionResponse;
 import com.flowstate.api.dto.FocusTodayStatsDTO;
 import com.flowstate.api.security.UserDetailsImpl;
 import com.flowstate.api.service.FocusSessionService;
+import com.flowstate.api.service.FocusStreamHub;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -16,9 +20,11 @@ import java.util.List;
 public class FocusController {
 
     private final FocusSessionService focusSessionService;
+    private final FocusStreamHub focusStreamHub;
 
-    public FocusController(FocusSessionService focusSessionService) {
+    public FocusController(FocusSessionService focusSessionService, FocusStreamHub focusStreamHub) {
         this.focusSessionService = focusSessionService;
+        this.focusStreamHub = focusStreamHub;
     }
 
     @PostMapping("/sessions")
@@ -36,6 +42,22 @@ public class FocusController {
         return ResponseEntity.ok(sessions);
     }
 
+    // 专注历史键集分页：按开始时间倒序，nextCursor 为空表示没有更多
+    @GetMapping("/sessions/page")
+    public ResponseEntity<FocusSessionPageResponse> getSessionPage(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        FocusSessionPageResponse page = focusSessionService.getSessionPage(userDetails.getId(), cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    // 实时专注事件流 (SSE)：首条为当前状态，之后推送开始、暂停、继续、结束与剩余时间
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return focusStreamHub.subscribe(userDetails.getId());
+    }
+
     @GetMapping("/today-stats")
     public ResponseEntity<FocusTodayStatsDTO> getTodayStats(
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
@@ -1,9 +1,16 @@
 package com.flowstate.api.controller;
 
+import com.flowstate.api.dto.HabitHeatmapDTO;
+import com.flowstate.api.dto.HabitLogBatchRequest;
+import com.flowstate.api.dto.HabitLogBatchResponse;
 import com.flowstate.api.dto.HabitRequest;
 import com.flowstate.api.dto.HabitResponse;
+import com.flowstate.api.dto.HabitScheduleRequest;
+import com.flowstate.api.dto.HabitScheduleResponse;
 import com.flowstate.api.security.UserDetailsImpl;
+import com.flowstate.api.service.HabitScheduleService;
 import com.flowstate.api.service.HabitService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,9 +25,11 @@ import org.springframework.format.annotation.DateTimeFormat;
 public class HabitController {
 
     private final HabitService habitService;
+    private final HabitScheduleService habitScheduleService;
 
-    public HabitController(HabitService habitService) {
+    public HabitController(HabitService habitService, HabitScheduleService habitScheduleService) {
         this.habitService = habitService;
+        this.habitScheduleService = habitScheduleService;
     }
 
     @GetMapping("/today")
@@ -39,15 +48,75 @@ public class HabitController {
         return habitService.logHabit(habitId, increment);
     }
 
+    // 离线同步：批量补录多条打卡（支持历史日期）
+    @PostMapping("/logs:batch")
+    public HabitLogBatchResponse logHabitsBatch(Authentication authentication,
+            @RequestBody HabitLogBatchRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return habitService.logHabitsBatch(userDetails.getId(), request);
+    }
+
     @PostMapping
     public HabitResponse createHabit(Authentication authentication, @RequestBody HabitRequest request) {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         return habitService.createHabit(userDetails.getId(), request);
     }
 
+    // 从 habit_logs 重算当前用户全部习惯的连续打卡计数器（修复用）
+    @PostMapping("/streaks/rebuild")
+    public int rebuildStreaks(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return habitService.rebuildStreaks(userDetails.getId());
+    }
+
+    // 从 habit_logs 重建当前用户的完成位图（修复用）
+    @PostMapping("/completion-bitmaps/rebuild")
+    public int rebuildCompletionBitmaps(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return habitService.rebuildCompletionBitmaps(userDetails.getId());
+    }
+
+    // ETag 为习惯定义的版本，当天进度变化不改变 ETag，因此不处理 If-None-Match
+    @GetMapping("/{habitId}")
+    public ResponseEntity<HabitResponse> getHabit(Authentication authentication, @PathVariable UUID habitId) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        HabitResponse habit = habitService.getHabit(userDetails.getId(), habitId);
+        return ResponseEntity.ok().eTag(ETags.of(habit.getVersion())).body(habit);
+    }
+
+    // If-Match（或请求体 version）与当前版本不一致时返回 409 与当前状态
+    @PutMapping("/{habitId}")
+    public ResponseEntity<HabitResponse> updateHabit(Authentication authentication, @PathVariable UUID habitId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody HabitRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        HabitResponse habit = habitService.updateHabit(userDetails.getId(), habitId, request,
+                ETags.expectedVersion(ifMatch, request.getVersion()));
+        return ResponseEntity.ok().eTag(ETags.of(habit.getVersion())).body(habit);
+    }
+
+    @GetMapping("/{habitId}/heatmap")
+    public HabitHeatmapDTO getHabitHeatmap(
+            Authentication authentication,
+            @PathVariable UUID habitId,
+            @RequestParam(required = false) Integer year) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        int queryYear = (year != null) ? year : LocalDate.now().getYear();
+        return habitService.getHabitHeatmap(userDetails.getId(), habitId, queryYear);
+    }
+
+    // 把时长习惯的剩余目标排进一周的空闲时间，只返回建议时间块，不保存
+    @PostMapping("/schedule/week")
+    public HabitScheduleResponse planWeek(Authentication authentication,
+            @RequestBody(required = false) HabitScheduleRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return habitScheduleService.planWeek(userDetails.getId(),
+                request != null ? request : new HabitScheduleRequest());
+    }
+
     @PostMapping("/seed")
-    public void seedHistory(Authentication authentication) {
+    public int seedHistory(Authentication authentication, @RequestParam(required = false) Long seed) {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        habitService.seedHistory(userDetails.getId());
+        return habitService.seedHistory(userDetails.getId(), seed);
     }
 }
@@ -0,0 +1,80 @@
+package com.flowstate.api.controller;
+
+import com.flowstate.api.dto.FocusSessionResponse;
+import com.flowstate.api.dto.LiveFocusResponse;
+import com.flowstate.api.dto.LiveFocusStartRequest;
+import com.flowstate.api.security.UserDetailsImpl;
+import com.flowstate.api.service.LiveFocusRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 实时专注：开始后客户端定期发送心跳，停止时服务端写入专注会话并归档到时间轴。
+ * 会话不存在（已停止或因心跳超时被归档）时返回 404，客户端应重新开始。
+ */
+@RestController
+@RequestMapping("/api/focus/live")
+public class LiveFocusController {
+
+    private final LiveFocusRegistry liveFocusRegistry;
+
+    public LiveFocusController(LiveFocusRegistry liveFocusRegistry) {
+        this.liveFocusRegistry = liveFocusRegistry;
+    }
+
+    // 已有进行中的会话时返回 409，响应体为该会话
+    @PostMapping
+    public ResponseEntity<LiveFocusResponse> start(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestBody(required = false) LiveFocusStartRequest request) {
+        Optional<LiveFocusResponse> started = liveFocusRegistry.start(userDetails.getId(), request);
+        if (started.isPresent()) {
+            return ResponseEntity.ok(started.get());
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(liveFocusRegistry.current(userDetails.getId()).orElse(null));
+    }
+
+    // 当前进行中的会话，没有时返回 204
+    @GetMapping
+    public ResponseEntity<LiveFocusResponse> current(@AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return liveFocusRegistry.current(userDetails.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/{sessionId}/heartbeat")
+    public ResponseEntity<LiveFocusResponse> heartbeat(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @PathVariable UUID sessionId) {
+        return ResponseEntity.of(liveFocusRegistry.heartbeat(userDetails.getId(), sessionId));
+    }
+
+    @PostMapping("/{sessionId}/pause")
+    public ResponseEntity<LiveFocusResponse> pause(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @PathVariable UUID sessionId) {
+        return ResponseEntity.of(liveFocusRegistry.pause(userDetails.getId(), sessionId));
+    }
+
+    @PostMapping("/{sessionId}/resume")
+    public ResponseEntity<LiveFocusResponse> resume(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @PathVariable UUID sessionId) {
+        return ResponseEntity.of(liveFocusRegistry.resume(userDetails.getId(), sessionId));
+    }
+
+    // status 为 COMPLETED（默认）或 INTERRUPTED；只有 COMPLETED 会归档到时间轴
+    @PostMapping("/{sessionId}/stop")
+    public ResponseEntity<FocusSessionResponse> stop(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @PathVariable UUID sessionId,
+            @RequestParam(required = false) String status) {
+        return ResponseEntity.of(liveFocusRegistry.stop(userDetails.getId(), sessionId, status));
+    }
+}
@@ -0,0 +1,49 @@
+package com.flowstate.api.controller;
+
+import com.flowstate.api.dto.TimeRecordCompactionResponse;
+import com.flowstate.api.security.UserDetailsImpl;
+import com.flowstate.api.service.TimeRecordCompactionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/time-records/compactions")
+@CrossOrigin(origins = "*")
+public class TimeRecordCompactionController {
+
+    private final TimeRecordCompactionService compactionService;
+
+    public TimeRecordCompactionController(TimeRecordCompactionService compactionService) {
+        this.compactionService = compactionService;
+    }
+
+    // 合并记录（撤销日志），date 为空时返回最近的若干条
+    @GetMapping
+    public List<TimeRecordCompactionResponse> getCompactions(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return compactionService.getCompactions(userDetails.getId(), date);
+    }
+
+    // 立即合并某一天的碎片记录，不依赖后台任务是否开启；返回被合并掉的记录数
+    @PostMapping
+    public int compactDay(
+            Authentication authentication,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return compactionService.compactDay(userDetails.getId(), date, false);
+    }
+
+    // 撤销一次合并；合并后的记录又被修改过时返回 409
+    @PostMapping("/{id}/undo")
+    public TimeRecordCompactionResponse undo(Authentication authentication, @PathVariable UUID id) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return compactionService.undo(userDetails.getId(), id);
+    }
+}
@@ -1,15 +1,39 @@
 package com.flowstate.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.flowstate.api.dto.CalendarFeedTokenResponse;
+import com.flowstate.api.dto.DayFreeTimeDTO;
+import com.flowstate.api.dto.FreeSlotDTO;
+import com.flowstate.api.dto.TimeRecordImportReport;
+import com.flowstate.api.dto.TimeRecordPageResponse;
+import com.flowstate.api.dto.TimeRecordPatchBatchRequest;
+import com.flowstate.api.dto.TimeRecordPatchRequest;
+import com.flowstate.api.dto.TimeRecordPatchResult;
+import com.flowstate.api.dto.TimeRecordRangeResponse;
 import com.flowstate.api.dto.TimeRecordRequest;
 import com.flowstate.api.dto.TimeRecordResponse;
+import com.flowstate.api.enums.ImportFormat;
 import com.flowstate.api.security.UserDetailsImpl;
+import com.flowstate.api.service.TimeRecordFeedService;
+import com.flowstate.api.service.TimeRecordImportService;
+import com.flowstate.api.service.TimeRecordOccupancyService;
 import com.flowstate.api.service.TimeRecordService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -18,9 +42,18 @@ import java.util.UUID;
 public class TimeRecordController {
 
     private final TimeRecordService timeRecordService;
+    private final TimeRecordOccupancyService occupancyService;
+    private final TimeRecordImportService importService;
+    private final TimeRecordFeedService feedService;
+    private final ObjectMapper objectMapper;
 
-    public TimeRecordController(TimeRecordService timeRecordService) {
+    public TimeRecordController(TimeRecordService timeRecordService, TimeRecordOccupancyService occupancyService,
+            TimeRecordImportService importService, TimeRecordFeedService feedService, ObjectMapper objectMapper) {
         this.timeRecordService = timeRecordService;
+        this.occupancyService = occupancyService;
+        this.importService = importService;
+        this.feedService = feedService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
@@ -34,19 +67,194 @@ public class TimeRecordController {
         return timeRecordService.getRecordsForUser(userDetails.getId());
     }
 
+    // 日历周 / 月视图：一次返回区间内按天分组的记录，format=columnar 时返回列式编码
+    @GetMapping("/range")
+    public TimeRecordRangeResponse getRecordRange(
+            Authentication authentication,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "grouped") String format) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return timeRecordService.getRecordsForRange(userDetails.getId(), start, end, "columnar".equalsIgnoreCase(format));
+    }
+
+    // 查找区间内接下来 limit 个不短于 minMinutes 的空闲时段，dayStart / dayEnd 为每天的分钟窗口
+    @GetMapping("/free-slots")
+    public List<FreeSlotDTO> getFreeSlots(
+            Authentication authentication,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "30") int minMinutes,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "0") int dayStart,
+            @RequestParam(defaultValue = "1440") int dayEnd) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return occupancyService.findFreeSlots(userDetails.getId(), start, end, minMinutes, limit, dayStart, dayEnd);
+    }
+
+    // 区间内每天的空闲 / 占用分钟数
+    @GetMapping("/free-minutes")
+    public List<DayFreeTimeDTO> getFreeMinutes(
+            Authentication authentication,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "0") int dayStart,
+            @RequestParam(defaultValue = "1440") int dayEnd) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return occupancyService.getFreeMinutes(userDetails.getId(), start, end, dayStart, dayEnd);
+    }
+
+    // 键集分页：按记录日期、开始时间倒序，nextCursor 为空表示没有更多
+    @GetMapping("/page")
+    public TimeRecordPageResponse getRecordPage(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return timeRecordService.getRecordPage(userDetails.getId(), cursor, size);
+    }
+
+    // NDJSON 流式导出全部记录：每行一个 JSON 对象，边读边写
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public void streamRecords(Authentication authentication, HttpServletResponse response) throws IOException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(TimeRecordResponse.class);
+        timeRecordService.streamRecords(userDetails.getId(), record -> {
+            try {
+                out.write(writer.writeValueAsBytes(record));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
+    // 流式导入：请求体直接是 ICS 或 CSV 文件内容，响应为 NDJSON（每批进度、逐条错误与最终汇总）
+    @PostMapping(value = "/import", produces = "application/x-ndjson")
+    public void importRecords(Authentication authentication, @RequestParam(required = false) String format,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        ImportFormat importFormat = importService.resolveFormat(format, request.getContentType());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(TimeRecordImportReport.class);
+        importService.importRecords(userDetails.getId(), request.getInputStream(), importFormat, report -> {
+            try {
+                out.write(writer.writeValueAsBytes(report));
+                out.write('\n');
+                // 进度行立即推送给客户端，错误行随后续输出一起刷出
+                if (!"error".equals(report.getType())) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // 生成（或重置）日历订阅令牌，旧的订阅地址随即失效
+    @PostMapping("/feed-token")
+    public CalendarFeedTokenResponse rotateFeedToken(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return feedService.rotateToken(userDetails.getId());
+    }
+
+    // ICS 订阅源：令牌即凭证，无需登录；支持 If-None-Match，未变化时返回 304
+    @GetMapping("/feed/{token}.ics")
+    public void getFeed(@PathVariable String token, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<UUID> owner = feedService.findOwner(token);
+        if (owner.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String etag = feedService.etag(owner.get());
+        response.setHeader("Cache-Control", "private, no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        response.setContentType("text/calendar");
+        response.setCharacterEncoding("UTF-8");
+        feedService.writeFeed(owner.get(), response.getWriter());
+    }
+
     @PostMapping
-    public TimeRecordResponse createRecord(Authentication authentication, @RequestBody TimeRecordRequest request) {
+    public ResponseEntity<TimeRecordResponse> createRecord(Authentication authentication,
+            @RequestBody TimeRecordRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        TimeRecordResponse record = timeRecordService.createRecord(userDetails.getId(), request);
+        return ResponseEntity.ok().eTag(ETags.of(record.getVersion())).body(record);
+    }
+
+    // 单条记录，ETag 为记录版本；If-None-Match 命中时返回 304
+    @GetMapping("/{id}")
+    public ResponseEntity<TimeRecordResponse> getRecord(Authentication authentication, @PathVariable UUID id,
+            ServletWebRequest webRequest) {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        return timeRecordService.createRecord(userDetails.getId(), request);
+        TimeRecordResponse record = timeRecordService.getRecord(userDetails.getId(), id);
+        if (webRequest.checkNotModified(ETags.of(record.getVersion()))) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(ETags.of(record.getVersion())).body(record);
     }
 
+    // If-Match（或请求体 version）与当前版本不一致时返回 409 与当前状态
     @PutMapping("/{id}")
-    public TimeRecordResponse updateRecord(@PathVariable UUID id, @RequestBody TimeRecordRequest request) {
-        return timeRecordService.updateRecord(id, request);
+    public ResponseEntity<TimeRecordResponse> updateRecord(Authentication authentication, @PathVariable UUID id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody TimeRecordRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        TimeRecordResponse record = timeRecordService.updateRecord(userDetails.getId(), id, request,
+                ETags.expectedVersion(ifMatch, request.getVersion()));
+        return ResponseEntity.ok().eTag(ETags.of(record.getVersion())).body(record);
+    }
+
+    // 拖拽移动 / 调整时长：version 过期时返回 409 与服务端当前状态
+    @PatchMapping("/{id}")
+    public ResponseEntity<TimeRecordPatchResult> patchRecord(Authentication authentication, @PathVariable UUID id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody TimeRecordPatchRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        request.setVersion(ETags.expectedVersion(ifMatch, request.getVersion()));
+        TimeRecordPatchResult result = timeRecordService.patchRecord(userDetails.getId(), id, request);
+        HttpStatus status;
+        switch (result.getStatus()) {
+            case TimeRecordPatchResult.APPLIED:
+                status = HttpStatus.OK;
+                break;
+            case TimeRecordPatchResult.CONFLICT:
+                status = HttpStatus.CONFLICT;
+                break;
+            case TimeRecordPatchResult.NOT_FOUND:
+                status = HttpStatus.NOT_FOUND;
+                break;
+            default:
+                status = HttpStatus.BAD_REQUEST;
+                break;
+        }
+        return ResponseEntity.status(status).eTag(ETags.of(result.getVersion())).body(result);
+    }
+
+    // 多块一起拖动：整批一条条件更新，逐条返回结果
+    @PatchMapping("/batch")
+    public List<TimeRecordPatchResult> patchRecords(Authentication authentication,
+            @RequestBody TimeRecordPatchBatchRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return timeRecordService.patchRecords(userDetails.getId(), request.getRecords());
     }
 
     @DeleteMapping("/{id}")
-    public void deleteRecord(@PathVariable UUID id) {
-        timeRecordService.deleteRecord(id);
+    public void deleteRecord(Authentication authentication, @PathVariable UUID id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        timeRecordService.deleteRecord(userDetails.getId(), id, ETags.parseIfMatch(ifMatch));
     }
 }
@@ -0,0 +1,71 @@
+package com.flowstate.api.controller;
+
+import com.flowstate.api.dto.TimeRecordOccurrenceRequest;
+import com.flowstate.api.dto.TimeRecordSeriesRequest;
+import com.flowstate.api.dto.TimeRecordSeriesResponse;
+import com.flowstate.api.security.UserDetailsImpl;
+import com.flowstate.api.service.TimeRecordSeriesService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/time-records/series")
+@CrossOrigin(origins = "*")
+public class TimeRecordSeriesController {
+
+    private final TimeRecordSeriesService timeRecordSeriesService;
+
+    public TimeRecordSeriesController(TimeRecordSeriesService timeRecordSeriesService) {
+        this.timeRecordSeriesService = timeRecordSeriesService;
+    }
+
+    @GetMapping
+    public List<TimeRecordSeriesResponse> getSeries(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return timeRecordSeriesService.getSeries(userDetails.getId());
+    }
+
+    @PostMapping
+    public TimeRecordSeriesResponse createSeries(Authentication authentication,
+            @RequestBody TimeRecordSeriesRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return timeRecordSeriesService.createSeries(userDetails.getId(), request);
+    }
+
+    @PutMapping("/{id}")
+    public TimeRecordSeriesResponse updateSeries(Authentication authentication, @PathVariable UUID id,
+            @RequestBody TimeRecordSeriesRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return timeRecordSeriesService.updateSeries(userDetails.getId(), id, request);
+    }
+
+    @DeleteMapping("/{id}")
+    public void deleteSeries(Authentication authentication, @PathVariable UUID id) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        timeRecordSeriesService.deleteSeries(userDetails.getId(), id);
+    }
+
+    // 修改单次发生（标题 / 时间），cancelled=true 时取消这一次
+    @PutMapping("/{id}/occurrences/{date}")
+    public void updateOccurrence(Authentication authentication, @PathVariable UUID id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestBody TimeRecordOccurrenceRequest request) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        timeRecordSeriesService.updateOccurrence(userDetails.getId(), id, date, request);
+    }
+
+    // 取消单次发生
+    @DeleteMapping("/{id}/occurrences/{date}")
+    public void cancelOccurrence(Authentication authentication, @PathVariable UUID id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        TimeRecordOccurrenceRequest request = new TimeRecordOccurrenceRequest();
+        request.setCancelled(true);
+        timeRecordSeriesService.updateOccurrence(userDetails.getId(), id, date, request);
+    }
+}
@@ -0,0 +1,73 @@
+package com.flowstate.api.controller;
+
+import com.flowstate.api.dto.HabitResponse;
+import com.flowstate.api.dto.TimeRecordResponse;
+import com.flowstate.api.dto.VersionConflictResponse;
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.TimeRecord;
+import com.flowstate.api.security.UserDetailsImpl;
+import com.flowstate.api.service.HabitService;
+import com.flowstate.api.service.TimeRecordService;
+import com.flowstate.api.service.VersionConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.security.Principal;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 乐观锁冲突统一返回 409，响应体带服务端当前状态，ETag 为当前版本。
+ */
+@RestControllerAdvice
+public class VersionConflictHandler {
+
+    private final TimeRecordService timeRecordService;
+    private final HabitService habitService;
+
+    public VersionConflictHandler(TimeRecordService timeRecordService, HabitService habitService) {
+        this.timeRecordService = timeRecordService;
+        this.habitService = habitService;
+    }
+
+    // 请求带来的版本在读取时就已过期
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<VersionConflictResponse> handleVersionConflict(VersionConflictException e) {
+        return conflict(e.getMessage(), e.getCurrent(), e.getCurrentVersion());
+    }
+
+    // 检查通过后、提交前被其他请求抢先修改：Hibernate 在 flush 时发现版本不符，事务已回滚，重新读取当前状态
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<VersionConflictResponse> handleOptimisticLock(ObjectOptimisticLockingFailureException e,
+                                                                        Principal principal) {
+        String message = "记录已被其他请求修改";
+        if (!(principal instanceof Authentication)
+                || !(((Authentication) principal).getPrincipal() instanceof UserDetailsImpl)
+                || !(e.getIdentifier() instanceof UUID)) {
+            return conflict(message, null, null);
+        }
+        UUID userId = ((UserDetailsImpl) ((Authentication) principal).getPrincipal()).getId();
+        UUID id = (UUID) e.getIdentifier();
+        if (TimeRecord.class.getName().equals(e.getPersistentClassName())) {
+            Optional<TimeRecordResponse> current = timeRecordService.findRecord(userId, id);
+            return conflict(message, current.orElse(null), current.map(TimeRecordResponse::getVersion).orElse(null));
+        }
+        if (Habit.class.getName().equals(e.getPersistentClassName())) {
+            Optional<HabitResponse> current = habitService.findHabit(userId, id);
+            return conflict(message, current.orElse(null), current.map(HabitResponse::getVersion).orElse(null));
+        }
+        return conflict(message, null, null);
+    }
+
+    private static ResponseEntity<VersionConflictResponse> conflict(String message, Object current, Long version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (version != null) {
+            builder.eTag(ETags.of(version));
+        }
+        return builder.body(new VersionConflictResponse(message, current));
+    }
+}
@@ -0,0 +1,30 @@
+package com.flowstate.api.dto;
+
+public class CalendarFeedTokenResponse {
+    private String token;
+    private String path;    // 订阅地址的路径部分，由前端拼接为完整 URL
+
+    public CalendarFeedTokenResponse() {
+    }
+
+    public CalendarFeedTokenResponse(String token, String path) {
+        this.token = token;
+        this.path = path;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,42 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+
+public class DayFreeTimeDTO {
+    private LocalDate date;
+    private Integer freeMinutes;      // 时间窗口内未被记录占用的分钟数
+    private Integer occupiedMinutes;  // 时间窗口内被占用的分钟数（重叠部分只计一次）
+
+    public DayFreeTimeDTO() {
+    }
+
+    public DayFreeTimeDTO(LocalDate date, Integer freeMinutes, Integer occupiedMinutes) {
+        this.date = date;
+        this.freeMinutes = freeMinutes;
+        this.occupiedMinutes = occupiedMinutes;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Integer getFreeMinutes() {
+        return freeMinutes;
+    }
+
+    public void setFreeMinutes(Integer freeMinutes) {
+        this.freeMinutes = freeMinutes;
+    }
+
+    public Integer getOccupiedMinutes() {
+        return occupiedMinutes;
+    }
+
+    public void setOccupiedMinutes(Integer occupiedMinutes) {
+        this.occupiedMinutes = occupiedMinutes;
+    }
+}
@@ -20,6 +20,24 @@ public class FocusSessionResponse {
     public FocusSessionResponse() {
     }
 
+    // 供 JPQL 构造表达式使用：一条查询带出分类与习惯的展示字段
+    public FocusSessionResponse(UUID id, UUID userId, UUID categoryId, String categoryName, String categoryColor,
+            UUID habitId, String habitName, LocalDateTime startTime, LocalDateTime endTime, Integer duration,
+            String status, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryColor = categoryColor;
+        this.habitId = habitId;
+        this.habitName = habitName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.duration = duration;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
     public UUID getId() {
         return id;
     }
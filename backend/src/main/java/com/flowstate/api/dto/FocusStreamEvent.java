@@ -0,0 +1,30 @@
+package com.flowstate.api.dto;
+
+public class FocusStreamEvent {
+    private String type; // SNAPSHOT, STARTED, PAUSED, RESUMED, STOPPED, TICK
+    private LiveFocusResponse session; // SNAPSHOT 时没有进行中的会话则为空
+
+    public FocusStreamEvent() {
+    }
+
+    public FocusStreamEvent(String type, LiveFocusResponse session) {
+        this.type = type;
+        this.session = session;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LiveFocusResponse getSession() {
+        return session;
+    }
+
+    public void setSession(LiveFocusResponse session) {
+        this.session = session;
+    }
+}
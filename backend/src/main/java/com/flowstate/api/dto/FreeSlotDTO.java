@@ -0,0 +1,42 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+
+public class FreeSlotDTO {
+    private LocalDate date;       // 空闲时段所在日期
+    private Integer startTime;    // 距离凌晨的分钟数
+    private Integer duration;     // 空闲分钟数
+
+    public FreeSlotDTO() {
+    }
+
+    public FreeSlotDTO(LocalDate date, Integer startTime, Integer duration) {
+        this.date = date;
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Integer getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Integer startTime) {
+        this.startTime = startTime;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+}
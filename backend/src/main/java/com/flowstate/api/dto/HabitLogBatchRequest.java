@@ -0,0 +1,59 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class HabitLogBatchRequest {
+    private List<Entry> entries;
+
+    public HabitLogBatchRequest() {
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static class Entry {
+        private UUID habitId;
+        private LocalDate date;       // 为空时记为今天，允许补录历史日期
+        private Integer increment;    // 为空时按 1 处理
+
+        public Entry() {
+        }
+
+        public Entry(UUID habitId, LocalDate date, Integer increment) {
+            this.habitId = habitId;
+            this.date = date;
+            this.increment = increment;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public void setHabitId(UUID habitId) {
+            this.habitId = habitId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public Integer getIncrement() {
+            return increment;
+        }
+
+        public void setIncrement(Integer increment) {
+            this.increment = increment;
+        }
+    }
+}
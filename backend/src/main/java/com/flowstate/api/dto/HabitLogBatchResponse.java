@@ -0,0 +1,113 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class HabitLogBatchResponse {
+    private List<EntryResult> results;   // 与请求 entries 一一对应
+    private List<HabitResponse> habits;  // 涉及习惯刷新后的状态
+
+    public HabitLogBatchResponse() {
+    }
+
+    public HabitLogBatchResponse(List<EntryResult> results, List<HabitResponse> habits) {
+        this.results = results;
+        this.habits = habits;
+    }
+
+    public List<EntryResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<EntryResult> results) {
+        this.results = results;
+    }
+
+    public List<HabitResponse> getHabits() {
+        return habits;
+    }
+
+    public void setHabits(List<HabitResponse> habits) {
+        this.habits = habits;
+    }
+
+    public static class EntryResult {
+        private UUID habitId;
+        private LocalDate date;
+        private Boolean applied;
+        private String error;
+        private Integer currentValue;   // 该 (habit, date) 合并写入后的值
+        private Boolean isCompleted;
+
+        public EntryResult() {
+        }
+
+        public static EntryResult applied(UUID habitId, LocalDate date, Integer currentValue, Boolean isCompleted) {
+            EntryResult result = new EntryResult();
+            result.setHabitId(habitId);
+            result.setDate(date);
+            result.setApplied(true);
+            result.setCurrentValue(currentValue);
+            result.setIsCompleted(isCompleted);
+            return result;
+        }
+
+        public static EntryResult rejected(UUID habitId, LocalDate date, String error) {
+            EntryResult result = new EntryResult();
+            result.setHabitId(habitId);
+            result.setDate(date);
+            result.setApplied(false);
+            result.setError(error);
+            return result;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public void setHabitId(UUID habitId) {
+            this.habitId = habitId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public Boolean getApplied() {
+            return applied;
+        }
+
+        public void setApplied(Boolean applied) {
+            this.applied = applied;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        public Integer getCurrentValue() {
+            return currentValue;
+        }
+
+        public void setCurrentValue(Integer currentValue) {
+            this.currentValue = currentValue;
+        }
+
+        public Boolean getIsCompleted() {
+            return isCompleted;
+        }
+
+        public void setIsCompleted(Boolean isCompleted) {
+            this.isCompleted = isCompleted;
+        }
+    }
+}
@@ -12,6 +12,7 @@ public class HabitRequest {
     private String unit;
     private String icon;
     private String color;
+    private Long version;       // 更新时可选：与 If-Match 等价，不一致时返回 409
 
     public String getName() {
         return name;
@@ -76,4 +77,12 @@ public class HabitRequest {
     public void setColor(String color) {
         this.color = color;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
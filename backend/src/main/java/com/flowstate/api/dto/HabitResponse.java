@@ -17,7 +17,9 @@ public class HabitResponse {
     private Integer currentValue;
     private Boolean isCompleted;
     private Integer currentStreak;
+    private Integer longestStreak;
     private java.util.List<Boolean> lastSevenDays;
+    private Long version;        // 习惯定义的版本，即 ETag
 
     public HabitResponse() {
     }
@@ -136,6 +138,22 @@ public class HabitResponse {
         this.currentStreak = currentStreak;
     }
 
+    public Integer getLongestStreak() {
+        return longestStreak;
+    }
+
+    public void setLongestStreak(Integer longestStreak) {
+        this.longestStreak = longestStreak;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public java.util.List<Boolean> getLastSevenDays() {
         return lastSevenDays;
     }
@@ -211,11 +229,21 @@ public class HabitResponse {
             return this;
         }
 
+        public Builder longestStreak(Integer longestStreak) {
+            response.setLongestStreak(longestStreak);
+            return this;
+        }
+
         public Builder lastSevenDays(java.util.List<Boolean> lastSevenDays) {
             response.setLastSevenDays(lastSevenDays);
             return this;
         }
 
+        public Builder version(Long version) {
+            response.setVersion(version);
+            return this;
+        }
+
         public HabitResponse build() {
             return response;
         }
@@ -0,0 +1,98 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class HabitScheduleRequest {
+    private LocalDate weekStart;           // 为空时取本周，任意日期都会对齐到所在周的第一天
+    private Integer dayStart;              // 默认可排时间窗口（距离凌晨的分钟数），为空时 480
+    private Integer dayEnd;                // 为空时 1320
+    private List<Preference> preferences;  // 未列出的时长习惯使用默认窗口与块大小
+
+    public HabitScheduleRequest() {
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(LocalDate weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public Integer getDayStart() {
+        return dayStart;
+    }
+
+    public void setDayStart(Integer dayStart) {
+        this.dayStart = dayStart;
+    }
+
+    public Integer getDayEnd() {
+        return dayEnd;
+    }
+
+    public void setDayEnd(Integer dayEnd) {
+        this.dayEnd = dayEnd;
+    }
+
+    public List<Preference> getPreferences() {
+        return preferences;
+    }
+
+    public void setPreferences(List<Preference> preferences) {
+        this.preferences = preferences;
+    }
+
+    public static class Preference {
+        private UUID habitId;
+        private Integer windowStart;       // 偏好时间窗口，为空时沿用默认窗口
+        private Integer windowEnd;
+        private Integer minBlockMinutes;   // 单块最短分钟数，为空时 30
+        private Integer maxBlockMinutes;   // 单块最长分钟数，为空时不限
+
+        public Preference() {
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public void setHabitId(UUID habitId) {
+            this.habitId = habitId;
+        }
+
+        public Integer getWindowStart() {
+            return windowStart;
+        }
+
+        public void setWindowStart(Integer windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        public Integer getWindowEnd() {
+            return windowEnd;
+        }
+
+        public void setWindowEnd(Integer windowEnd) {
+            this.windowEnd = windowEnd;
+        }
+
+        public Integer getMinBlockMinutes() {
+            return minBlockMinutes;
+        }
+
+        public void setMinBlockMinutes(Integer minBlockMinutes) {
+            this.minBlockMinutes = minBlockMinutes;
+        }
+
+        public Integer getMaxBlockMinutes() {
+            return maxBlockMinutes;
+        }
+
+        public void setMaxBlockMinutes(Integer maxBlockMinutes) {
+            this.maxBlockMinutes = maxBlockMinutes;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class HabitScheduleResponse {
+    private LocalDate weekStart;
+    private LocalDate weekEnd;
+    private List<TimeRecordResponse> blocks;    // 建议的时间块，尚未保存（id 为空）
+    private List<Allocation> habits;            // 每个习惯的排程结果
+    private Integer placedMinutes;
+    private Integer unplacedMinutes;
+
+    public HabitScheduleResponse() {
+    }
+
+    public HabitScheduleResponse(LocalDate weekStart, LocalDate weekEnd, List<TimeRecordResponse> blocks,
+            List<Allocation> habits) {
+        this.weekStart = weekStart;
+        this.weekEnd = weekEnd;
+        this.blocks = blocks;
+        this.habits = habits;
+        this.placedMinutes = habits.stream().mapToInt(Allocation::getPlacedMinutes).sum();
+        this.unplacedMinutes = habits.stream().mapToInt(Allocation::getUnplacedMinutes).sum();
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(LocalDate weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public LocalDate getWeekEnd() {
+        return weekEnd;
+    }
+
+    public void setWeekEnd(LocalDate weekEnd) {
+        this.weekEnd = weekEnd;
+    }
+
+    public List<TimeRecordResponse> getBlocks() {
+        return blocks;
+    }
+
+    public void setBlocks(List<TimeRecordResponse> blocks) {
+        this.blocks = blocks;
+    }
+
+    public List<Allocation> getHabits() {
+        return habits;
+    }
+
+    public void setHabits(List<Allocation> habits) {
+        this.habits = habits;
+    }
+
+    public Integer getPlacedMinutes() {
+        return placedMinutes;
+    }
+
+    public void setPlacedMinutes(Integer placedMinutes) {
+        this.placedMinutes = placedMinutes;
+    }
+
+    public Integer getUnplacedMinutes() {
+        return unplacedMinutes;
+    }
+
+    public void setUnplacedMinutes(Integer unplacedMinutes) {
+        this.unplacedMinutes = unplacedMinutes;
+    }
+
+    public static class Allocation {
+        private UUID habitId;
+        private String name;
+        private Integer requestedMinutes;   // 本周尚需投入的分钟数（目标减去已打卡）
+        private Integer placedMinutes;
+        private Integer unplacedMinutes;
+
+        public Allocation() {
+        }
+
+        public Allocation(UUID habitId, String name, Integer requestedMinutes, Integer placedMinutes) {
+            this.habitId = habitId;
+            this.name = name;
+            this.requestedMinutes = requestedMinutes;
+            this.placedMinutes = placedMinutes;
+            this.unplacedMinutes = requestedMinutes - placedMinutes;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public void setHabitId(UUID habitId) {
+            this.habitId = habitId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getRequestedMinutes() {
+            return requestedMinutes;
+        }
+
+        public void setRequestedMinutes(Integer requestedMinutes) {
+            this.requestedMinutes = requestedMinutes;
+        }
+
+        public Integer getPlacedMinutes() {
+            return placedMinutes;
+        }
+
+        public void setPlacedMinutes(Integer placedMinutes) {
+            this.placedMinutes = placedMinutes;
+        }
+
+        public Integer getUnplacedMinutes() {
+            return unplacedMinutes;
+        }
+
+        public void setUnplacedMinutes(Integer unplacedMinutes) {
+            this.unplacedMinutes = unplacedMinutes;
+        }
+    }
+}
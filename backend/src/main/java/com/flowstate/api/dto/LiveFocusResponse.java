@@ -0,0 +1,91 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class LiveFocusResponse {
+    private UUID sessionId;
+    private UUID categoryId;
+    private UUID habitId;
+    private LocalDateTime startedAt;
+    private Boolean paused;
+    private Long focusedSeconds; // 截至响应时已专注的秒数，不含暂停时间
+    private Integer plannedMinutes;
+    private Long remainingSeconds; // 距计划时长的剩余秒数，不限时为空
+    private LocalDateTime lastHeartbeatAt;
+
+    public LiveFocusResponse() {
+    }
+
+    public UUID getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public UUID getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(UUID habitId) {
+        this.habitId = habitId;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Boolean getPaused() {
+        return paused;
+    }
+
+    public void setPaused(Boolean paused) {
+        this.paused = paused;
+    }
+
+    public Long getFocusedSeconds() {
+        return focusedSeconds;
+    }
+
+    public void setFocusedSeconds(Long focusedSeconds) {
+        this.focusedSeconds = focusedSeconds;
+    }
+
+    public Integer getPlannedMinutes() {
+        return plannedMinutes;
+    }
+
+    public void setPlannedMinutes(Integer plannedMinutes) {
+        this.plannedMinutes = plannedMinutes;
+    }
+
+    public Long getRemainingSeconds() {
+        return remainingSeconds;
+    }
+
+    public void setRemainingSeconds(Long remainingSeconds) {
+        this.remainingSeconds = remainingSeconds;
+    }
+
+    public LocalDateTime getLastHeartbeatAt() {
+        return lastHeartbeatAt;
+    }
+
+    public void setLastHeartbeatAt(LocalDateTime lastHeartbeatAt) {
+        this.lastHeartbeatAt = lastHeartbeatAt;
+    }
+}
@@ -0,0 +1,36 @@
+package com.flowstate.api.dto;
+
+import java.util.UUID;
+
+public class LiveFocusStartRequest {
+    private UUID categoryId;
+    private UUID habitId;
+    private Integer plannedMinutes; // 计划专注时长，为空表示不限时
+
+    public LiveFocusStartRequest() {
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public UUID getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(UUID habitId) {
+        this.habitId = habitId;
+    }
+
+    public Integer getPlannedMinutes() {
+        return plannedMinutes;
+    }
+
+    public void setPlannedMinutes(Integer plannedMinutes) {
+        this.plannedMinutes = plannedMinutes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public class TimeRecordCompactionResponse {
+    private UUID id;
+    private LocalDate recordDate;
+    private UUID survivorId;                  // 合并后保留的记录
+    private Integer mergedCount;              // 参与合并的记录数（含保留的一条）
+    private List<TimeRecordResponse> originals; // 合并前的原始记录
+    private LocalDateTime createdAt;
+    private LocalDateTime undoneAt;           // 已撤销时的时间
+
+    public TimeRecordCompactionResponse() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public LocalDate getRecordDate() {
+        return recordDate;
+    }
+
+    public void setRecordDate(LocalDate recordDate) {
+        this.recordDate = recordDate;
+    }
+
+    public UUID getSurvivorId() {
+        return survivorId;
+    }
+
+    public void setSurvivorId(UUID survivorId) {
+        this.survivorId = survivorId;
+    }
+
+    public Integer getMergedCount() {
+        return mergedCount;
+    }
+
+    public void setMergedCount(Integer mergedCount) {
+        this.mergedCount = mergedCount;
+    }
+
+    public List<TimeRecordResponse> getOriginals() {
+        return originals;
+    }
+
+    public void setOriginals(List<TimeRecordResponse> originals) {
+        this.originals = originals;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUndoneAt() {
+        return undoneAt;
+    }
+
+    public void setUndoneAt(LocalDateTime undoneAt) {
+        this.undoneAt = undoneAt;
+    }
+}
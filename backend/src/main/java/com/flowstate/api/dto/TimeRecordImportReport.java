@@ -0,0 +1,105 @@
+package com.flowstate.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 导入过程中输出的一行 NDJSON：type 为 progress（每批写入后）、error（单个事件无法导入）或 summary（结束）。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TimeRecordImportReport {
+    private String type;
+    private Integer line;          // error：事件起始行号（从 1 开始）
+    private String message;        // error：原因
+    private Long events;           // 已读取的事件数
+    private Long imported;         // 已写入的记录数（跨天事件拆成多条）
+    private Long duplicates;       // 因 UID 已导入而跳过的记录数
+    private Long errors;
+    private Long elapsedMillis;
+
+    public TimeRecordImportReport() {
+    }
+
+    public static TimeRecordImportReport error(int line, String message) {
+        TimeRecordImportReport report = new TimeRecordImportReport();
+        report.setType("error");
+        report.setLine(line);
+        report.setMessage(message);
+        return report;
+    }
+
+    public static TimeRecordImportReport progress(String type, long events, long imported, long duplicates,
+            long errors, long elapsedMillis) {
+        TimeRecordImportReport report = new TimeRecordImportReport();
+        report.setType(type);
+        report.setEvents(events);
+        report.setImported(imported);
+        report.setDuplicates(duplicates);
+        report.setErrors(errors);
+        report.setElapsedMillis(elapsedMillis);
+        return report;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getLine() {
+        return line;
+    }
+
+    public void setLine(Integer line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Long getEvents() {
+        return events;
+    }
+
+    public void setEvents(Long events) {
+        this.events = events;
+    }
+
+    public Long getImported() {
+        return imported;
+    }
+
+    public void setImported(Long imported) {
+        this.imported = imported;
+    }
+
+    public Long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(Long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public Long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Long errors) {
+        this.errors = errors;
+    }
+
+    public Long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(Long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
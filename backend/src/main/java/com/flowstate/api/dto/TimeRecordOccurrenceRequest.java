@@ -0,0 +1,52 @@
+package com.flowstate.api.dto;
+
+public class TimeRecordOccurrenceRequest {
+    private Boolean cancelled;   // true 表示取消这一次
+    private String title;        // 以下为空时沿用系列
+    private String subtitle;
+    private Integer startTime;
+    private Integer duration;
+
+    public TimeRecordOccurrenceRequest() {
+    }
+
+    public Boolean getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(Boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    public void setSubtitle(String subtitle) {
+        this.subtitle = subtitle;
+    }
+
+    public Integer getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Integer startTime) {
+        this.startTime = startTime;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+}
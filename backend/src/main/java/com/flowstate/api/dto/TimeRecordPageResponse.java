@@ -0,0 +1,32 @@
+package com.flowstate.api.dto;
+
+import java.util.List;
+
+public class TimeRecordPageResponse {
+    private List<TimeRecordResponse> items;
+    private String nextCursor; // 下一页游标，为空表示没有更多
+
+    public TimeRecordPageResponse() {
+    }
+
+    public TimeRecordPageResponse(List<TimeRecordResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TimeRecordResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TimeRecordResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
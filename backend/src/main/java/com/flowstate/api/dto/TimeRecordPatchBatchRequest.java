@@ -0,0 +1,18 @@
+package com.flowstate.api.dto;
+
+import java.util.List;
+
+public class TimeRecordPatchBatchRequest {
+    private List<TimeRecordPatchRequest> records; // 同一 id 出现多次时只应用最后一次
+
+    public TimeRecordPatchBatchRequest() {
+    }
+
+    public List<TimeRecordPatchRequest> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<TimeRecordPatchRequest> records) {
+        this.records = records;
+    }
+}
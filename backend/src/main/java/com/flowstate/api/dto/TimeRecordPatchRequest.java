@@ -0,0 +1,58 @@
+package com.flowstate.api.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 拖拽移动 / 调整时长：只带需要修改的字段，version 取自最近一次读到的记录。
+ */
+public class TimeRecordPatchRequest {
+    private UUID id;              // 批量请求时必填；单条 PATCH 以路径上的 id 为准
+    private Long version;
+    private LocalDate recordDate; // 为空表示不改日期
+    private Integer startTime;    // 为空表示不改开始时间
+    private Integer duration;     // 为空表示不改时长
+
+    public TimeRecordPatchRequest() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDate getRecordDate() {
+        return recordDate;
+    }
+
+    public void setRecordDate(LocalDate recordDate) {
+        this.recordDate = recordDate;
+    }
+
+    public Integer getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Integer startTime) {
+        this.startTime = startTime;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+}
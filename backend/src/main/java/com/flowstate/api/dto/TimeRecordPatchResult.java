@@ -0,0 +1,126 @@
+package com.flowstate.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 单条移动的结果，status 为：
+ * applied（已写入，附新的版本与时间段）、conflict（版本已过期，附服务端当前状态）、
+ * coalesced（同批中被同一记录后面的移动取代）、invalid（参数无效）、not_found。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TimeRecordPatchResult {
+    public static final String APPLIED = "applied";
+    public static final String CONFLICT = "conflict";
+    public static final String COALESCED = "coalesced";
+    public static final String INVALID = "invalid";
+    public static final String NOT_FOUND = "not_found";
+
+    private UUID id;
+    private String status;
+    private String error;
+    private Long version;
+    private LocalDate recordDate;
+    private Integer startTime;
+    private Integer duration;
+    private TimeRecordResponse current;
+
+    public TimeRecordPatchResult() {
+    }
+
+    public static TimeRecordPatchResult applied(UUID id, long version, LocalDate recordDate, int startTime,
+                                                int duration) {
+        TimeRecordPatchResult result = of(id, APPLIED);
+        result.setVersion(version);
+        result.setRecordDate(recordDate);
+        result.setStartTime(startTime);
+        result.setDuration(duration);
+        return result;
+    }
+
+    public static TimeRecordPatchResult conflict(TimeRecordResponse current) {
+        TimeRecordPatchResult result = of(current.getId(), CONFLICT);
+        result.setVersion(current.getVersion());
+        result.setCurrent(current);
+        return result;
+    }
+
+    public static TimeRecordPatchResult rejected(UUID id, String status, String error) {
+        TimeRecordPatchResult result = of(id, status);
+        result.setError(error);
+        return result;
+    }
+
+    public static TimeRecordPatchResult of(UUID id, String status) {
+        TimeRecordPatchResult result = new TimeRecordPatchResult();
+        result.setId(id);
+        result.setStatus(status);
+        return result;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDate getRecordDate() {
+        return recordDate;
+    }
+
+    public void setRecordDate(LocalDate recordDate) {
+        this.recordDate = recordDate;
+    }
+
+    public Integer getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Integer startTime) {
+        this.startTime = startTime;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+
+    public TimeRecordResponse getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(TimeRecordResponse current) {
+        this.current = current;
+    }
+}
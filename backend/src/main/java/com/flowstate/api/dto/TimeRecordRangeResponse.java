@@ -0,0 +1,205 @@
+package com.flowstate.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 日历区间查询结果：默认按天分组（days），format=columnar 时改为列式编码（columns），两者只返回其一。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TimeRecordRangeResponse {
+    private LocalDate start;
+    private LocalDate end;
+    private List<Day> days;
+    private Columns columns;
+
+    public TimeRecordRangeResponse() {
+    }
+
+    public TimeRecordRangeResponse(LocalDate start, LocalDate end, List<Day> days, Columns columns) {
+        this.start = start;
+        this.end = end;
+        this.days = days;
+        this.columns = columns;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDate start) {
+        this.start = start;
+    }
+
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    public void setEnd(LocalDate end) {
+        this.end = end;
+    }
+
+    public List<Day> getDays() {
+        return days;
+    }
+
+    public void setDays(List<Day> days) {
+        this.days = days;
+    }
+
+    public Columns getColumns() {
+        return columns;
+    }
+
+    public void setColumns(Columns columns) {
+        this.columns = columns;
+    }
+
+    public static class Day {
+        private LocalDate date;
+        private List<TimeRecordResponse> records;
+
+        public Day() {
+        }
+
+        public Day(LocalDate date, List<TimeRecordResponse> records) {
+            this.date = date;
+            this.records = records;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public List<TimeRecordResponse> getRecords() {
+            return records;
+        }
+
+        public void setRecords(List<TimeRecordResponse> records) {
+            this.records = records;
+        }
+    }
+
+    /**
+     * 列式编码：各数组按下标一一对应同一条记录，记录按日期、开始时间排序。
+     * 第 i 天（start + i）的记录下标范围为 [dayOffsets[i], dayOffsets[i + 1])；
+     * 分类与颜色做字典编码，categoryIds / colorIds 为字典下标，-1 表示为空。
+     */
+    public static class Columns {
+        private int[] dayOffsets;
+        private List<UUID> ids;
+        private List<String> titles;
+        private List<String> subtitles;
+        private int[] startTimes;
+        private int[] durations;
+        private int[] categoryIds;
+        private int[] colorIds;
+        private List<UUID> habitIds;
+        private List<UUID> seriesIds;       // 重复时间块的发生对应 ids 中的空值
+        private List<String> categories;
+        private List<String> colors;
+
+        public int[] getDayOffsets() {
+            return dayOffsets;
+        }
+
+        public void setDayOffsets(int[] dayOffsets) {
+            this.dayOffsets = dayOffsets;
+        }
+
+        public List<UUID> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<UUID> ids) {
+            this.ids = ids;
+        }
+
+        public List<String> getTitles() {
+            return titles;
+        }
+
+        public void setTitles(List<String> titles) {
+            this.titles = titles;
+        }
+
+        public List<String> getSubtitles() {
+            return subtitles;
+        }
+
+        public void setSubtitles(List<String> subtitles) {
+            this.subtitles = subtitles;
+        }
+
+        public int[] getStartTimes() {
+            return startTimes;
+        }
+
+        public void setStartTimes(int[] startTimes) {
+            this.startTimes = startTimes;
+        }
+
+        public int[] getDurations() {
+            return durations;
+        }
+
+        public void setDurations(int[] durations) {
+            this.durations = durations;
+        }
+
+        public int[] getCategoryIds() {
+            return categoryIds;
+        }
+
+        public void setCategoryIds(int[] categoryIds) {
+            this.categoryIds = categoryIds;
+        }
+
+        public int[] getColorIds() {
+            return colorIds;
+        }
+
+        public void setColorIds(int[] colorIds) {
+            this.colorIds = colorIds;
+        }
+
+        public List<UUID> getHabitIds() {
+            return habitIds;
+        }
+
+        public void setHabitIds(List<UUID> habitIds) {
+            this.habitIds = habitIds;
+        }
+
+        public List<UUID> getSeriesIds() {
+            return seriesIds;
+        }
+
+        public void setSeriesIds(List<UUID> seriesIds) {
+            this.seriesIds = seriesIds;
+        }
+
+        public List<String> getCategories() {
+            return categories;
+        }
+
+        public void setCategories(List<String> categories) {
+            this.categories = categories;
+        }
+
+        public List<String> getColors() {
+            return colors;
+        }
+
+        public void setColors(List<String> colors) {
+            this.colors = colors;
+        }
+    }
+}
@@ -12,10 +12,19 @@ public class TimeRecordRequest {
     private String color;
     private UUID habitId;
     private LocalDate recordDate;
+    private Long version;       // 更新时可选：与 If-Match 等价，不一致时返回 409
 
     public TimeRecordRequest() {
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
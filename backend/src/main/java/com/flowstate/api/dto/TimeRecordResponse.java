@@ -1,5 +1,6 @@
 package com.flowstate.api.dto;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -12,13 +13,19 @@ public class TimeRecordResponse {
     private String category;
     private String color;
     private UUID habitId;
+    private LocalDate recordDate;
     private LocalDateTime createdAt;
+    private Long version;        // 记录版本，PATCH 时原样带回；重复时间块的发生为空
+    private UUID focusSessionId; // 由专注会话归档生成时的会话 id
+    private UUID seriesId;       // 重复时间块展开出的发生：所属系列（此时 id 为空）
+    private Integer columnIndex; // 重叠布局：所在列下标
+    private Integer columnCount; // 重叠布局：所在重叠组的总列数
 
     public TimeRecordResponse() {
     }
 
     public TimeRecordResponse(UUID id, String title, String subtitle, Integer startTime, Integer duration,
-            String category, String color, UUID habitId, LocalDateTime createdAt) {
+            String category, String color, UUID habitId, LocalDate recordDate, LocalDateTime createdAt) {
         this.id = id;
         this.title = title;
         this.subtitle = subtitle;
@@ -27,9 +34,17 @@ public class TimeRecordResponse {
         this.category = category;
         this.color = color;
         this.habitId = habitId;
+        this.recordDate = recordDate;
         this.createdAt = createdAt;
     }
 
+    public TimeRecordResponse(UUID id, String title, String subtitle, Integer startTime, Integer duration,
+            String category, String color, UUID habitId, LocalDate recordDate, LocalDateTime createdAt,
+            Long version) {
+        this(id, title, subtitle, startTime, duration, category, color, habitId, recordDate, createdAt);
+        this.version = version;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -94,6 +109,14 @@ public class TimeRecordResponse {
         this.habitId = habitId;
     }
 
+    public LocalDate getRecordDate() {
+        return recordDate;
+    }
+
+    public void setRecordDate(LocalDate recordDate) {
+        this.recordDate = recordDate;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -102,6 +125,46 @@ public class TimeRecordResponse {
         this.createdAt = createdAt;
     }
 
+    public Integer getColumnIndex() {
+        return columnIndex;
+    }
+
+    public void setColumnIndex(Integer columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    public Integer getColumnCount() {
+        return columnCount;
+    }
+
+    public void setColumnCount(Integer columnCount) {
+        this.columnCount = columnCount;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public UUID getFocusSessionId() {
+        return focusSessionId;
+    }
+
+    public void setFocusSessionId(UUID focusSessionId) {
+        this.focusSessionId = focusSessionId;
+    }
+
+    public UUID getSeriesId() {
+        return seriesId;
+    }
+
+    public void setSeriesId(UUID seriesId) {
+        this.seriesId = seriesId;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -149,6 +212,26 @@ public class TimeRecordResponse {
             return this;
         }
 
+        public Builder recordDate(LocalDate recordDate) {
+            response.setRecordDate(recordDate);
+            return this;
+        }
+
+        public Builder version(Long version) {
+            response.setVersion(version);
+            return this;
+        }
+
+        public Builder focusSessionId(UUID focusSessionId) {
+            response.setFocusSessionId(focusSessionId);
+            return this;
+        }
+
+        public Builder seriesId(UUID seriesId) {
+            response.setSeriesId(seriesId);
+            return this;
+        }
+
         public Builder createdAt(LocalDateTime createdAt) {
             response.setCreatedAt(createdAt);
             return this;
@@ -0,0 +1,122 @@
+package com.flowstate.api.dto;
+
+import com.flowstate.api.enums.Frequency;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class TimeRecordSeriesRequest {
+    private String title;
+    private String subtitle;
+    private Integer startTime;
+    private Integer duration;
+    private String category;
+    private String color;
+    private UUID habitId;
+    private Frequency frequency;        // DAILY / WEEKLY / MONTHLY，为空时 WEEKLY
+    private Integer repeatInterval;     // 每 N 天 / 周 / 月，为空时 1
+    private List<DayOfWeek> weekdays;   // 周重复的星期，为空时取 startDate 所在星期
+    private LocalDate startDate;        // 首次发生日期，月重复按这一天的日号
+    private LocalDate endDate;          // 为空表示不结束
+
+    public TimeRecordSeriesRequest() {
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    public void setSubtitle(String subtitle) {
+        this.subtitle = subtitle;
+    }
+
+    public Integer getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Integer startTime) {
+        this.startTime = startTime;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public UUID getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(UUID habitId) {
+        this.habitId = habitId;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(Frequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public Integer getRepeatInterval() {
+        return repeatInterval;
+    }
+
+    public void setRepeatInterval(Integer repeatInterval) {
+        this.repeatInterval = repeatInterval;
+    }
+
+    public List<DayOfWeek> getWeekdays() {
+        return weekdays;
+    }
+
+    public void setWeekdays(List<DayOfWeek> weekdays) {
+        this.weekdays = weekdays;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+}
@@ -0,0 +1,30 @@
+package com.flowstate.api.dto;
+
+public class VersionConflictResponse {
+    private String error;
+    private Object current; // 服务端当前状态，已被删除时为空
+
+    public VersionConflictResponse() {
+    }
+
+    public VersionConflictResponse(String error, Object current) {
+        this.error = error;
+        this.current = current;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Object getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(Object current) {
+        this.current = current;
+    }
+}
@@ -0,0 +1,41 @@
+package com.flowstate.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 专注会话归档到时间轴的发件箱：完成的会话在同一事务内写入一行，
+ * 由 FocusArchiveRelay 批量转换为 TimeRecord 后删除。
+ */
+@Entity
+@Table(name = "focus_archive_outbox", indexes = @Index(
+        name = "idx_focus_archive_outbox_created", columnList = "created_at"))
+public class FocusArchiveOutbox {
+    @Id
+    private UUID focusSessionId;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    public FocusArchiveOutbox() {
+    }
+
+    public UUID getFocusSessionId() {
+        return focusSessionId;
+    }
+
+    public void setFocusSessionId(UUID focusSessionId) {
+        this.focusSessionId = focusSessionId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
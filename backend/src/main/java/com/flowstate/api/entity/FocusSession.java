@@ -3,11 +3,15 @@ package com.flowstate.api.entity;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "focus_sessions")
+@Table(name = "focus_sessions", indexes = {
+        @Index(name = "idx_focus_sessions_user_start", columnList = "user_id, start_time, id"),
+        @Index(name = "idx_focus_sessions_user_date", columnList = "user_id, session_date")
+})
 public class FocusSession {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -28,6 +32,10 @@ public class FocusSession {
     @Column(nullable = false)
     private LocalDateTime startTime;
 
+    // startTime 所在日期，由 setStartTime 同步维护，供统计查询按日期范围走索引；存量行启动时回填
+    @Column(name = "session_date")
+    private LocalDate sessionDate;
+
     @Column(nullable = false)
     private LocalDateTime endTime;
 
@@ -49,7 +57,7 @@ public class FocusSession {
         this.user = user;
         this.category = category;
         this.habit = habit;
-        this.startTime = startTime;
+        setStartTime(startTime);
         this.endTime = endTime;
         this.duration = duration;
         this.status = status;
@@ -95,6 +103,11 @@ public class FocusSession {
 
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        this.sessionDate = startTime != null ? startTime.toLocalDate() : null;
+    }
+
+    public LocalDate getSessionDate() {
+        return sessionDate;
     }
 
     public LocalDateTime getEndTime() {
@@ -4,13 +4,18 @@ import com.flowstate.api.enums.Frequency;
 import com.flowstate.api.enums.GoalType;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+// 计数器由 HabitStreakWriter 直接以 SQL 更新；只写回变化的列，编辑习惯时不会用旧值覆盖计数器
 @Entity
+@DynamicUpdate
 @Table(name = "habits")
 public class Habit {
     @Id
@@ -40,15 +45,30 @@ public class Habit {
 
     private Boolean isActive = true;
 
+    // 连续打卡计数器，由 HabitStreakWriter 在完成状态翻转时以单条 SQL 维护；
+    // 属于派生状态，不参与乐观锁，并发打卡不会因版本冲突失败
+    @OptimisticLock(excluded = true)
+    private Integer currentStreak = 0; // 截止 lastCompletedDate 的连续天数
+    @OptimisticLock(excluded = true)
+    private Integer longestStreak = 0;
+    @OptimisticLock(excluded = true)
+    private LocalDate lastCompletedDate;
+
     @OneToMany(mappedBy = "habit", cascade = CascadeType.ALL)
+    @OptimisticLock(excluded = true)
     private List<HabitLog> logs;
 
     @CreationTimestamp
     private LocalDateTime createdAt;
 
     @UpdateTimestamp
+    @OptimisticLock(excluded = true)
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version; // 乐观锁版本，只随用户可编辑的字段变化
+
     public Habit() {
     }
 
@@ -160,6 +180,30 @@ public class Habit {
         this.isActive = isActive;
     }
 
+    public Integer getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public void setCurrentStreak(Integer currentStreak) {
+        this.currentStreak = currentStreak;
+    }
+
+    public Integer getLongestStreak() {
+        return longestStreak;
+    }
+
+    public void setLongestStreak(Integer longestStreak) {
+        this.longestStreak = longestStreak;
+    }
+
+    public LocalDate getLastCompletedDate() {
+        return lastCompletedDate;
+    }
+
+    public void setLastCompletedDate(LocalDate lastCompletedDate) {
+        this.lastCompletedDate = lastCompletedDate;
+    }
+
     public List<HabitLog> getLogs() {
         return logs;
     }
@@ -184,6 +228,14 @@ public class Habit {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,79 @@
+package com.flowstate.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 单个习惯在某一年的完成位图：第 n 位 (dayOfYear - 1) 表示当天是否完成，366 位共 46 字节。
+ * 位序与 PostgreSQL set_bit / java.util.BitSet.valueOf 一致（字节内低位在前）。
+ */
+@Entity
+@Table(name = "habit_completion_bitmaps", uniqueConstraints = @UniqueConstraint(
+        name = "uk_habit_completion_bitmap", columnNames = { "habit_id", "calendar_year" }))
+public class HabitCompletionBitmap {
+    public static final int BYTES = 46;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", nullable = false)
+    private Habit habit;
+
+    @Column(name = "calendar_year", nullable = false)
+    private Integer year;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] bits;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public HabitCompletionBitmap() {
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Habit getHabit() {
+        return habit;
+    }
+
+    public void setHabit(Habit habit) {
+        this.habit = habit;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public byte[] getBits() {
+        return bits;
+    }
+
+    public void setBits(byte[] bits) {
+        this.bits = bits;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
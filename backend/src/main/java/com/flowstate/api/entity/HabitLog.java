@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "habit_logs")
+@Table(name = "habit_logs", uniqueConstraints = @UniqueConstraint(
+        name = "uk_habit_log_habit_date", columnNames = { "habit_id", "date" }))
 public class HabitLog {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -28,6 +29,10 @@ public class HabitLog {
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version; // 乐观锁版本；HabitLogWriter 的原子累加在 SQL 中同样加一
+
     public HabitLog() {
     }
 
@@ -90,6 +95,14 @@ public class HabitLog {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,100 @@
+package com.flowstate.api.entity;
+
+import com.flowstate.api.enums.Frequency;
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 周 / 月习惯的周期汇总，每次打卡时原子累加，避免读取时扫描全部日志。
+ */
+@Entity
+@Table(name = "habit_period_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_habit_period_rollup", columnNames = { "habit_id", "period_type", "period_start" }))
+public class HabitPeriodRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", nullable = false)
+    private Habit habit;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false)
+    private Frequency periodType;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart; // 周期键：该周 / 该月的第一天
+
+    @Column(nullable = false)
+    private Integer totalValue = 0;
+
+    private Boolean isCompleted = false;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public HabitPeriodRollup() {
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Habit getHabit() {
+        return habit;
+    }
+
+    public void setHabit(Habit habit) {
+        this.habit = habit;
+    }
+
+    public Frequency getPeriodType() {
+        return periodType;
+    }
+
+    public void setPeriodType(Frequency periodType) {
+        this.periodType = periodType;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public Integer getTotalValue() {
+        return totalValue;
+    }
+
+    public void setTotalValue(Integer totalValue) {
+        this.totalValue = totalValue;
+    }
+
+    public Boolean getIsCompleted() {
+        return isCompleted;
+    }
+
+    public void setIsCompleted(Boolean isCompleted) {
+        this.isCompleted = isCompleted;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
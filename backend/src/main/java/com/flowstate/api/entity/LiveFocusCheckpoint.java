@@ -0,0 +1,123 @@
+package com.flowstate.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 进行中专注会话的检查点：每个用户最多一行，由 LiveFocusRegistry 定期批量写入。
+ * 进程重启后据此恢复会话，超时未收到心跳的会话按最后一次心跳归档。
+ */
+@Entity
+@Table(name = "live_focus_sessions")
+public class LiveFocusCheckpoint {
+    @Id
+    private UUID userId;
+
+    @Column(nullable = false)
+    private UUID sessionId;
+
+    private UUID categoryId;
+
+    private UUID habitId;
+
+    private Integer plannedMinutes;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private Long focusedMs; // resumedAt 之前已累计的专注毫秒数
+
+    private LocalDateTime resumedAt; // 当前计时片段的开始时间，暂停时为空
+
+    @Column(nullable = false)
+    private LocalDateTime lastHeartbeatAt;
+
+    @Column(nullable = false)
+    private LocalDateTime checkpointedAt;
+
+    public LiveFocusCheckpoint() {
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public UUID getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public UUID getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(UUID habitId) {
+        this.habitId = habitId;
+    }
+
+    public Integer getPlannedMinutes() {
+        return plannedMinutes;
+    }
+
+    public void setPlannedMinutes(Integer plannedMinutes) {
+        this.plannedMinutes = plannedMinutes;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Long getFocusedMs() {
+        return focusedMs;
+    }
+
+    public void setFocusedMs(Long focusedMs) {
+        this.focusedMs = focusedMs;
+    }
+
+    public LocalDateTime getResumedAt() {
+        return resumedAt;
+    }
+
+    public void setResumedAt(LocalDateTime resumedAt) {
+        this.resumedAt = resumedAt;
+    }
+
+    public LocalDateTime getLastHeartbeatAt() {
+        return lastHeartbeatAt;
+    }
+
+    public void setLastHeartbeatAt(LocalDateTime lastHeartbeatAt) {
+        this.lastHeartbeatAt = lastHeartbeatAt;
+    }
+
+    public LocalDateTime getCheckpointedAt() {
+        return checkpointedAt;
+    }
+
+    public void setCheckpointedAt(LocalDateTime checkpointedAt) {
+        this.checkpointedAt = checkpointedAt;
+    }
+}
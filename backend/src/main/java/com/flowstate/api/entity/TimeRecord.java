@@ -2,13 +2,19 @@ package com.flowstate.api.entity;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "time_records")
+@Table(name = "time_records", indexes = @Index(
+        name = "idx_time_records_user_date_start", columnList = "user_id, record_date, start_time, id"),
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_time_records_user_import_uid", columnNames = {"user_id", "import_uid"}),
+                @UniqueConstraint(name = "uk_time_records_focus_session", columnNames = "focus_session_id")
+        })
 public class TimeRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -39,9 +45,20 @@ public class TimeRecord {
     @Column(nullable = false)
     private LocalDate recordDate; // 记录所属日期
 
+    private String importUid; // 导入来源的事件标识（跨天事件带日期后缀），重复导入时据此去重
+
+    private UUID focusSessionId; // 由专注会话归档生成时的会话 id，归档任务重放时据此去重
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    @UpdateTimestamp
+    private LocalDateTime updatedAt; // 批量 SQL 写入的旧数据可能为空，读取时回退到 createdAt
+
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version; // 乐观锁版本；拖拽 PATCH 的条件更新在 SQL 中同样加一
+
     public TimeRecord() {
     }
 
@@ -140,6 +157,22 @@ public class TimeRecord {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public LocalDate getRecordDate() {
         return recordDate;
     }
@@ -148,6 +181,22 @@ public class TimeRecord {
         this.recordDate = recordDate;
     }
 
+    public String getImportUid() {
+        return importUid;
+    }
+
+    public void setImportUid(String importUid) {
+        this.importUid = importUid;
+    }
+
+    public UUID getFocusSessionId() {
+        return focusSessionId;
+    }
+
+    public void setFocusSessionId(UUID focusSessionId) {
+        this.focusSessionId = focusSessionId;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
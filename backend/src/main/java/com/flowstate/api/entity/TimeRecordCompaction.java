@@ -0,0 +1,120 @@
+package com.flowstate.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 合并碎片时间记录的撤销日志：一次合并对应一行，保存参与合并的全部原始记录。
+ * 撤销时按原 id 恢复被吸收的记录，并把保留的记录改回原来的时间段。
+ */
+@Entity
+@Table(name = "time_record_compactions", indexes = @Index(
+        name = "idx_time_record_compactions_user_date", columnList = "user_id, record_date"))
+public class TimeRecordCompaction {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDate recordDate;
+
+    @Column(nullable = false)
+    private UUID survivorId; // 合并后保留的记录（原时间段最早的一条）
+
+    @Column(nullable = false)
+    private Long survivorVersion; // 合并后保留记录的版本，撤销时据此确认它没有再被修改
+
+    @Column(nullable = false)
+    private Integer mergedCount; // 参与合并的记录数（含保留的一条）
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String originals; // 原始记录快照，TimeRecordResponse 的 JSON 数组
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime undoneAt; // 已撤销时的时间；撤销过的日期不再自动合并
+
+    public TimeRecordCompaction() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public LocalDate getRecordDate() {
+        return recordDate;
+    }
+
+    public void setRecordDate(LocalDate recordDate) {
+        this.recordDate = recordDate;
+    }
+
+    public UUID getSurvivorId() {
+        return survivorId;
+    }
+
+    public void setSurvivorId(UUID survivorId) {
+        this.survivorId = survivorId;
+    }
+
+    public Long getSurvivorVersion() {
+        return survivorVersion;
+    }
+
+    public void setSurvivorVersion(Long survivorVersion) {
+        this.survivorVersion = survivorVersion;
+    }
+
+    public Integer getMergedCount() {
+        return mergedCount;
+    }
+
+    public void setMergedCount(Integer mergedCount) {
+        this.mergedCount = mergedCount;
+    }
+
+    public String getOriginals() {
+        return originals;
+    }
+
+    public void setOriginals(String originals) {
+        this.originals = originals;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUndoneAt() {
+        return undoneAt;
+    }
+
+    public void setUndoneAt(LocalDateTime undoneAt) {
+        this.undoneAt = undoneAt;
+    }
+}
@@ -0,0 +1,101 @@
+package com.flowstate.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 重复时间块某一次发生的例外：取消该次，或覆盖该次的标题 / 时间（为空的字段沿用系列）。
+ */
+@Entity
+@Table(name = "time_record_series_exceptions", uniqueConstraints = @UniqueConstraint(
+        name = "uk_time_record_series_exception", columnNames = { "series_id", "occurrence_date" }))
+public class TimeRecordSeriesException {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "series_id", nullable = false)
+    private TimeRecordSeries series;
+
+    @Column(name = "occurrence_date", nullable = false)
+    private LocalDate occurrenceDate; // 按规则本应发生的日期
+
+    @Column(nullable = false)
+    private Boolean cancelled = false;
+
+    private String title;
+    private String subtitle;
+    private Integer startTime;
+    private Integer duration;
+
+    public TimeRecordSeriesException() {
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public TimeRecordSeries getSeries() {
+        return series;
+    }
+
+    public void setSeries(TimeRecordSeries series) {
+        this.series = series;
+    }
+
+    public LocalDate getOccurrenceDate() {
+        return occurrenceDate;
+    }
+
+    public void setOccurrenceDate(LocalDate occurrenceDate) {
+        this.occurrenceDate = occurrenceDate;
+    }
+
+    public Boolean getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(Boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    public void setSubtitle(String subtitle) {
+        this.subtitle = subtitle;
+    }
+
+    public Integer getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Integer startTime) {
+        this.startTime = startTime;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+}
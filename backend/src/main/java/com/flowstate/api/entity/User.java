@@ -25,6 +25,9 @@ public class User {
     private String avatar;
     private String bio;
 
+    @Column(unique = true)
+    private String calendarFeedToken; // 日历订阅地址中的令牌，为空表示未开启订阅
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<Habit> habits;
 
@@ -135,6 +138,14 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public String getCalendarFeedToken() {
+        return calendarFeedToken;
+    }
+
+    public void setCalendarFeedToken(String calendarFeedToken) {
+        this.calendarFeedToken = calendarFeedToken;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,6 @@
+package com.flowstate.api.enums;
+
+public enum ImportFormat {
+    ICS,    // iCalendar (.ics)
+    CSV     // 表头包含 title,start,end 的逗号分隔文件
+}
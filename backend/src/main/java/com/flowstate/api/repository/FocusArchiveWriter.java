@@ -0,0 +1,164 @@
+package com.flowstate.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 专注归档发件箱的读写：提交会话时登记一行，归档任务按批认领、生成时间记录并删除。
+ * 生成时间记录以 focus_session_id 去重，同一会话重复归档不会产生第二条记录。
+ */
+@Repository
+public class FocusArchiveWriter {
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO focus_archive_outbox (focus_session_id, created_at) VALUES (?, ?) " +
+            "ON CONFLICT (focus_session_id) DO NOTHING";
+
+    // 多个实例同时运行时 SKIP LOCKED 让各自认领不同的行
+    private static final String CLAIM_SQL =
+            "SELECT focus_session_id, created_at FROM focus_archive_outbox " +
+            "ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    // 标题、分类与颜色的取值与原先逐条归档时一致
+    private static final String ARCHIVE_SQL =
+            "INSERT INTO time_records (id, user_id, habit_id, title, subtitle, start_time, duration, category, " +
+            "color, record_date, focus_session_id, created_at, updated_at) " +
+            "SELECT gen_random_uuid(), f.user_id, f.habit_id, " +
+            "CASE WHEN h.id IS NOT NULL THEN '专注: ' || h.name ELSE '深度专注' END, '通过专注模式自动记录', " +
+            "CAST(EXTRACT(HOUR FROM f.start_time) * 60 + EXTRACT(MINUTE FROM f.start_time) AS int), f.duration, " +
+            "COALESCE(c.name, '工作'), COALESCE(c.color, 'indigo'), CAST(f.start_time AS date), f.id, now(), now() " +
+            "FROM unnest(?) AS v(id) " +
+            "JOIN focus_sessions f ON f.id = v.id " +
+            "LEFT JOIN categories c ON c.id = f.category_id " +
+            "LEFT JOIN habits h ON h.id = f.habit_id " +
+            "ON CONFLICT (focus_session_id) DO NOTHING " +
+            "RETURNING user_id, record_date, start_time, duration";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM focus_archive_outbox WHERE focus_session_id = ANY(?)";
+
+    private static final String BACKLOG_SQL =
+            "SELECT count(*) AS pending, min(created_at) AS oldest FROM focus_archive_outbox";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FocusArchiveWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void enqueue(UUID focusSessionId) {
+        // 登记时间取应用时钟，与归档任务计算延迟时使用同一时钟
+        jdbcTemplate.update(ENQUEUE_SQL, focusSessionId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * 认领最早的一批发件箱条目并加行锁，需在事务内调用。
+     */
+    public List<Entry> claim(int limit) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Entry(rs.getObject("focus_session_id", UUID.class),
+                rs.getTimestamp("created_at").toLocalDateTime()), limit);
+    }
+
+    /**
+     * 为一批会话生成时间记录，返回实际插入的行；会话已被删除或已归档过的跳过。
+     */
+    public List<Archived> archive(List<UUID> focusSessionIds) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(ARCHIVE_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", focusSessionIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> new Archived(rs.getObject("user_id", UUID.class),
+                rs.getDate("record_date").toLocalDate(), rs.getInt("start_time"), rs.getInt("duration")));
+    }
+
+    public int delete(List<UUID> focusSessionIds) {
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(DELETE_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", focusSessionIds.toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * 未归档的条目数与最早一条的登记时间（没有积压时为空）。
+     */
+    public Backlog backlog() {
+        return jdbcTemplate.queryForObject(BACKLOG_SQL, (rs, rowNum) -> {
+            Timestamp oldest = rs.getTimestamp("oldest");
+            return new Backlog(rs.getLong("pending"), oldest != null ? oldest.toLocalDateTime() : null);
+        });
+    }
+
+    public static class Entry {
+        private final UUID focusSessionId;
+        private final LocalDateTime createdAt;
+
+        public Entry(UUID focusSessionId, LocalDateTime createdAt) {
+            this.focusSessionId = focusSessionId;
+            this.createdAt = createdAt;
+        }
+
+        public UUID getFocusSessionId() {
+            return focusSessionId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+
+    public static class Archived {
+        private final UUID userId;
+        private final LocalDate recordDate;
+        private final int startTime;
+        private final int duration;
+
+        public Archived(UUID userId, LocalDate recordDate, int startTime, int duration) {
+            this.userId = userId;
+            this.recordDate = recordDate;
+            this.startTime = startTime;
+            this.duration = duration;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public LocalDate getRecordDate() {
+            return recordDate;
+        }
+
+        public int getStartTime() {
+            return startTime;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+    }
+
+    public static class Backlog {
+        private final long pending;
+        private final LocalDateTime oldest;
+
+        public Backlog(long pending, LocalDateTime oldest) {
+            this.pending = pending;
+            this.oldest = oldest;
+        }
+
+        public long getPending() {
+            return pending;
+        }
+
+        public LocalDateTime getOldest() {
+            return oldest;
+        }
+    }
+}
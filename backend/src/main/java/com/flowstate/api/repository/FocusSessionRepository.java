@@ -1,8 +1,11 @@
 package com.flowstate.api.repository;
 
+import com.flowstate.api.dto.FocusSessionResponse;
 import com.flowstate.api.entity.FocusSession;
 import com.flowstate.api.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,27 +17,55 @@ import java.util.UUID;
 
 @Repository
 public interface FocusSessionRepository extends JpaRepository<FocusSession, UUID> {
-    List<FocusSession> findByUserOrderByStartTimeDesc(User user);
+    // 全量列表：分类与习惯随会话一起取出，逐行映射时不再触发懒加载
+    @Query("SELECT f FROM FocusSession f LEFT JOIN FETCH f.category LEFT JOIN FETCH f.habit " +
+           "WHERE f.user = :user ORDER BY f.startTime DESC")
+    List<FocusSession> findByUserOrderByStartTimeDesc(@Param("user") User user);
+
+    // 专注历史首页：DTO 投影一条查询带出分类与习惯的展示字段，按 (startTime, id) 倒序，走 idx_focus_sessions_user_start
+    @Query("SELECT new com.flowstate.api.dto.FocusSessionResponse(f.id, f.user.id, c.id, c.name, c.color, " +
+           "h.id, h.name, f.startTime, f.endTime, f.duration, f.status, f.createdAt) " +
+           "FROM FocusSession f LEFT JOIN f.category c LEFT JOIN f.habit h " +
+           "WHERE f.user.id = :userId ORDER BY f.startTime DESC, f.id DESC")
+    List<FocusSessionResponse> findHistoryFirstPage(@Param("userId") UUID userId, Pageable pageable);
+
+    // 专注历史后续页：从游标 (startTime, id) 之后继续，不随翻页深度变慢
+    @Query("SELECT new com.flowstate.api.dto.FocusSessionResponse(f.id, f.user.id, c.id, c.name, c.color, " +
+           "h.id, h.name, f.startTime, f.endTime, f.duration, f.status, f.createdAt) " +
+           "FROM FocusSession f LEFT JOIN f.category c LEFT JOIN f.habit h " +
+           "WHERE f.user.id = :userId " +
+           "AND (f.startTime < :startTime OR (f.startTime = :startTime AND f.id < :id)) " +
+           "ORDER BY f.startTime DESC, f.id DESC")
+    List<FocusSessionResponse> findHistoryAfter(@Param("userId") UUID userId,
+                                                @Param("startTime") LocalDateTime startTime,
+                                                @Param("id") UUID id,
+                                                Pageable pageable);
 
     List<FocusSession> findByUserAndStartTimeBetween(User user, LocalDateTime start, LocalDateTime end);
     
-    // Analytics: 按分类聚合时长
+    // Analytics: 按分类聚合时长；按 session_date 范围过滤，走 idx_focus_sessions_user_date
     @Query("SELECT f.category.name as category, SUM(f.duration) as totalMinutes " +
            "FROM FocusSession f WHERE f.user = :user " +
-           "AND FUNCTION('DATE', f.startTime) >= :start AND FUNCTION('DATE', f.startTime) <= :end " +
+           "AND f.sessionDate >= :start AND f.sessionDate <= :end " +
            "GROUP BY f.category.name")
     List<CategoryTimeProjection> sumDurationByCategory(@Param("user") User user, 
                                                         @Param("start") LocalDate start, 
                                                         @Param("end") LocalDate end);
     
     // Analytics: 按日期和分类聚合（用于折线图）
-    @Query("SELECT FUNCTION('DATE', f.startTime) as date, f.category.name as category, SUM(f.duration) as totalMinutes " +
+    @Query("SELECT f.sessionDate as date, f.category.name as category, SUM(f.duration) as totalMinutes " +
            "FROM FocusSession f WHERE f.user = :user " +
-           "AND FUNCTION('DATE', f.startTime) >= :start AND FUNCTION('DATE', f.startTime) <= :end " +
-           "GROUP BY FUNCTION('DATE', f.startTime), f.category.name ORDER BY FUNCTION('DATE', f.startTime)")
+           "AND f.sessionDate >= :start AND f.sessionDate <= :end " +
+           "GROUP BY f.sessionDate, f.category.name ORDER BY f.sessionDate")
     List<DailyCategoryTimeProjection> sumDurationByDateAndCategory(@Param("user") User user, 
                                                                      @Param("start") LocalDate start, 
                                                                      @Param("end") LocalDate end);
+
+    // 回填新增 session_date 列之前写入的存量行
+    @Modifying
+    @Query(value = "UPDATE focus_sessions SET session_date = CAST(start_time AS date) WHERE session_date IS NULL",
+            nativeQuery = true)
+    int backfillSessionDates();
     
     interface CategoryTimeProjection {
         String getCategory();
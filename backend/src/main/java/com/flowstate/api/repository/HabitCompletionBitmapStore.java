@@ -0,0 +1,150 @@
+package com.flowstate.api.repository;
+
+import com.flowstate.api.entity.HabitCompletionBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * habit_completion_bitmaps 的 JDBC 读写：按位原子更新，读取时绕过 Hibernate 一级缓存，
+ * 保证同一事务内先写后读看到的是最新位图。
+ */
+@Repository
+public class HabitCompletionBitmapStore {
+
+    private static final String SET_BIT_SQL =
+            "INSERT INTO habit_completion_bitmaps (id, habit_id, calendar_year, bits, updated_at) " +
+            "VALUES (gen_random_uuid(), ?, ?, set_bit(decode(repeat('00', " + HabitCompletionBitmap.BYTES + "), 'hex'), ?, ?), now()) " +
+            "ON CONFLICT (habit_id, calendar_year) DO UPDATE " +
+            "SET bits = set_bit(habit_completion_bitmaps.bits, ?, ?), updated_at = now()";
+
+    private static final String COMPLETED_DAYS_SQL =
+            "SELECT l.habit_id, CAST(EXTRACT(YEAR FROM l.date) AS INTEGER) AS y, " +
+            "CAST(EXTRACT(DOY FROM l.date) AS INTEGER) AS d " +
+            "FROM habit_logs l JOIN habits h ON h.id = l.habit_id WHERE l.is_completed = true";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HabitCompletionBitmapStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量置位 / 清位，每条更新一个 (habit, year) 位图中的一位。
+     */
+    public void apply(List<BitUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SET_BIT_SQL, updates, updates.size(), (ps, u) -> {
+            int bit = u.getDate().getDayOfYear() - 1;
+            int value = u.isCompleted() ? 1 : 0;
+            ps.setObject(1, u.getHabitId());
+            ps.setInt(2, u.getDate().getYear());
+            ps.setInt(3, bit);
+            ps.setInt(4, value);
+            ps.setInt(5, bit);
+            ps.setInt(6, value);
+        });
+    }
+
+    /**
+     * 读取多个习惯在指定年份的位图，key 为 habitId|year，不存在的行不返回。
+     */
+    public Map<String, BitSet> load(Collection<UUID> habitIds, Collection<Integer> years) {
+        Map<String, BitSet> result = new HashMap<>();
+        if (habitIds.isEmpty() || years.isEmpty()) {
+            return result;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT habit_id, calendar_year, bits FROM habit_completion_bitmaps " +
+                    "WHERE habit_id = ANY(?) AND calendar_year = ANY(?)");
+            ps.setArray(1, con.createArrayOf("uuid", habitIds.toArray()));
+            ps.setArray(2, con.createArrayOf("int4", years.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> result.put(key(rs.getObject("habit_id", UUID.class), rs.getInt("calendar_year")),
+                BitSet.valueOf(rs.getBytes("bits"))));
+        return result;
+    }
+
+    public boolean isEmpty() {
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM habit_completion_bitmaps LIMIT 1) t", Integer.class);
+        return exists == null || exists == 0;
+    }
+
+    /**
+     * 从 habit_logs 重建位图：流式读取已完成的日期在内存中置位，再整体替换。
+     *
+     * @param userId 为 null 时重建全部用户
+     * @return 写入的位图行数
+     */
+    public int rebuildFromLogs(UUID userId) {
+        Map<String, BitSet> bitmaps = new HashMap<>();
+        RowCallbackHandler collect = rs -> bitmaps
+                .computeIfAbsent(key(rs.getObject("habit_id", UUID.class), rs.getInt("y")), k -> new BitSet())
+                .set(rs.getInt("d") - 1);
+
+        if (userId == null) {
+            jdbcTemplate.query(COMPLETED_DAYS_SQL, collect);
+            jdbcTemplate.update("DELETE FROM habit_completion_bitmaps");
+        } else {
+            jdbcTemplate.query(COMPLETED_DAYS_SQL + " AND h.user_id = ?", collect, userId);
+            jdbcTemplate.update("DELETE FROM habit_completion_bitmaps b USING habits h " +
+                    "WHERE h.id = b.habit_id AND h.user_id = ?", userId);
+        }
+
+        List<Object[]> rows = new ArrayList<>(bitmaps.size());
+        bitmaps.forEach((key, bits) -> {
+            int separator = key.indexOf('|');
+            rows.add(new Object[] { UUID.fromString(key.substring(0, separator)),
+                    Integer.parseInt(key.substring(separator + 1)),
+                    Arrays.copyOf(bits.toByteArray(), HabitCompletionBitmap.BYTES) });
+        });
+        jdbcTemplate.batchUpdate("INSERT INTO habit_completion_bitmaps (id, habit_id, calendar_year, bits, updated_at) " +
+                "VALUES (gen_random_uuid(), ?, ?, ?, now())", rows);
+        return rows.size();
+    }
+
+    public static String key(UUID habitId, int year) {
+        return habitId + "|" + year;
+    }
+
+    /**
+     * 某个习惯某一天完成状态的变化。
+     */
+    public static class BitUpdate {
+        private final UUID habitId;
+        private final LocalDate date;
+        private final boolean completed;
+
+        public BitUpdate(UUID habitId, LocalDate date, boolean completed) {
+            this.habitId = habitId;
+            this.date = date;
+            this.completed = completed;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+}
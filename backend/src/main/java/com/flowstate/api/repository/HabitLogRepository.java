@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +18,9 @@ import java.util.UUID;
 public interface HabitLogRepository extends JpaRepository<HabitLog, UUID> {
     Optional<HabitLog> findByHabitAndDate(Habit habit, LocalDate date);
     java.util.List<HabitLog> findByHabitAndDateAfterOrderByDateDesc(Habit habit, LocalDate date);
+
+    // 看板批量加载：一次取出多个习惯在日期窗口内的全部日志
+    List<HabitLog> findByHabitInAndDateBetweenOrderByDateDesc(Collection<Habit> habits, LocalDate start, LocalDate end);
     
     // Analytics: 按日期范围查询
     List<HabitLog> findByHabit_UserAndDateBetween(User user, LocalDate start, LocalDate end);
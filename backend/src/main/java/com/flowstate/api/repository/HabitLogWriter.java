@@ -0,0 +1,260 @@
+package com.flowstate.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * habit_logs 的 JDBC 写入路径：基于 (habit_id, date) 唯一键的原子累加，不在 Java 侧做先查后写。
+ */
+@Repository
+public class HabitLogWriter {
+
+    public static final String UNIQUE_KEY = "uk_habit_log_habit_date";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO habit_logs (id, habit_id, date, current_value, is_completed, created_at) " +
+            "VALUES (gen_random_uuid(), ?, ?, ?, ? >= ?, now()) " +
+            "ON CONFLICT (habit_id, date) DO UPDATE " +
+            "SET current_value = COALESCE(habit_logs.current_value, 0) + EXCLUDED.current_value, " +
+            "is_completed = COALESCE(habit_logs.current_value, 0) + EXCLUDED.current_value >= ?, " +
+            "version = habit_logs.version + 1 " +
+            "RETURNING current_value, is_completed, (xmax = 0) AS inserted";
+
+    // 批量版本：unnest 数组展开为一条多行 upsert，整批一次往返并逐行返回结果；目标值直接取自 habits 表
+    private static final String BATCH_UPSERT_SQL =
+            "INSERT INTO habit_logs (id, habit_id, date, current_value, is_completed, created_at) " +
+            "SELECT gen_random_uuid(), v.habit_id, v.log_date, v.inc, v.inc >= COALESCE(h.goal_value, 1), now() " +
+            "FROM unnest(?, ?, ?) AS v(habit_id, log_date, inc) JOIN habits h ON h.id = v.habit_id " +
+            "ON CONFLICT (habit_id, date) DO UPDATE " +
+            "SET current_value = COALESCE(habit_logs.current_value, 0) + EXCLUDED.current_value, " +
+            "is_completed = COALESCE(habit_logs.current_value, 0) + EXCLUDED.current_value >= " +
+            "(SELECT COALESCE(g.goal_value, 1) FROM habits g WHERE g.id = habit_logs.habit_id), " +
+            "version = habit_logs.version + 1 " +
+            "RETURNING habit_id, date, current_value, is_completed, (xmax = 0) AS inserted";
+
+    private static final String BATCH_PERIOD_UPSERT_SQL =
+            "INSERT INTO habit_period_rollups (id, habit_id, period_type, period_start, total_value, is_completed, updated_at) " +
+            "SELECT gen_random_uuid(), v.habit_id, v.period_type, v.period_start, v.inc, " +
+            "v.inc >= COALESCE(h.goal_value, 1), now() " +
+            "FROM unnest(?, ?, ?, ?) AS v(habit_id, period_type, period_start, inc) JOIN habits h ON h.id = v.habit_id " +
+            "ON CONFLICT (habit_id, period_type, period_start) DO UPDATE " +
+            "SET total_value = habit_period_rollups.total_value + EXCLUDED.total_value, " +
+            "is_completed = habit_period_rollups.total_value + EXCLUDED.total_value >= " +
+            "(SELECT COALESCE(g.goal_value, 1) FROM habits g WHERE g.id = habit_period_rollups.habit_id), " +
+            "updated_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HabitLogWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 单条语句完成累加或插入，并返回累加后的值与完成状态。
+     */
+    public UpsertResult increment(UUID habitId, LocalDate date, int increment, int goal) {
+        return jdbcTemplate.queryForObject(UPSERT_SQL,
+                (rs, rowNum) -> new UpsertResult(habitId, date, increment, goal, rs.getInt("current_value"),
+                        rs.getBoolean("is_completed"), rs.getBoolean("inserted")),
+                habitId, Date.valueOf(date), increment, increment, goal, goal);
+    }
+
+    /**
+     * 批量累加，调用方需保证同一 (habitId, date) 在列表中只出现一次。
+     *
+     * @param goals 每个习惯的目标值，用于反推累加前的完成状态
+     */
+    public List<UpsertResult> incrementAll(List<Increment> increments, Map<UUID, Integer> goals) {
+        if (increments.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> incrementByKey = new HashMap<>();
+        increments.forEach(i -> incrementByKey.put(i.getHabitId() + "|" + i.getDate(), i.getIncrement()));
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(BATCH_UPSERT_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", increments.stream().map(Increment::getHabitId).toArray()));
+            ps.setArray(2, dateArray(con, increments.stream().map(Increment::getDate).toArray(LocalDate[]::new)));
+            ps.setArray(3, con.createArrayOf("int4", increments.stream().map(Increment::getIncrement).toArray()));
+            return ps;
+        }, (rs, rowNum) -> {
+            UUID habitId = rs.getObject("habit_id", UUID.class);
+            LocalDate date = rs.getDate("date").toLocalDate();
+            int increment = incrementByKey.get(habitId + "|" + date);
+            return new UpsertResult(habitId, date, increment, goals.getOrDefault(habitId, 1),
+                    rs.getInt("current_value"), rs.getBoolean("is_completed"), rs.getBoolean("inserted"));
+        });
+    }
+
+    /**
+     * 批量累加周期汇总，调用方需保证同一 (habitId, periodType, periodStart) 只出现一次。
+     */
+    public void addToPeriods(List<PeriodIncrement> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(BATCH_PERIOD_UPSERT_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", increments.stream().map(PeriodIncrement::getHabitId).toArray()));
+            ps.setArray(2, con.createArrayOf("varchar", increments.stream().map(PeriodIncrement::getPeriodType).toArray()));
+            ps.setArray(3, dateArray(con, increments.stream().map(PeriodIncrement::getPeriodStart).toArray(LocalDate[]::new)));
+            ps.setArray(4, con.createArrayOf("int4", increments.stream().map(PeriodIncrement::getIncrement).toArray()));
+            return ps;
+        });
+    }
+
+    private static java.sql.Array dateArray(Connection con, LocalDate[] dates) throws SQLException {
+        Date[] values = new Date[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            values[i] = Date.valueOf(dates[i]);
+        }
+        return con.createArrayOf("date", values);
+    }
+
+    public boolean hasUniqueKey() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, UNIQUE_KEY);
+        return count != null && count > 0;
+    }
+
+    /**
+     * 合并历史并发写入产生的重复 (habit_id, date) 行：数值累加到最早的一行，其余删除。
+     */
+    public int mergeDuplicates() {
+        jdbcTemplate.update(
+                "UPDATE habit_logs l SET current_value = d.total, is_completed = d.total >= COALESCE(h.goal_value, 1), " +
+                "version = l.version + 1 " +
+                "FROM (SELECT id, SUM(COALESCE(current_value, 0)) OVER (PARTITION BY habit_id, date) AS total, " +
+                "ROW_NUMBER() OVER (PARTITION BY habit_id, date ORDER BY created_at, id) AS rn, " +
+                "COUNT(*) OVER (PARTITION BY habit_id, date) AS cnt FROM habit_logs) d, habits h " +
+                "WHERE l.id = d.id AND d.rn = 1 AND d.cnt > 1 AND h.id = l.habit_id");
+        return jdbcTemplate.update(
+                "DELETE FROM habit_logs l USING (SELECT id, " +
+                "ROW_NUMBER() OVER (PARTITION BY habit_id, date ORDER BY created_at, id) AS rn FROM habit_logs) d " +
+                "WHERE l.id = d.id AND d.rn > 1");
+    }
+
+    public void addUniqueKey() {
+        jdbcTemplate.execute("ALTER TABLE habit_logs ADD CONSTRAINT " + UNIQUE_KEY + " UNIQUE (habit_id, date)");
+    }
+
+    /**
+     * 一条待写入的日志增量。
+     */
+    public static class Increment {
+        private final UUID habitId;
+        private final LocalDate date;
+        private final int increment;
+
+        public Increment(UUID habitId, LocalDate date, int increment) {
+            this.habitId = habitId;
+            this.date = date;
+            this.increment = increment;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int getIncrement() {
+            return increment;
+        }
+    }
+
+    /**
+     * 一条待写入的周期汇总增量。
+     */
+    public static class PeriodIncrement {
+        private final UUID habitId;
+        private final String periodType;
+        private final LocalDate periodStart;
+        private final int increment;
+
+        public PeriodIncrement(UUID habitId, String periodType, LocalDate periodStart, int increment) {
+            this.habitId = habitId;
+            this.periodType = periodType;
+            this.periodStart = periodStart;
+            this.increment = increment;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public String getPeriodType() {
+            return periodType;
+        }
+
+        public LocalDate getPeriodStart() {
+            return periodStart;
+        }
+
+        public int getIncrement() {
+            return increment;
+        }
+    }
+
+    public static class UpsertResult {
+        private final UUID habitId;
+        private final LocalDate date;
+        private final int increment;
+        private final int goal;
+        private final int currentValue;
+        private final boolean completed;
+        private final boolean inserted;
+
+        public UpsertResult(UUID habitId, LocalDate date, int increment, int goal, int currentValue,
+                boolean completed, boolean inserted) {
+            this.habitId = habitId;
+            this.date = date;
+            this.increment = increment;
+            this.goal = goal;
+            this.currentValue = currentValue;
+            this.completed = completed;
+            this.inserted = inserted;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int getCurrentValue() {
+            return currentValue;
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        public boolean isInserted() {
+            return inserted;
+        }
+
+        // 累加前的完成状态：由返回值反推，新插入的行视为未完成
+        public boolean wasCompleted() {
+            return !inserted && currentValue - increment >= goal;
+        }
+
+        public boolean completionChanged() {
+            return wasCompleted() != completed;
+        }
+    }
+}
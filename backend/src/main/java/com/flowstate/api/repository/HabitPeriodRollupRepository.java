@@ -0,0 +1,53 @@
+package com.flowstate.api.repository;
+
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.HabitPeriodRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface HabitPeriodRollupRepository extends JpaRepository<HabitPeriodRollup, UUID> {
+
+    // 看板读取：一次索引查询取出所有习惯在当前周 / 当前月的汇总
+    List<HabitPeriodRollup> findByHabitInAndPeriodStartIn(Collection<Habit> habits, Collection<LocalDate> periodStarts);
+
+    // 打卡时原子累加当前周期的汇总值
+    @Modifying
+    @Query(value = "INSERT INTO habit_period_rollups (id, habit_id, period_type, period_start, total_value, is_completed, updated_at) " +
+            "VALUES (gen_random_uuid(), :habitId, :periodType, :periodStart, :increment, :increment >= :goal, now()) " +
+            "ON CONFLICT (habit_id, period_type, period_start) DO UPDATE " +
+            "SET total_value = habit_period_rollups.total_value + EXCLUDED.total_value, " +
+            "is_completed = habit_period_rollups.total_value + EXCLUDED.total_value >= :goal, " +
+            "updated_at = now()",
+            nativeQuery = true)
+    int addToPeriod(@Param("habitId") UUID habitId,
+                    @Param("periodType") String periodType,
+                    @Param("periodStart") LocalDate periodStart,
+                    @Param("increment") int increment,
+                    @Param("goal") int goal);
+
+    // 存量数据迁移：按习惯频率把 habit_logs 汇总到周期表，周起始日与 HabitPeriods.WEEK_FIELDS 保持一致
+    @Modifying
+    @Query(value = "INSERT INTO habit_period_rollups (id, habit_id, period_type, period_start, total_value, is_completed, updated_at) " +
+            "SELECT gen_random_uuid(), agg.habit_id, agg.period_type, agg.period_start, agg.total, " +
+            "agg.total >= COALESCE(agg.goal_value, 1), now() " +
+            "FROM (SELECT l.habit_id, h.frequency AS period_type, h.goal_value, " +
+            "CASE WHEN h.frequency = 'WEEKLY' " +
+            "THEN l.date - CAST(MOD(CAST(EXTRACT(ISODOW FROM l.date) AS INTEGER) - :firstDayOfWeek + 7, 7) AS INTEGER) " +
+            "ELSE CAST(DATE_TRUNC('month', l.date) AS DATE) END AS period_start, " +
+            "COALESCE(SUM(l.current_value), 0) AS total " +
+            "FROM habit_logs l JOIN habits h ON h.id = l.habit_id " +
+            "WHERE h.frequency IN ('WEEKLY', 'MONTHLY') " +
+            "GROUP BY l.habit_id, h.frequency, h.goal_value, period_start) agg " +
+            "ON CONFLICT (habit_id, period_type, period_start) DO NOTHING",
+            nativeQuery = true)
+    int backfillFromLogs(@Param("firstDayOfWeek") int firstDayOfWeek);
+}
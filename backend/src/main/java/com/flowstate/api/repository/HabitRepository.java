@@ -3,8 +3,12 @@ package com.flowstate.api.repository;
 import com.flowstate.api.entity.Habit;
 import com.flowstate.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,7 +16,48 @@ import java.util.UUID;
 public interface HabitRepository extends JpaRepository<Habit, UUID> {
     List<Habit> findByUserAndIsActiveTrue(User user);
 
+    List<Habit> findByUserIdAndIsActiveTrue(UUID userId);
+
     List<Habit> findByUserId(UUID userId);
 
+    @Query("SELECT h.id FROM Habit h WHERE h.user.id = :userId")
+    List<UUID> findIdsByUserId(@Param("userId") UUID userId);
+
+    // 批量打卡的归属校验：一次查询取出属于该用户的习惯
+    List<Habit> findByIdInAndUserId(Collection<UUID> ids, UUID userId);
+
     boolean existsByUserAndNameIgnoreCaseAndIsActiveTrue(User user, String name);
+
+    // 连续打卡计数器重建：基于 habit_logs 的 gaps-and-islands 集合运算，一条语句完成；
+    // 完成日期来源分为全表与单个用户两种，单个用户时日志先与该用户的习惯关联，窗口函数只处理该用户的数据
+    String STREAK_REBUILD_HEAD = "UPDATE habits h SET current_streak = COALESCE(s.latest_len, 0), " +
+            "longest_streak = COALESCE(s.longest, 0), last_completed_date = s.last_done " +
+            "FROM (SELECT hb.id AS habit_id, r.latest_len, r.longest, r.last_done FROM habits hb " +
+            "LEFT JOIN (SELECT runs.habit_id, MAX(runs.len) AS longest, MAX(runs.run_end) AS last_done, " +
+            "(ARRAY_AGG(runs.len ORDER BY runs.run_end DESC))[1] AS latest_len " +
+            "FROM (SELECT d.habit_id, COUNT(*) AS len, MAX(d.date) AS run_end " +
+            "FROM (SELECT c.habit_id, c.date, " +
+            "c.date - CAST(ROW_NUMBER() OVER (PARTITION BY c.habit_id ORDER BY c.date) AS INTEGER) AS grp " +
+            "FROM (";
+
+    String STREAK_REBUILD_TAIL = ") c) d " +
+            "GROUP BY d.habit_id, d.grp) runs " +
+            "GROUP BY runs.habit_id) r ON r.habit_id = hb.id ";
+
+    String ALL_COMPLETIONS = "SELECT DISTINCT l.habit_id, l.date FROM habit_logs l WHERE l.is_completed = true";
+
+    String USER_COMPLETIONS = "SELECT DISTINCT l.habit_id, l.date FROM habit_logs l " +
+            "JOIN habits uh ON uh.id = l.habit_id WHERE uh.user_id = :userId AND l.is_completed = true";
+
+    @Modifying
+    @Query(value = STREAK_REBUILD_HEAD + ALL_COMPLETIONS + STREAK_REBUILD_TAIL +
+            "WHERE hb.current_streak IS NULL) s WHERE h.id = s.habit_id",
+            nativeQuery = true)
+    int rebuildMissingStreakCounters();
+
+    @Modifying
+    @Query(value = STREAK_REBUILD_HEAD + USER_COMPLETIONS + STREAK_REBUILD_TAIL +
+            "WHERE hb.user_id = :userId) s WHERE h.id = s.habit_id",
+            nativeQuery = true)
+    int rebuildStreakCountersForUser(@Param("userId") UUID userId);
 }
@@ -0,0 +1,122 @@
+package com.flowstate.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * habits 上连续打卡计数器的 SQL 写入路径：读取旧值与写入新值在同一条语句内完成，
+ * 并发的完成状态翻转在 habits 行锁上排队，不会互相覆盖。
+ */
+@Repository
+public class HabitStreakWriter {
+
+    // 完成日期晚于最后完成日期时的增量更新；被并发事务阻塞后按最新行版本重新判断条件与取值
+    private static final String ADVANCE_SQL =
+            "UPDATE habits SET current_streak = CASE WHEN last_completed_date = CAST(? AS date) - 1 " +
+            "THEN current_streak + 1 ELSE 1 END, " +
+            "longest_streak = GREATEST(COALESCE(longest_streak, 0), CASE WHEN last_completed_date = " +
+            "CAST(? AS date) - 1 THEN current_streak + 1 ELSE 1 END), " +
+            "last_completed_date = ? " +
+            "WHERE id = ? AND current_streak IS NOT NULL " +
+            "AND (last_completed_date IS NULL OR last_completed_date < ?) " +
+            "RETURNING current_streak, longest_streak, last_completed_date";
+
+    // FOR NO KEY UPDATE 与 UPDATE 取同级锁，不阻塞插入 habit_logs 时的外键检查
+    private static final String LOCK_SQL = "SELECT id FROM habits WHERE id = ? FOR NO KEY UPDATE";
+
+    // 单个习惯的 gaps-and-islands 重算，聚合无 GROUP BY 时总返回一行，没有完成记录时计数器归零
+    private static final String RECOMPUTE_SQL =
+            "UPDATE habits h SET current_streak = COALESCE(r.latest_len, 0), " +
+            "longest_streak = COALESCE(r.longest, 0), last_completed_date = r.last_done " +
+            "FROM (SELECT MAX(runs.len) AS longest, MAX(runs.run_end) AS last_done, " +
+            "(ARRAY_AGG(runs.len ORDER BY runs.run_end DESC))[1] AS latest_len " +
+            "FROM (SELECT COUNT(*) AS len, MAX(d.date) AS run_end " +
+            "FROM (SELECT c.date, c.date - CAST(ROW_NUMBER() OVER (ORDER BY c.date) AS INTEGER) AS grp " +
+            "FROM (SELECT DISTINCT l.date FROM habit_logs l WHERE l.habit_id = ? AND l.is_completed = true) c) d " +
+            "GROUP BY d.grp) runs) r " +
+            "WHERE h.id = ? " +
+            "RETURNING h.current_streak, h.longest_streak, h.last_completed_date";
+
+    private static final RowMapper<Counters> COUNTERS_MAPPER = (rs, rowNum) -> {
+        Date last = rs.getDate("last_completed_date");
+        return new Counters(rs.getInt("current_streak"), rs.getInt("longest_streak"),
+                last != null ? last.toLocalDate() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HabitStreakWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 把新完成的日期接到计数器上；日期不晚于最后完成日期或计数器尚未初始化时不更新，返回空。
+     */
+    public Optional<Counters> advance(UUID habitId, LocalDate date) {
+        Date day = Date.valueOf(date);
+        List<Counters> rows = jdbcTemplate.query(ADVANCE_SQL, COUNTERS_MAPPER, day, day, day, habitId, day);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * 按 habitId 顺序逐行加锁，与批量打卡的加锁顺序一致，避免互相等待形成死锁。
+     *
+     * @return 实际锁住的行数
+     */
+    public int lockAll(Collection<UUID> habitIds) {
+        List<UUID> ordered = new ArrayList<>(habitIds);
+        Collections.sort(ordered);
+        int locked = 0;
+        for (UUID habitId : ordered) {
+            locked += jdbcTemplate.queryForList(LOCK_SQL, UUID.class, habitId).size();
+        }
+        return locked;
+    }
+
+    /**
+     * 先锁住习惯行，再按 habit_logs 重算。两条语句分开执行：拿到锁之后的重算语句使用新快照，
+     * 能看到先于本事务持锁并已提交的全部翻转；尚未提交的翻转稍后同样要取这把锁，由它们自己重算。
+     */
+    public Optional<Counters> recompute(UUID habitId) {
+        List<UUID> locked = jdbcTemplate.queryForList(LOCK_SQL, UUID.class, habitId);
+        if (locked.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Counters> rows = jdbcTemplate.query(RECOMPUTE_SQL, COUNTERS_MAPPER, habitId, habitId);
+        return rows.stream().findFirst();
+    }
+
+    public static class Counters {
+        private final int currentStreak;
+        private final int longestStreak;
+        private final LocalDate lastCompletedDate;
+
+        public Counters(int currentStreak, int longestStreak, LocalDate lastCompletedDate) {
+            this.currentStreak = currentStreak;
+            this.longestStreak = longestStreak;
+            this.lastCompletedDate = lastCompletedDate;
+        }
+
+        public int getCurrentStreak() {
+            return currentStreak;
+        }
+
+        public int getLongestStreak() {
+            return longestStreak;
+        }
+
+        public LocalDate getLastCompletedDate() {
+            return lastCompletedDate;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.flowstate.api.repository;
+
+import com.flowstate.api.entity.LiveFocusCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface LiveFocusCheckpointRepository extends JpaRepository<LiveFocusCheckpoint, UUID> {
+}
@@ -0,0 +1,135 @@
+package com.flowstate.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 进行中专注会话的检查点：一轮内所有变化过的会话通过 unnest 合并为一条 upsert，
+ * 心跳本身只改内存，写库次数与心跳频率无关。
+ */
+@Repository
+public class LiveFocusCheckpointWriter {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO live_focus_sessions (user_id, session_id, category_id, habit_id, planned_minutes, " +
+            "started_at, focused_ms, resumed_at, last_heartbeat_at, checkpointed_at) " +
+            "SELECT v.user_id, v.session_id, v.category_id, v.habit_id, v.planned_minutes, v.started_at, " +
+            "v.focused_ms, v.resumed_at, v.last_heartbeat_at, now() " +
+            "FROM unnest(?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "AS v(user_id, session_id, category_id, habit_id, planned_minutes, started_at, focused_ms, resumed_at, " +
+            "last_heartbeat_at) " +
+            "ON CONFLICT (user_id) DO UPDATE SET session_id = EXCLUDED.session_id, " +
+            "category_id = EXCLUDED.category_id, habit_id = EXCLUDED.habit_id, " +
+            "planned_minutes = EXCLUDED.planned_minutes, started_at = EXCLUDED.started_at, " +
+            "focused_ms = EXCLUDED.focused_ms, resumed_at = EXCLUDED.resumed_at, " +
+            "last_heartbeat_at = EXCLUDED.last_heartbeat_at, checkpointed_at = EXCLUDED.checkpointed_at";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM live_focus_sessions WHERE user_id = ? AND session_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LiveFocusCheckpointWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int upsert(List<Checkpoint> checkpoints) {
+        if (checkpoints.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", checkpoints.stream().map(Checkpoint::getUserId).toArray()));
+            ps.setArray(2, con.createArrayOf("uuid", checkpoints.stream().map(Checkpoint::getSessionId).toArray()));
+            ps.setArray(3, con.createArrayOf("uuid", checkpoints.stream().map(Checkpoint::getCategoryId).toArray()));
+            ps.setArray(4, con.createArrayOf("uuid", checkpoints.stream().map(Checkpoint::getHabitId).toArray()));
+            ps.setArray(5, con.createArrayOf("int4",
+                    checkpoints.stream().map(Checkpoint::getPlannedMinutes).toArray()));
+            ps.setArray(6, con.createArrayOf("timestamp",
+                    checkpoints.stream().map(c -> timestamp(c.getStartedAt())).toArray()));
+            ps.setArray(7, con.createArrayOf("int8", checkpoints.stream().map(Checkpoint::getFocusedMs).toArray()));
+            ps.setArray(8, con.createArrayOf("timestamp",
+                    checkpoints.stream().map(c -> timestamp(c.getResumedAt())).toArray()));
+            ps.setArray(9, con.createArrayOf("timestamp",
+                    checkpoints.stream().map(c -> timestamp(c.getLastHeartbeatAt())).toArray()));
+            return ps;
+        });
+    }
+
+    // 只删除同一会话的检查点，不会误删该用户随后开始的新会话
+    public int delete(UUID userId, UUID sessionId) {
+        return jdbcTemplate.update(DELETE_SQL, userId, sessionId);
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    public static class Checkpoint {
+        private final UUID userId;
+        private final UUID sessionId;
+        private final UUID categoryId;
+        private final UUID habitId;
+        private final Integer plannedMinutes;
+        private final LocalDateTime startedAt;
+        private final long focusedMs;
+        private final LocalDateTime resumedAt;
+        private final LocalDateTime lastHeartbeatAt;
+
+        public Checkpoint(UUID userId, UUID sessionId, UUID categoryId, UUID habitId, Integer plannedMinutes,
+                          LocalDateTime startedAt, long focusedMs, LocalDateTime resumedAt,
+                          LocalDateTime lastHeartbeatAt) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+            this.categoryId = categoryId;
+            this.habitId = habitId;
+            this.plannedMinutes = plannedMinutes;
+            this.startedAt = startedAt;
+            this.focusedMs = focusedMs;
+            this.resumedAt = resumedAt;
+            this.lastHeartbeatAt = lastHeartbeatAt;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public UUID getSessionId() {
+            return sessionId;
+        }
+
+        public UUID getCategoryId() {
+            return categoryId;
+        }
+
+        public UUID getHabitId() {
+            return habitId;
+        }
+
+        public Integer getPlannedMinutes() {
+            return plannedMinutes;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public long getFocusedMs() {
+            return focusedMs;
+        }
+
+        public LocalDateTime getResumedAt() {
+            return resumedAt;
+        }
+
+        public LocalDateTime getLastHeartbeatAt() {
+            return lastHeartbeatAt;
+        }
+    }
+}
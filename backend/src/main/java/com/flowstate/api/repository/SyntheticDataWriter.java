@@ -0,0 +1,133 @@
+package com.flowstate.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 合成数据的批量写入：每张表按列缓冲，整批通过 unnest 数组展开为一条多行 INSERT，
+ * 每批一次往返。所有插入都带 ON CONFLICT DO NOTHING，同一种子重复运行是幂等的。
+ */
+@Repository
+public class SyntheticDataWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SyntheticDataWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 为单个生成线程创建一组缓冲；缓冲不是线程安全的。
+     */
+    public Batch newBatch(int batchSize) {
+        return new Batch(batchSize);
+    }
+
+    /**
+     * 单张表的列式缓冲。
+     */
+    public class Table {
+        private final String sql;
+        private final String[] types;
+        private final List<List<Object>> columns = new ArrayList<>();
+        private long written;
+
+        private Table(String table, String columnList, String... types) {
+            StringBuilder params = new StringBuilder();
+            for (int i = 0; i < types.length; i++) {
+                params.append(i == 0 ? "?" : ", ?");
+            }
+            this.sql = "INSERT INTO " + table + " (" + columnList + ") SELECT * FROM unnest(" + params + ") " +
+                    "ON CONFLICT DO NOTHING";
+            this.types = types;
+            for (int i = 0; i < types.length; i++) {
+                columns.add(new ArrayList<>());
+            }
+        }
+
+        public void add(Object... values) {
+            for (int i = 0; i < values.length; i++) {
+                columns.get(i).add(values[i]);
+            }
+        }
+
+        public int size() {
+            return columns.get(0).size();
+        }
+
+        // 实际插入的行数，不含因冲突跳过的行
+        public long getWritten() {
+            return written;
+        }
+
+        private void flush() {
+            if (size() == 0) {
+                return;
+            }
+            written += jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                for (int i = 0; i < types.length; i++) {
+                    ps.setArray(i + 1, con.createArrayOf(types[i], columns.get(i).toArray()));
+                }
+                return ps;
+            });
+            columns.forEach(List::clear);
+        }
+    }
+
+    /**
+     * 一个生成线程的全部表缓冲。按外键依赖顺序整体刷新，子表写入前父表行一定已落库。
+     */
+    public class Batch {
+        private final int batchSize;
+
+        public final Table users = new Table("users",
+                "id, email, password_hash, name, bio, created_at, updated_at",
+                "uuid", "varchar", "varchar", "varchar", "varchar", "timestamp", "timestamp");
+        public final Table categories = new Table("categories",
+                "id, user_id, name, color, icon, created_at",
+                "uuid", "uuid", "varchar", "varchar", "varchar", "timestamp");
+        // 连续打卡计数器留空，由 HabitStreakService 的集合语句统一回填
+        public final Table habits = new Table("habits",
+                "id, user_id, name, category, goal_type, frequency, goal_value, unit, icon, color, is_active, created_at, updated_at",
+                "uuid", "uuid", "varchar", "varchar", "varchar", "varchar", "int4", "varchar", "varchar", "varchar",
+                "bool", "timestamp", "timestamp");
+        public final Table habitLogs = new Table("habit_logs",
+                "id, habit_id, date, current_value, is_completed, created_at",
+                "uuid", "uuid", "date", "int4", "bool", "timestamp");
+        public final Table completionBitmaps = new Table("habit_completion_bitmaps",
+                "id, habit_id, calendar_year, bits, updated_at",
+                "uuid", "uuid", "int4", "bytea", "timestamp");
+        public final Table timeRecords = new Table("time_records",
+                "id, user_id, habit_id, title, subtitle, start_time, duration, category, color, record_date, created_at",
+                "uuid", "uuid", "uuid", "varchar", "varchar", "int4", "int4", "varchar", "varchar", "date", "timestamp");
+        public final Table focusSessions = new Table("focus_sessions",
+                "id, user_id, category_id, habit_id, start_time, session_date, end_time, duration, status, created_at",
+                "uuid", "uuid", "uuid", "uuid", "timestamp", "date", "timestamp", "int4", "varchar", "timestamp");
+
+        private final List<Table> flushOrder = List.of(users, categories, habits, habitLogs, completionBitmaps,
+                timeRecords, focusSessions);
+
+        private Batch(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public void flushIfFull() {
+            if (flushOrder.stream().anyMatch(t -> t.size() >= batchSize)) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            flushOrder.forEach(Table::flush);
+        }
+
+        public long getWritten() {
+            return flushOrder.stream().mapToLong(Table::getWritten).sum();
+        }
+    }
+}
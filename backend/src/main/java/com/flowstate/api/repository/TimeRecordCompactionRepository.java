@@ -0,0 +1,31 @@
+package com.flowstate.api.repository;
+
+import com.flowstate.api.entity.TimeRecordCompaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TimeRecordCompactionRepository extends JpaRepository<TimeRecordCompaction, UUID> {
+    Optional<TimeRecordCompaction> findByIdAndUserId(UUID id, UUID userId);
+
+    List<TimeRecordCompaction> findByUserIdAndRecordDateOrderByCreatedAtDesc(UUID userId, LocalDate recordDate);
+
+    List<TimeRecordCompaction> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
+
+    // 用户撤销过的日期不再自动合并
+    boolean existsByUserIdAndRecordDateAndUndoneAtIsNotNull(UUID userId, LocalDate recordDate);
+
+    @Modifying
+    @Query("DELETE FROM TimeRecordCompaction c WHERE c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
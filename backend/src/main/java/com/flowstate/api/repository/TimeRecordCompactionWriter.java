@@ -0,0 +1,69 @@
+package com.flowstate.api.repository;
+
+import com.flowstate.api.dto.TimeRecordResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 撤销合并时按原 id 恢复被吸收的记录：整批通过 unnest 展开为一条 INSERT，版本取快照版本加一，
+ * 客户端仍持有的合并前版本因此失效，不会按旧版本把恢复后的记录覆盖回去。
+ * 专注归档生成的记录带回原 focus_session_id，归档任务重放时仍能据此去重。
+ * 同 id（或同一专注会话）的行已存在时跳过，重复撤销不会报错。
+ */
+@Repository
+public class TimeRecordCompactionWriter {
+
+    private static final String RESTORE_SQL =
+            "INSERT INTO time_records (id, user_id, habit_id, title, subtitle, start_time, duration, category, " +
+            "color, record_date, focus_session_id, created_at, updated_at, version) " +
+            "SELECT v.id, ?, v.habit_id, v.title, v.subtitle, v.start_time, v.duration, v.category, v.color, " +
+            "v.record_date, v.focus_session_id, v.created_at, now(), COALESCE(v.version, 0) + 1 " +
+            "FROM unnest(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "AS v(id, habit_id, title, subtitle, start_time, duration, category, color, record_date, created_at, " +
+            "version, focus_session_id) " +
+            "ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimeRecordCompactionWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return 实际恢复的行数
+     */
+    public int restore(UUID userId, List<TimeRecordResponse> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(RESTORE_SQL);
+            ps.setObject(1, userId);
+            ps.setArray(2, con.createArrayOf("uuid", records.stream().map(TimeRecordResponse::getId).toArray()));
+            ps.setArray(3, con.createArrayOf("uuid", records.stream().map(TimeRecordResponse::getHabitId).toArray()));
+            ps.setArray(4, con.createArrayOf("varchar", records.stream().map(TimeRecordResponse::getTitle).toArray()));
+            ps.setArray(5, con.createArrayOf("varchar",
+                    records.stream().map(TimeRecordResponse::getSubtitle).toArray()));
+            ps.setArray(6, con.createArrayOf("int4",
+                    records.stream().map(TimeRecordResponse::getStartTime).toArray()));
+            ps.setArray(7, con.createArrayOf("int4", records.stream().map(TimeRecordResponse::getDuration).toArray()));
+            ps.setArray(8, con.createArrayOf("varchar",
+                    records.stream().map(TimeRecordResponse::getCategory).toArray()));
+            ps.setArray(9, con.createArrayOf("varchar", records.stream().map(TimeRecordResponse::getColor).toArray()));
+            ps.setArray(10, con.createArrayOf("date",
+                    records.stream().map(r -> Date.valueOf(r.getRecordDate())).toArray()));
+            ps.setArray(11, con.createArrayOf("timestamp", records.stream()
+                    .map(r -> r.getCreatedAt() != null ? Timestamp.valueOf(r.getCreatedAt()) : null).toArray()));
+            ps.setArray(12, con.createArrayOf("int8", records.stream().map(TimeRecordResponse::getVersion).toArray()));
+            ps.setArray(13, con.createArrayOf("uuid",
+                    records.stream().map(TimeRecordResponse::getFocusSessionId).toArray()));
+            return ps;
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package com.flowstate.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 时间记录导入的批量写入：按列缓冲，整批通过 unnest 展开为一条多行 INSERT。
+ * 带 import_uid 的行重复导入时由 (user_id, import_uid) 唯一键跳过，RETURNING 只返回实际插入的行。
+ */
+@Repository
+public class TimeRecordImportWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO time_records (id, user_id, title, subtitle, start_time, duration, category, color, " +
+            "record_date, import_uid, created_at, updated_at) " +
+            "SELECT gen_random_uuid(), ?, v.title, v.subtitle, v.start_time, v.duration, v.category, v.color, " +
+            "v.record_date, v.import_uid, now(), now() " +
+            "FROM unnest(?, ?, ?, ?, ?, ?, ?, ?) " +
+            "AS v(title, subtitle, start_time, duration, category, color, record_date, import_uid) " +
+            "ON CONFLICT (user_id, import_uid) DO NOTHING " +
+            "RETURNING record_date, start_time, duration";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimeRecordImportWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 写入一批记录并清空缓冲，返回实际插入的行。
+     */
+    public List<Inserted> insert(UUID userId, Rows rows) {
+        if (rows.size() == 0) {
+            return List.of();
+        }
+        List<Inserted> inserted = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_SQL);
+            ps.setObject(1, userId);
+            ps.setArray(2, con.createArrayOf("varchar", rows.titles.toArray()));
+            ps.setArray(3, con.createArrayOf("varchar", rows.subtitles.toArray()));
+            ps.setArray(4, con.createArrayOf("int4", rows.startTimes.toArray()));
+            ps.setArray(5, con.createArrayOf("int4", rows.durations.toArray()));
+            ps.setArray(6, con.createArrayOf("varchar", rows.categories.toArray()));
+            ps.setArray(7, con.createArrayOf("varchar", rows.colors.toArray()));
+            ps.setArray(8, con.createArrayOf("date", rows.dates.toArray()));
+            ps.setArray(9, con.createArrayOf("varchar", rows.importUids.toArray()));
+            return ps;
+        }, (rs, rowNum) -> new Inserted(rs.getDate("record_date").toLocalDate(), rs.getInt("start_time"),
+                rs.getInt("duration")));
+        rows.clear();
+        return inserted;
+    }
+
+    /**
+     * 一批待写入记录的列式缓冲，不是线程安全的。
+     */
+    public static class Rows {
+        private final List<String> titles = new ArrayList<>();
+        private final List<String> subtitles = new ArrayList<>();
+        private final List<Integer> startTimes = new ArrayList<>();
+        private final List<Integer> durations = new ArrayList<>();
+        private final List<String> categories = new ArrayList<>();
+        private final List<String> colors = new ArrayList<>();
+        private final List<Date> dates = new ArrayList<>();
+        private final List<String> importUids = new ArrayList<>();
+
+        public void add(String title, String subtitle, int startTime, int duration, String category, String color,
+                        LocalDate recordDate, String importUid) {
+            titles.add(title);
+            subtitles.add(subtitle);
+            startTimes.add(startTime);
+            durations.add(duration);
+            categories.add(category);
+            colors.add(color);
+            dates.add(Date.valueOf(recordDate));
+            importUids.add(importUid);
+        }
+
+        public int size() {
+            return titles.size();
+        }
+
+        private void clear() {
+            titles.clear();
+            subtitles.clear();
+            startTimes.clear();
+            durations.clear();
+            categories.clear();
+            colors.clear();
+            dates.clear();
+            importUids.clear();
+        }
+    }
+
+    public static class Inserted {
+        private final LocalDate recordDate;
+        private final int startTime;
+        private final int duration;
+
+        public Inserted(LocalDate recordDate, int startTime, int duration) {
+            this.recordDate = recordDate;
+            this.startTime = startTime;
+            this.duration = duration;
+        }
+
+        public LocalDate getRecordDate() {
+            return recordDate;
+        }
+
+        public int getStartTime() {
+            return startTime;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+    }
+}
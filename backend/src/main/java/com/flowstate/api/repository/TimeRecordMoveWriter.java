@@ -0,0 +1,156 @@
+package com.flowstate.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 拖拽移动 / 调整时长的写入路径：整批通过 unnest 展开为一条 UPDATE，
+ * 只更新 (id, user_id, version) 全部匹配且移动后仍落在当天之内的行，其余行原样保留、不出现在结果中。
+ * RETURNING 同时带回修改前的日期与时间段，调用方据此失效旧位置的派生缓存。
+ */
+@Repository
+public class TimeRecordMoveWriter {
+
+    private static final String MOVE_SQL =
+            "WITH v AS (SELECT * FROM unnest(?, ?, ?, ?, ?) " +
+            "AS v(id, version, record_date, start_time, duration)), " +
+            "old AS (SELECT t.id, t.record_date, t.start_time, t.duration FROM time_records t " +
+            "JOIN v ON v.id = t.id WHERE t.user_id = ? AND t.version = v.version " +
+            "AND COALESCE(v.start_time, t.start_time) + COALESCE(v.duration, t.duration) <= 1440 " +
+            "FOR UPDATE OF t) " +
+            "UPDATE time_records t SET record_date = COALESCE(v.record_date, t.record_date), " +
+            "start_time = COALESCE(v.start_time, t.start_time), duration = COALESCE(v.duration, t.duration), " +
+            "version = t.version + 1, updated_at = now() " +
+            "FROM v JOIN old ON old.id = v.id WHERE t.id = v.id " +
+            "RETURNING t.id, t.version, t.record_date, t.start_time, t.duration, " +
+            "old.record_date AS old_record_date, old.start_time AS old_start_time, old.duration AS old_duration";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimeRecordMoveWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 条件更新一批记录，返回实际更新的行。调用方需保证同一 id 在列表中只出现一次。
+     */
+    public List<Moved> move(UUID userId, List<Move> moves) {
+        if (moves.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(MOVE_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", moves.stream().map(Move::getId).toArray()));
+            ps.setArray(2, con.createArrayOf("int8", moves.stream().map(Move::getVersion).toArray()));
+            ps.setArray(3, con.createArrayOf("date", moves.stream()
+                    .map(m -> m.getRecordDate() != null ? Date.valueOf(m.getRecordDate()) : null).toArray()));
+            ps.setArray(4, con.createArrayOf("int4", moves.stream().map(Move::getStartTime).toArray()));
+            ps.setArray(5, con.createArrayOf("int4", moves.stream().map(Move::getDuration).toArray()));
+            ps.setObject(6, userId);
+            return ps;
+        }, (rs, rowNum) -> new Moved(rs.getObject("id", UUID.class), rs.getLong("version"),
+                rs.getDate("record_date").toLocalDate(), rs.getInt("start_time"), rs.getInt("duration"),
+                rs.getDate("old_record_date").toLocalDate(), rs.getInt("old_start_time"),
+                rs.getInt("old_duration")));
+    }
+
+    /**
+     * 一条移动请求；recordDate / startTime / duration 为空表示保持不变。
+     */
+    public static class Move {
+        private final UUID id;
+        private final long version;
+        private final LocalDate recordDate;
+        private final Integer startTime;
+        private final Integer duration;
+
+        public Move(UUID id, long version, LocalDate recordDate, Integer startTime, Integer duration) {
+            this.id = id;
+            this.version = version;
+            this.recordDate = recordDate;
+            this.startTime = startTime;
+            this.duration = duration;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public LocalDate getRecordDate() {
+            return recordDate;
+        }
+
+        public Integer getStartTime() {
+            return startTime;
+        }
+
+        public Integer getDuration() {
+            return duration;
+        }
+    }
+
+    public static class Moved {
+        private final UUID id;
+        private final long version;
+        private final LocalDate recordDate;
+        private final int startTime;
+        private final int duration;
+        private final LocalDate oldRecordDate;
+        private final int oldStartTime;
+        private final int oldDuration;
+
+        public Moved(UUID id, long version, LocalDate recordDate, int startTime, int duration,
+                     LocalDate oldRecordDate, int oldStartTime, int oldDuration) {
+            this.id = id;
+            this.version = version;
+            this.recordDate = recordDate;
+            this.startTime = startTime;
+            this.duration = duration;
+            this.oldRecordDate = oldRecordDate;
+            this.oldStartTime = oldStartTime;
+            this.oldDuration = oldDuration;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public LocalDate getRecordDate() {
+            return recordDate;
+        }
+
+        public int getStartTime() {
+            return startTime;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+
+        public LocalDate getOldRecordDate() {
+            return oldRecordDate;
+        }
+
+        public int getOldStartTime() {
+            return oldStartTime;
+        }
+
+        public int getOldDuration() {
+            return oldDuration;
+        }
+    }
+}
@@ -7,9 +7,16 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import com.flowstate.api.dto.TimeRecordResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 @Repository
@@ -19,6 +26,84 @@ public interface TimeRecordRepository extends JpaRepository<TimeRecord, UUID> {
     List<TimeRecord> findByUserId(UUID userId);
 
     List<TimeRecord> findByUserIdAndRecordDate(UUID userId, LocalDate recordDate);
+
+    // 键集分页首页：按 (record_date, start_time, id) 倒序，走 idx_time_records_user_date_start
+    @Query(value = "SELECT * FROM time_records WHERE user_id = :userId " +
+            "ORDER BY record_date DESC, start_time DESC, id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<TimeRecord> findFirstPage(@Param("userId") UUID userId, @Param("limit") int limit);
+
+    // 键集分页后续页：行值比较定位到游标之后，不随页码增长而变慢
+    @Query(value = "SELECT * FROM time_records WHERE user_id = :userId " +
+            "AND (record_date, start_time, id) < (:recordDate, :startTime, :id) " +
+            "ORDER BY record_date DESC, start_time DESC, id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<TimeRecord> findPageAfter(@Param("userId") UUID userId,
+                                   @Param("recordDate") LocalDate recordDate,
+                                   @Param("startTime") int startTime,
+                                   @Param("id") UUID id,
+                                   @Param("limit") int limit);
+
+    // 日历区间：一次范围扫描 (user_id, record_date, start_time) 索引取出整周 / 整月的记录
+    @Query("SELECT new com.flowstate.api.dto.TimeRecordResponse(t.id, t.title, t.subtitle, t.startTime, t.duration, " +
+           "t.category, t.color, h.id, t.recordDate, t.createdAt, t.version) " +
+           "FROM TimeRecord t LEFT JOIN t.habit h " +
+           "WHERE t.user.id = :userId AND t.recordDate BETWEEN :start AND :end " +
+           "ORDER BY t.recordDate, t.startTime, t.id")
+    List<TimeRecordResponse> findRange(@Param("userId") UUID userId,
+                                       @Param("start") LocalDate start,
+                                       @Param("end") LocalDate end);
+
+    // 拖拽条件更新未命中时读取服务端当前状态
+    @Query("SELECT new com.flowstate.api.dto.TimeRecordResponse(t.id, t.title, t.subtitle, t.startTime, t.duration, " +
+           "t.category, t.color, h.id, t.recordDate, t.createdAt, t.version) " +
+           "FROM TimeRecord t LEFT JOIN t.habit h WHERE t.user.id = :userId AND t.id IN :ids")
+    List<TimeRecordResponse> findResponses(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids);
+
+    // 占用位图：只取构建位图所需的三列
+    @Query("SELECT t.recordDate AS recordDate, t.startTime AS startTime, t.duration AS duration " +
+           "FROM TimeRecord t WHERE t.user.id = :userId AND t.recordDate BETWEEN :start AND :end")
+    List<OccupancyProjection> findOccupancy(@Param("userId") UUID userId,
+                                            @Param("start") LocalDate start,
+                                            @Param("end") LocalDate end);
+
+    interface OccupancyProjection {
+        LocalDate getRecordDate();
+        Integer getStartTime();
+        Integer getDuration();
+    }
+
+    // 流式导出：DTO 投影不进入持久化上下文，配合 fetch size 以游标方式逐批读取，需在事务内消费
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.flowstate.api.dto.TimeRecordResponse(t.id, t.title, t.subtitle, t.startTime, t.duration, " +
+           "t.category, t.color, h.id, t.recordDate, t.createdAt, t.version) " +
+           "FROM TimeRecord t LEFT JOIN t.habit h WHERE t.user.id = :userId " +
+           "ORDER BY t.recordDate DESC, t.startTime DESC, t.id DESC")
+    Stream<TimeRecordResponse> streamByUserId(@Param("userId") UUID userId);
+
+    // 日历订阅源：from 之后的记录按时间正序流式读取
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.flowstate.api.dto.TimeRecordResponse(t.id, t.title, t.subtitle, t.startTime, t.duration, " +
+           "t.category, t.color, h.id, t.recordDate, t.createdAt, t.version) " +
+           "FROM TimeRecord t LEFT JOIN t.habit h WHERE t.user.id = :userId AND t.recordDate >= :from " +
+           "ORDER BY t.recordDate, t.startTime, t.id")
+    Stream<TimeRecordResponse> streamFeed(@Param("userId") UUID userId, @Param("from") LocalDate from);
+
+    // 订阅源版本：记录数与最后修改时间，任一变化即 ETag 变化（删除会改变记录数）
+    @Query("SELECT COUNT(t) AS recordCount, MAX(COALESCE(t.updatedAt, t.createdAt)) AS lastModified " +
+           "FROM TimeRecord t WHERE t.user.id = :userId AND t.recordDate >= :from")
+    FeedVersionProjection findFeedVersion(@Param("userId") UUID userId, @Param("from") LocalDate from);
+
+    interface FeedVersionProjection {
+        Long getRecordCount();
+        LocalDateTime getLastModified();
+    }
     public interface CategoryTimeProjection {
         String getCategory();
         Long getTotalMinutes();
@@ -0,0 +1,28 @@
+package com.flowstate.api.repository;
+
+import com.flowstate.api.entity.TimeRecordSeries;
+import com.flowstate.api.entity.TimeRecordSeriesException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TimeRecordSeriesExceptionRepository extends JpaRepository<TimeRecordSeriesException, UUID> {
+    Optional<TimeRecordSeriesException> findBySeriesAndOccurrenceDate(TimeRecordSeries series, LocalDate occurrenceDate);
+
+    // 展开时一次取出区间内所有系列的例外
+    List<TimeRecordSeriesException> findBySeriesInAndOccurrenceDateBetween(Collection<TimeRecordSeries> series,
+                                                                          LocalDate start, LocalDate end);
+
+    @Modifying
+    @Query("DELETE FROM TimeRecordSeriesException e WHERE e.series = :series")
+    int deleteBySeries(@Param("series") TimeRecordSeries series);
+}
@@ -0,0 +1,26 @@
+package com.flowstate.api.repository;
+
+import com.flowstate.api.entity.TimeRecordSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TimeRecordSeriesRepository extends JpaRepository<TimeRecordSeries, UUID> {
+    List<TimeRecordSeries> findByUserIdOrderByStartDateAscStartTimeAsc(UUID userId);
+
+    Optional<TimeRecordSeries> findByIdAndUserId(UUID id, UUID userId);
+
+    // 展开前的筛选：有效期与 [start, end] 相交的系列
+    @Query("SELECT s FROM TimeRecordSeries s WHERE s.user.id = :userId AND s.startDate <= :end " +
+           "AND (s.endDate IS NULL OR s.endDate >= :start)")
+    List<TimeRecordSeries> findOverlapping(@Param("userId") UUID userId,
+                                           @Param("start") LocalDate start,
+                                           @Param("end") LocalDate end);
+}
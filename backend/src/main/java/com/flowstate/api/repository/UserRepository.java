@@ -2,6 +2,8 @@ package com.flowstate.api.repository;
 
 import com.flowstate.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +12,8 @@ import java.util.UUID;
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
+
+    // 日历订阅：只取用户 ID，不加载实体
+    @Query("SELECT u.id FROM User u WHERE u.calendarFeedToken = :token")
+    Optional<UUID> findIdByCalendarFeedToken(@Param("token") String token);
 }
@@ -0,0 +1,20 @@
+package com.flowstate.api.service;
+
+/**
+ * 批量请求的条目数超过单次上限，整批拒绝，以 400 返回，客户端应拆分后重试。
+ */
+public class BatchTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int limit;
+
+    public BatchTooLargeException(String message, int limit) {
+        super(message);
+        this.limit = limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,216 @@
+package com.flowstate.api.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * CSV (RFC 4180) 的逐行读取。首行为表头，列名不区分大小写：
+ * title、start 必填，end 与 duration（分钟）二选一，subtitle、category、color、uid 可选。
+ * 时间为本地时间，格式 yyyy-MM-dd HH:mm[:ss]（也接受 ISO 的 T 分隔）。
+ * 没有 uid 的行以开始时间、时长与标题派生稳定的 uid，同一文件重复导入时同样跳过。
+ * 单条记录最多 MAX_RECORD_CHARS 个字符、MAX_RECORD_LINES 个物理行，超出时（如引号未闭合）
+ * 该记录报错，从下一个物理行继续读取，内存占用与文件大小无关。
+ */
+final class CsvEventReader implements ImportedEventReader {
+
+    static final int MAX_RECORD_CHARS = 64 * 1024;
+    static final int MAX_RECORD_LINES = 100;
+
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+    private int lineNumber;
+    private int recordLine;
+    private String recordError; // 当前记录超出上限时的错误
+
+    CsvEventReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportedEvent next() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        List<String> fields;
+        while ((fields = readRecord()) != null) {
+            if (recordError != null) {
+                return ImportedEvent.failed(recordLine, recordError);
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            return toEvent(fields);
+        }
+        return null;
+    }
+
+    private ImportedEvent toEvent(List<String> fields) {
+        ImportedEvent event = new ImportedEvent(recordLine);
+        event.title = field(fields, "title");
+        event.subtitle = field(fields, "subtitle");
+        event.category = field(fields, "category");
+        event.color = field(fields, "color");
+        event.uid = field(fields, "uid");
+
+        String start = field(fields, "start");
+        String end = field(fields, "end");
+        String duration = field(fields, "duration");
+        if (start == null) {
+            event.error = "缺少 start";
+            return event;
+        }
+        try {
+            event.start = parseTime(start);
+            if (end != null) {
+                event.end = parseTime(end);
+            } else if (duration != null) {
+                event.end = event.start.plusMinutes(Long.parseLong(duration));
+            }
+        } catch (DateTimeException | NumberFormatException e) {
+            event.error = "无法解析时间: " + start + (end != null ? " - " + end : duration != null ? " +" + duration : "");
+            return event;
+        }
+        if (event.uid == null && event.end != null) {
+            event.uid = derivedUid(event);
+        }
+        return event;
+    }
+
+    // 开始时间（含日期）、时长与标题相同的行视为同一事件；按分钟取整，与拆分写入时的精度一致
+    private static String derivedUid(ImportedEvent event) {
+        LocalDateTime start = event.start.withSecond(0).withNano(0);
+        long minutes = Duration.between(start, event.end.withSecond(0).withNano(0)).toMinutes();
+        String source = start + "|" + minutes + "|" + (event.title != null ? event.title : "");
+        return "csv-" + UUID.nameUUIDFromBytes(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (recordError != null) {
+            throw new RuntimeException("CSV 表头" + recordError);
+        }
+        columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        if (!columns.containsKey("title") || !columns.containsKey("start")
+                || !(columns.containsKey("end") || columns.containsKey("duration"))) {
+            throw new RuntimeException("CSV 表头必须包含 title、start，以及 end 或 duration");
+        }
+    }
+
+    private String field(List<String> fields, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    // 一条记录：带引号的字段可以包含逗号、双写的引号与换行；超出上限时设置 recordError 并停止读取该记录
+    private List<String> readRecord() throws IOException {
+        recordError = null;
+        String line = readPhysical();
+        if (line == null) {
+            return null;
+        }
+        recordLine = lineNumber;
+        int chars = line.length();
+        int lines = 1;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted || recordError != null) {
+                break;
+            }
+            if (lines >= MAX_RECORD_LINES) {
+                recordError = "引号未闭合或字段跨越超过 " + MAX_RECORD_LINES + " 行，已跳过该记录";
+                break;
+            }
+            line = readPhysical();
+            if (line == null) {
+                break;
+            }
+            lines++;
+            chars += line.length() + 1;
+            if (chars > MAX_RECORD_CHARS) {
+                recordError = "记录超过 " + MAX_RECORD_CHARS + " 个字符（引号可能未闭合），已跳过该记录";
+                break;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // 与 readLine 相同按 \n、\r 或 \r\n 分行，但只保留前 MAX_RECORD_CHARS 个字符，超长的行丢弃其余部分并报错
+    private String readPhysical() throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean truncated = false;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            }
+            if (line.length() < MAX_RECORD_CHARS) {
+                line.append((char) c);
+            } else {
+                truncated = true;
+            }
+        }
+        if (c == -1 && line.length() == 0) {
+            return null;
+        }
+        lineNumber++;
+        if (truncated) {
+            recordError = "行超过 " + MAX_RECORD_CHARS + " 个字符，已跳过该记录";
+        }
+        if (lineNumber == 1 && line.length() > 0 && line.charAt(0) == '\uFEFF') {
+            line.deleteCharAt(0);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.repository.FocusArchiveWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 定时把专注归档发件箱转换为时间记录：每轮按批处理，直到发件箱排空或达到单轮上限。
+ * 提交会话的请求只写会话与一行发件箱，时间轴上的记录最多延迟一个 interval-ms 出现。
+ */
+@Component
+public class FocusArchiveRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(FocusArchiveRelay.class);
+
+    private final FocusArchiveService archiveService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+    private final Timer lagTimer;
+    private final Counter relayedSessions;
+
+    public FocusArchiveRelay(FocusArchiveService archiveService, MeterRegistry meterRegistry,
+            @Value("${app.focus.archive.batch-size:200}") int batchSize,
+            @Value("${app.focus.archive.max-batches-per-run:50}") int maxBatchesPerRun) {
+        this.archiveService = archiveService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+
+        Gauge.builder("focus.archive.pending", pending, AtomicLong::get)
+                .description("Completed focus sessions waiting to be archived to the timeline")
+                .register(meterRegistry);
+        Gauge.builder("focus.archive.oldest_pending_seconds", oldestPendingSeconds, AtomicLong::get)
+                .description("Age of the oldest focus session waiting to be archived")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("focus.archive.lag")
+                .description("Delay between session submit and its timeline archive")
+                .register(meterRegistry);
+        this.relayedSessions = Counter.builder("focus.archive.relayed_sessions")
+                .description("Outbox entries processed by the archive relay")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.focus.archive.interval-ms:1000}")
+    public void run() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                List<FocusArchiveWriter.Entry> entries = archiveService.archiveBatch(batchSize);
+                LocalDateTime now = LocalDateTime.now();
+                for (FocusArchiveWriter.Entry entry : entries) {
+                    lagTimer.record(Duration.between(entry.getCreatedAt(), now));
+                }
+                relayedSessions.increment(entries.size());
+                if (entries.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            // 本批已回滚，条目留在发件箱，下一轮重试
+            logger.error("Focus archive relay failed: {}", e.getMessage());
+        }
+        refreshBacklog();
+    }
+
+    private void refreshBacklog() {
+        try {
+            FocusArchiveWriter.Backlog backlog = archiveService.backlog();
+            pending.set(backlog.getPending());
+            oldestPendingSeconds.set(backlog.getOldest() != null
+                    ? Math.max(0, Duration.between(backlog.getOldest(), LocalDateTime.now()).getSeconds()) : 0);
+        } catch (RuntimeException e) {
+            logger.warn("Reading focus archive backlog failed: {}", e.getMessage());
+        }
+    }
+}
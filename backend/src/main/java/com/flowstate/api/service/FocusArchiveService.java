@@ -0,0 +1,52 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.repository.FocusArchiveWriter;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 专注会话归档到时间轴：认领、生成时间记录与删除发件箱条目在同一事务内完成，
+ * 失败时整批回滚，条目留在发件箱等待下一轮。
+ */
+@Service
+public class FocusArchiveService {
+
+    private final FocusArchiveWriter archiveWriter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public FocusArchiveService(FocusArchiveWriter archiveWriter, ApplicationEventPublisher eventPublisher) {
+        this.archiveWriter = archiveWriter;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 归档最早的一批会话。
+     *
+     * @return 本批认领并处理完的发件箱条目
+     */
+    @Transactional
+    public List<FocusArchiveWriter.Entry> archiveBatch(int limit) {
+        List<FocusArchiveWriter.Entry> entries = archiveWriter.claim(limit);
+        if (entries.isEmpty()) {
+            return entries;
+        }
+        List<UUID> sessionIds = entries.stream()
+                .map(FocusArchiveWriter.Entry::getFocusSessionId)
+                .collect(Collectors.toList());
+        for (FocusArchiveWriter.Archived archived : archiveWriter.archive(sessionIds)) {
+            eventPublisher.publishEvent(new TimeRecordChangedEvent(TimeRecordChangedEvent.Type.ADDED,
+                    archived.getUserId(), archived.getRecordDate(), archived.getStartTime(), archived.getDuration()));
+        }
+        archiveWriter.delete(sessionIds);
+        return entries;
+    }
+
+    public FocusArchiveWriter.Backlog backlog() {
+        return archiveWriter.backlog();
+    }
+}
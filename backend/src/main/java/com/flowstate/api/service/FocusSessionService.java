@@ -1,44 +1,64 @@
 package com.flowstate.api.service;
 
+import com.flowstate.api.dto.FocusSessionPageResponse;
 import com.flowstate.api.dto.FocusSessionRequest;
 import com.flowstate.api.dto.FocusSessionResponse;
 import com.flowstate.api.dto.FocusTodayStatsDTO;
 import com.flowstate.api.entity.Category;
 import com.flowstate.api.entity.FocusSession;
 import com.flowstate.api.entity.Habit;
-import com.flowstate.api.entity.TimeRecord;
 import com.flowstate.api.entity.User;
 import com.flowstate.api.repository.CategoryRepository;
+import com.flowstate.api.repository.FocusArchiveWriter;
 import com.flowstate.api.repository.FocusSessionRepository;
 import com.flowstate.api.repository.HabitRepository;
-import com.flowstate.api.repository.TimeRecordRepository;
+import com.flowstate.api.repository.LiveFocusCheckpointWriter;
 import com.flowstate.api.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 
 @Service
 public class FocusSessionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FocusSessionService.class);
+
     private final FocusSessionRepository focusSessionRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final HabitRepository habitRepository;
-    private final TimeRecordRepository timeRecordRepository;
+    private final FocusArchiveWriter archiveWriter;
+    private final LiveFocusCheckpointWriter checkpointWriter;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     public FocusSessionService(FocusSessionRepository focusSessionRepository,
             UserRepository userRepository,
             CategoryRepository categoryRepository,
             HabitRepository habitRepository,
-            TimeRecordRepository timeRecordRepository) {
+            FocusArchiveWriter archiveWriter,
+            LiveFocusCheckpointWriter checkpointWriter,
+            @Value("${app.focus.history.default-page-size:50}") int defaultPageSize,
+            @Value("${app.focus.history.max-page-size:200}") int maxPageSize) {
         this.focusSessionRepository = focusSessionRepository;
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
         this.habitRepository = habitRepository;
-        this.timeRecordRepository = timeRecordRepository;
+        this.archiveWriter = archiveWriter;
+        this.checkpointWriter = checkpointWriter;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @Transactional
@@ -68,14 +88,25 @@ public class FocusSessionService {
 
         FocusSession savedSession = focusSessionRepository.save(session);
 
-        // 如果专注完成且时长至少为 1 分钟，自动归档到时间轴 (TimeRecord)
+        // 如果专注完成且时长至少为 1 分钟，自动归档到时间轴 (TimeRecord)：同一事务内登记到发件箱，由 FocusArchiveRelay 异步生成
         if ("COMPLETED".equals(request.getStatus()) && request.getDuration() != null && request.getDuration() > 0) {
-            syncToTimeRecord(savedSession);
+            archiveWriter.enqueue(savedSession.getId());
         }
 
         return mapToResponse(savedSession);
     }
 
+    /**
+     * 结束一次实时专注：写入会话（完成时登记时间轴归档）并删除其检查点，二者同一事务提交，
+     * 重启恢复时不会把已归档的会话再归档一次。
+     */
+    @Transactional
+    public FocusSessionResponse completeLiveSession(UUID userId, UUID liveSessionId, FocusSessionRequest request) {
+        FocusSessionResponse response = createSession(userId, request);
+        checkpointWriter.delete(userId, liveSessionId);
+        return response;
+    }
+
     @Transactional(readOnly = true)
     public List<FocusSessionResponse> getUserSessions(UUID userId) {
         User user = userRepository.findById(userId)
@@ -85,6 +116,62 @@ public class FocusSessionService {
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    // 启动迁移：为 session_date 列上线前的存量会话回填日期
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillSessionDates() {
+        int updated = focusSessionRepository.backfillSessionDates();
+        if (updated > 0) {
+            logger.info("Backfilled session_date for {} focus sessions", updated);
+        }
+    }
+
+    /**
+     * 键集分页读取专注历史，按 (startTime, id) 倒序；每页一条 DTO 投影查询，不加载实体。
+     *
+     * @param cursor 上一页返回的 nextCursor，为空时读取第一页
+     * @param size   每页条数，超过上限时按上限处理
+     */
+    @Transactional(readOnly = true)
+    public FocusSessionPageResponse getSessionPage(UUID userId, String cursor, Integer size) {
+        int limit = size != null ? Math.max(1, Math.min(size, maxPageSize)) : Math.min(defaultPageSize, maxPageSize);
+        // 多取一行判断是否还有下一页
+        PageRequest page = PageRequest.of(0, limit + 1);
+
+        List<FocusSessionResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = focusSessionRepository.findHistoryFirstPage(userId, page);
+        } else {
+            String[] key = decodeCursor(cursor);
+            rows = focusSessionRepository.findHistoryAfter(userId, LocalDateTime.parse(key[0]),
+                    UUID.fromString(key[1]), page);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<FocusSessionResponse> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
+        return new FocusSessionPageResponse(items, nextCursor);
+    }
+
+    private static String encodeCursor(FocusSessionResponse session) {
+        String key = session.getStartTime() + "|" + session.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(key[0]);
+            UUID.fromString(key[1]);
+            return key;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
     @Transactional(readOnly = true)
     public FocusTodayStatsDTO getTodayStats(UUID userId) {
         User user = userRepository.findById(userId)
@@ -124,26 +211,4 @@ public class FocusSessionService {
         response.setCreatedAt(session.getCreatedAt());
         return response;
     }
-
-    private void syncToTimeRecord(FocusSession session) {
-        // 计算在当日时间轴中的开始分钟数 (从凌晨 00:00 开始)
-        int startMinutes = session.getStartTime().getHour() * 60 + session.getStartTime().getMinute();
-
-        String title = session.getHabit() != null ? "专注: " + session.getHabit().getName() : "深度专注";
-        String categoryName = session.getCategory() != null ? session.getCategory().getName() : "工作";
-        String color = session.getCategory() != null ? session.getCategory().getColor() : "indigo";
-
-        TimeRecord record = TimeRecord.builder()
-                .user(session.getUser())
-                .habit(session.getHabit())
-                .title(title)
-                .subtitle("通过专注模式自动记录")
-                .startTime(startMinutes)
-                .duration(session.getDuration())
-                .category(categoryName)
-                .color(color)
-                .build();
-
-        timeRecordRepository.save(record);
-    }
 }
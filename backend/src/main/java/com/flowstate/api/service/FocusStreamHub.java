@@ -0,0 +1,281 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.FocusStreamEvent;
+import com.flowstate.api.dto.LiveFocusResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 实时专注事件的 SSE 扇出：同一用户的所有设备订阅同一条流，开始、暂停、继续、结束时推送会话快照，
+ * 计时中的会话每个 tick 推送一次剩余时间，其余连接只发注释行保活。
+ * <p>
+ * 连接由 Servlet 异步请求承载，空闲连接不占线程；每个连接一个有界队列，由少量发送线程排空。
+ * 慢连接的队列满时丢弃最旧的消息：每条事件都是完整快照，后一条覆盖前一条，丢弃不影响客户端最终状态。
+ * 单次发送超过 send-timeout-ms 仍未返回的连接由巡检任务以错误关闭，发送线程不会被一个卡住的客户端长期占用。
+ * 与 LiveFocusRegistry 一样只覆盖单个实例内的连接。
+ */
+@Component
+public class FocusStreamHub {
+
+    private static final Object PING = new Object();
+
+    private final LiveFocusRegistry liveFocusRegistry;
+    private final long timeoutMs;
+    private final int queueCapacity;
+    private final int maxConnectionsPerUser;
+    private final long sendTimeoutNanos;
+
+    private final Map<UUID, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService sender;
+
+    private final Counter droppedMessages;
+    private final Counter stalledSends;
+
+    public FocusStreamHub(LiveFocusRegistry liveFocusRegistry, MeterRegistry meterRegistry,
+            @Value("${app.focus.stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${app.focus.stream.queue-capacity:16}") int queueCapacity,
+            @Value("${app.focus.stream.max-connections-per-user:8}") int maxConnectionsPerUser,
+            @Value("${app.focus.stream.sender-threads:4}") int senderThreads,
+            @Value("${app.focus.stream.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.liveFocusRegistry = liveFocusRegistry;
+        this.timeoutMs = timeoutMs;
+        this.queueCapacity = queueCapacity;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "focus-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("focus.stream.connections", connections, AtomicInteger::get)
+                .description("Open focus event streams")
+                .register(meterRegistry);
+        this.droppedMessages = Counter.builder("focus.stream.dropped_messages")
+                .description("Stream messages dropped because a subscriber queue was full")
+                .register(meterRegistry);
+        this.stalledSends = Counter.builder("focus.stream.stalled_sends")
+                .description("Streams closed because a single send exceeded the send timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 打开一条事件流，首条消息为当前状态；超出每用户连接上限时关闭该用户最早的连接。
+     */
+    public SseEmitter subscribe(UUID userId) {
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        List<Subscriber> evicted = new ArrayList<>();
+        subscribers.compute(userId, (k, list) -> {
+            List<Subscriber> updated = list != null ? list : new ArrayList<>();
+            updated.add(subscriber);
+            while (updated.size() > maxConnectionsPerUser) {
+                evicted.add(updated.remove(0));
+            }
+            return updated;
+        });
+        connections.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(subscriber));
+        for (Subscriber old : evicted) {
+            close(old);
+        }
+
+        Optional<LiveFocusResponse> current = liveFocusRegistry.current(userId);
+        enqueue(subscriber, new FocusStreamEvent("SNAPSHOT", current.orElse(null)));
+        return emitter;
+    }
+
+    @EventListener
+    public void onLiveFocusChanged(LiveFocusChangedEvent event) {
+        publish(event.getUserId(), new FocusStreamEvent(event.getType().name(), event.getSession()));
+    }
+
+    // 计时中的会话推送剩余时间，其余连接发送保活注释，及时发现已断开的连接
+    @Scheduled(fixedDelayString = "${app.focus.stream.tick-interval-ms:15000}")
+    public void tick() {
+        for (UUID userId : subscribers.keySet()) {
+            Optional<LiveFocusResponse> current = liveFocusRegistry.current(userId);
+            if (current.isPresent() && !current.get().getPaused()) {
+                publish(userId, new FocusStreamEvent("TICK", current.get()));
+            } else {
+                publish(userId, PING);
+            }
+        }
+    }
+
+    /**
+     * 以错误关闭发送卡住的连接：容器随之关闭底层连接，阻塞中的写入失败返回，发送线程回到线程池。
+     */
+    @Scheduled(fixedDelayString = "${app.focus.stream.send-check-interval-ms:1000}")
+    public void closeStalledSends() {
+        long now = System.nanoTime();
+        for (UUID userId : subscribers.keySet()) {
+            for (Subscriber subscriber : subscribersOf(userId)) {
+                long since = subscriber.sendingSince;
+                if (since != 0 && now - since > sendTimeoutNanos) {
+                    stalledSends.increment();
+                    remove(subscriber);
+                    try {
+                        subscriber.emitter.completeWithError(new IOException("Focus stream send timed out"));
+                    } catch (IllegalStateException e) {
+                        // 连接已结束
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (List<Subscriber> list : subscribers.values()) {
+            for (Subscriber subscriber : new ArrayList<>(list)) {
+                close(subscriber);
+            }
+        }
+    }
+
+    // 测试中替换为可控的实现
+    SseEmitter newEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    private void publish(UUID userId, Object message) {
+        for (Subscriber subscriber : subscribersOf(userId)) {
+            enqueue(subscriber, message);
+        }
+    }
+
+    private List<Subscriber> subscribersOf(UUID userId) {
+        List<Subscriber> targets = new ArrayList<>();
+        subscribers.computeIfPresent(userId, (k, list) -> {
+            targets.addAll(list);
+            return list;
+        });
+        return targets;
+    }
+
+    private void enqueue(Subscriber subscriber, Object message) {
+        synchronized (subscriber) {
+            if (subscriber.removed.get()) {
+                return;
+            }
+            if (subscriber.queue.size() >= queueCapacity) {
+                subscriber.queue.pollFirst();
+                droppedMessages.increment();
+            }
+            subscriber.queue.addLast(message);
+            if (subscriber.draining) {
+                return;
+            }
+            subscriber.draining = true;
+        }
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // 停机中，不再发送
+            synchronized (subscriber) {
+                subscriber.draining = false;
+            }
+        }
+    }
+
+    // 同一连接同时只有一个线程在发送，保证消息顺序；连接已被关闭时丢弃剩余消息
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            Object message;
+            synchronized (subscriber) {
+                message = subscriber.removed.get() ? null : subscriber.queue.pollFirst();
+                if (message == null) {
+                    subscriber.queue.clear();
+                    subscriber.draining = false;
+                    return;
+                }
+            }
+            subscriber.sendingSince = System.nanoTime();
+            try {
+                if (message == PING) {
+                    subscriber.emitter.send(SseEmitter.event().comment("ping"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event().name("focus").data(message, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或连接已结束，由容器回调 onError / onCompletion 收尾
+                remove(subscriber);
+                synchronized (subscriber) {
+                    subscriber.queue.clear();
+                    subscriber.draining = false;
+                }
+                return;
+            } finally {
+                subscriber.sendingSince = 0;
+            }
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // 连接已结束
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.userId, (k, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    // queue 与 draining 只在持有该对象的锁时读写
+    private static final class Subscriber {
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private boolean draining;
+        private volatile long sendingSince; // 在途发送开始时的 nanoTime，0 表示没有在途发送
+
+        private Subscriber(UUID userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+}
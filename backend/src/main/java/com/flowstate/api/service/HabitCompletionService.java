@@ -0,0 +1,172 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.HabitHeatmapDTO;
+import com.flowstate.api.repository.HabitCompletionBitmapStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 习惯完成历史的位图视图：每个习惯每年一个 366 位的位图，持久化在 habit_completion_bitmaps，
+ * 读取经过进程内缓存。近七天状态与年度热力图都只做位运算，不再读取 HabitLog 实体；
+ * 连续打卡计数器不经过位图，由 HabitStreakWriter 在 SQL 中按 habit_logs 维护。
+ */
+@Service
+public class HabitCompletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HabitCompletionService.class);
+
+    private final HabitCompletionBitmapStore store;
+    private final Cache<String, BitSet> cache;
+
+    public HabitCompletionService(HabitCompletionBitmapStore store, MeterRegistry meterRegistry,
+            @Value("${app.habits.completion-cache.max-size:20000}") long maxSize) {
+        this.store = store;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofHours(1))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "habit.completion_bitmaps");
+    }
+
+    /**
+     * 多个习惯截至 today 的近七天完成状态（下标 0 为 6 天前，6 为今天），跨年时同时读取两年的位图。
+     */
+    public Map<UUID, List<Boolean>> lastSevenDays(Collection<UUID> habitIds, LocalDate today) {
+        LocalDate start = today.minusDays(6);
+        Map<String, BitSet> bitmaps = years(habitIds, Set.of(start.getYear(), today.getYear()));
+
+        Map<UUID, List<Boolean>> result = new HashMap<>();
+        for (UUID habitId : habitIds) {
+            List<Boolean> days = new ArrayList<>(7);
+            for (int i = 0; i < 7; i++) {
+                LocalDate date = start.plusDays(i);
+                days.add(bitmaps.get(HabitCompletionBitmapStore.key(habitId, date.getYear()))
+                        .get(date.getDayOfYear() - 1));
+            }
+            result.put(habitId, days);
+        }
+        return result;
+    }
+
+    /**
+     * 单个习惯的年度热力图，每天一个点：count 为 0 / 1，completion 为 0 / 100。
+     */
+    public HabitHeatmapDTO heatmap(UUID habitId, int year) {
+        BitSet bits = years(List.of(habitId), Set.of(year)).get(HabitCompletionBitmapStore.key(habitId, year));
+        int days = Year.of(year).length();
+
+        List<HabitHeatmapDTO.DayValue> data = new ArrayList<>(days);
+        for (int bit = 0; bit < days; bit++) {
+            boolean completed = bits.get(bit);
+            data.add(new HabitHeatmapDTO.DayValue(LocalDate.ofYearDay(year, bit + 1).toString(),
+                    completed ? 1 : 0, completed ? 100.0 : 0.0));
+        }
+        return new HabitHeatmapDTO(year, data);
+    }
+
+    /**
+     * 在调用方事务内写入完成状态变化；相关缓存立即失效，并在事务结束（提交或回滚）后再失效一次，
+     * 避免事务期间被读入的未提交位图残留在缓存中。
+     */
+    public void apply(List<HabitCompletionBitmapStore.BitUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        store.apply(updates);
+
+        Set<String> keys = updates.stream()
+                .map(u -> HabitCompletionBitmapStore.key(u.getHabitId(), u.getDate().getYear()))
+                .collect(Collectors.toSet());
+        cache.invalidateAll(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(keys);
+                }
+            });
+        }
+    }
+
+    @Transactional
+    public int rebuildForUser(UUID userId) {
+        int rows = store.rebuildFromLogs(userId);
+        invalidateAfterCompletion();
+        return rows;
+    }
+
+    // 启动迁移：位图表为空时从 habit_logs 全量构建
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (!store.isEmpty()) {
+            return;
+        }
+        int rows = store.rebuildFromLogs(null);
+        invalidateAfterCompletion();
+        if (rows > 0) {
+            logger.info("Built {} habit completion bitmaps from habit_logs", rows);
+        }
+    }
+
+    private void invalidateAfterCompletion() {
+        cache.invalidateAll();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.invalidateAll();
+            }
+        });
+    }
+
+    // 批量读取缓存，未命中的 (habit, year) 一次查询补齐；数据库中没有的行缓存为空位图
+    private Map<String, BitSet> years(Collection<UUID> habitIds, Set<Integer> years) {
+        Set<String> keys = new HashSet<>();
+        for (UUID habitId : habitIds) {
+            for (Integer year : years) {
+                keys.add(HabitCompletionBitmapStore.key(habitId, year));
+            }
+        }
+        return cache.getAll(keys, missing -> {
+            Set<UUID> missingHabits = new HashSet<>();
+            Set<Integer> missingYears = new HashSet<>();
+            for (String key : missing) {
+                int separator = key.indexOf('|');
+                missingHabits.add(UUID.fromString(key.substring(0, separator)));
+                missingYears.add(Integer.parseInt(key.substring(separator + 1)));
+            }
+            Map<String, BitSet> loaded = store.load(missingHabits, missingYears);
+            Map<String, BitSet> result = new HashMap<>();
+            for (String key : missing) {
+                result.put(key, loaded.getOrDefault(key, new BitSet()));
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.HabitResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 每个用户已组装好的习惯看板缓存。以用户为单位失效：任何影响该用户习惯或打卡的写入都会整体丢弃其条目。
+ * 条目按 (查询日期, 当天日期) 区分，跨过零点后自然不再命中。
+ */
+@Component
+public class HabitDashboardCache {
+
+    // 单个用户最多缓存的日期视图数，超过后整体清空重来
+    private static final int MAX_VIEWS_PER_USER = 16;
+
+    private final Cache<UUID, Map<String, List<HabitResponse>>> cache;
+
+    public HabitDashboardCache(MeterRegistry meterRegistry,
+            @Value("${app.habits.dashboard-cache.max-users:10000}") long maxUsers,
+            @Value("${app.habits.dashboard-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "habit.dashboard");
+    }
+
+    /**
+     * 命中时直接返回缓存的看板，未命中时调用 loader 组装并写入缓存。返回的列表不可修改。
+     */
+    public List<HabitResponse> get(UUID userId, LocalDate date, Supplier<List<HabitResponse>> loader) {
+        String view = date + "|" + LocalDate.now();
+        Map<String, List<HabitResponse>> views = cache.get(userId, k -> new ConcurrentHashMap<>());
+        List<HabitResponse> cached = views.get(view);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<HabitResponse> loaded = List.copyOf(loader.get());
+        // 组装期间该用户若被失效，views 已不在缓存中，写入它不会留下过期数据
+        if (views.size() >= MAX_VIEWS_PER_USER) {
+            views.clear();
+        }
+        views.put(view, loaded);
+        return loaded;
+    }
+
+    public void invalidate(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    /**
+     * 在当前事务提交后失效；没有活动事务时立即失效。
+     */
+    public void invalidateAfterCommit(Collection<UUID> userIds) {
+        Set<UUID> ids = Set.copyOf(userIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll(ids);
+            }
+        });
+    }
+}
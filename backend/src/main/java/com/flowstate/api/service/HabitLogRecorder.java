@@ -0,0 +1,169 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.enums.Frequency;
+import com.flowstate.api.repository.HabitCompletionBitmapStore;
+import com.flowstate.api.repository.HabitLogWriter;
+import com.flowstate.api.repository.HabitRepository;
+import com.flowstate.api.repository.HabitStreakWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 习惯打卡的写事务：日志原子累加 + 周期汇总 + 连续打卡计数器。
+ * 事务内只有这几条语句，行锁不会跨越响应组装等 Java 逻辑。
+ */
+@Service
+public class HabitLogRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(HabitLogRecorder.class);
+
+    private final HabitRepository habitRepository;
+    private final HabitLogWriter habitLogWriter;
+    private final HabitPeriodRollupService habitPeriodRollupService;
+    private final HabitStreakService habitStreakService;
+    private final HabitCompletionService habitCompletionService;
+    private final HabitDashboardCache dashboardCache;
+
+    public HabitLogRecorder(HabitRepository habitRepository, HabitLogWriter habitLogWriter,
+            HabitPeriodRollupService habitPeriodRollupService, HabitStreakService habitStreakService,
+            HabitCompletionService habitCompletionService, HabitDashboardCache dashboardCache) {
+        this.habitRepository = habitRepository;
+        this.habitLogWriter = habitLogWriter;
+        this.habitPeriodRollupService = habitPeriodRollupService;
+        this.habitStreakService = habitStreakService;
+        this.habitCompletionService = habitCompletionService;
+        this.dashboardCache = dashboardCache;
+    }
+
+    /**
+     * 单条打卡。计数器在数据库中更新，返回的 Habit 上的旧值由调用方在事务提交后用 {@link Recorded#getStreak()} 覆盖，
+     * 避免改动受管实体而在提交时多写一次 habits。
+     */
+    @Transactional
+    public Recorded record(UUID habitId, LocalDate date, int increment) {
+        Habit habit = habitRepository.findById(habitId)
+                .orElseThrow(() -> new RuntimeException("Habit not found"));
+
+        HabitLogWriter.UpsertResult result = habitLogWriter.increment(habit.getId(), date, increment,
+                habit.getGoalValue());
+        habitPeriodRollupService.record(habit, date, increment);
+
+        // 完成状态翻转时在同一事务内维护完成位图与连续打卡计数器，均为单条 SQL
+        HabitStreakWriter.Counters streak = null;
+        if (result.completionChanged()) {
+            habitCompletionService.apply(List.of(
+                    new HabitCompletionBitmapStore.BitUpdate(habit.getId(), date, result.isCompleted())));
+            streak = habitStreakService.onCompletionChanged(habit.getId(), date, result.isCompleted())
+                    .orElse(null);
+        }
+        dashboardCache.invalidateAfterCommit(List.of(habit.getUser().getId()));
+        return new Recorded(habit, streak);
+    }
+
+    /**
+     * 批量写入：同一 (habit, date) 的增量先在内存合并，再以集合语句一次性累加日志与周期汇总。
+     * 已不存在的习惯会被跳过。
+     *
+     * @return 每个 (habit, date) 累加后的结果
+     */
+    @Transactional
+    public List<HabitLogWriter.UpsertResult> recordBatch(Collection<HabitLogWriter.Increment> increments) {
+        Map<UUID, Map<LocalDate, Integer>> merged = new HashMap<>();
+        for (HabitLogWriter.Increment increment : increments) {
+            merged.computeIfAbsent(increment.getHabitId(), k -> new HashMap<>())
+                    .merge(increment.getDate(), increment.getIncrement(), Integer::sum);
+        }
+        if (merged.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Habit> habits = habitRepository.findAllById(merged.keySet()).stream()
+                .collect(Collectors.toMap(Habit::getId, h -> h));
+        Map<UUID, Integer> goals = new HashMap<>();
+        List<HabitLogWriter.Increment> logIncrements = new ArrayList<>();
+        List<HabitLogWriter.PeriodIncrement> periodIncrements = new ArrayList<>();
+
+        merged.forEach((habitId, byDate) -> {
+            Habit habit = habits.get(habitId);
+            if (habit == null) {
+                return;
+            }
+            goals.put(habitId, habit.getGoalValue());
+            Map<LocalDate, Integer> byPeriod = new HashMap<>();
+            byDate.forEach((date, value) -> {
+                logIncrements.add(new HabitLogWriter.Increment(habitId, date, value));
+                if (habit.getFrequency() == Frequency.WEEKLY || habit.getFrequency() == Frequency.MONTHLY) {
+                    byPeriod.merge(HabitPeriods.start(habit.getFrequency(), date), value, Integer::sum);
+                }
+            });
+            byPeriod.forEach((periodStart, value) -> periodIncrements.add(new HabitLogWriter.PeriodIncrement(
+                    habitId, habit.getFrequency().name(), periodStart, value)));
+        });
+
+        List<HabitLogWriter.UpsertResult> results = habitLogWriter.incrementAll(logIncrements, goals);
+        habitLogWriter.addToPeriods(periodIncrements);
+
+        // 按习惯排序使并发批次以相同顺序获取 habits 行锁，同一习惯内按日期顺序，使计数器尽量走增量路径
+        List<HabitLogWriter.UpsertResult> flipped = results.stream()
+                .filter(HabitLogWriter.UpsertResult::completionChanged)
+                .sorted(Comparator.comparing(HabitLogWriter.UpsertResult::getHabitId)
+                        .thenComparing(HabitLogWriter.UpsertResult::getDate))
+                .collect(Collectors.toList());
+        habitCompletionService.apply(flipped.stream()
+                .map(r -> new HabitCompletionBitmapStore.BitUpdate(r.getHabitId(), r.getDate(), r.isCompleted()))
+                .collect(Collectors.toList()));
+
+        flipped.forEach(r -> habitStreakService.onCompletionChanged(r.getHabitId(), r.getDate(), r.isCompleted()));
+        dashboardCache.invalidateAfterCommit(habits.values().stream()
+                .map(h -> h.getUser().getId())
+                .collect(Collectors.toSet()));
+        return results;
+    }
+
+    // 启动迁移：合并历史重复行后补上 (habit_id, date) 唯一约束
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void ensureUniqueKey() {
+        if (habitLogWriter.hasUniqueKey()) {
+            return;
+        }
+        int merged = habitLogWriter.mergeDuplicates();
+        habitLogWriter.addUniqueKey();
+        logger.info("Added unique key {} on habit_logs after merging {} duplicate rows",
+                HabitLogWriter.UNIQUE_KEY, merged);
+    }
+
+    public static class Recorded {
+        private final Habit habit;
+        private final HabitStreakWriter.Counters streak;
+
+        public Recorded(Habit habit, HabitStreakWriter.Counters streak) {
+            this.habit = habit;
+            this.streak = streak;
+        }
+
+        public Habit getHabit() {
+            return habit;
+        }
+
+        // 本次未翻转完成状态时为空，计数器沿用 Habit 上读取时的值
+        public HabitStreakWriter.Counters getStreak() {
+            return streak;
+        }
+    }
+}
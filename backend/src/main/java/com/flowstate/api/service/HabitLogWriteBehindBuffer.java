@@ -0,0 +1,297 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.repository.HabitLogWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 高频打卡的写后缓冲 (write-behind)：按 (habit, day) 在分段内存缓冲中合并增量，
+ * 定时或累计到一定操作数后批量落库。
+ * <p>
+ * 持久性边界：进程崩溃时最多丢失最近一个刷新周期 (flush-interval-ms) 或 max-pending-ops 次操作内的增量，
+ * 以及重试队列中的条目；正常停机时会在销毁前完成最后一次刷新，仍未写入的条目逐条记入错误日志。
+ * 整批写入失败的条目进入与新增量分开的重试队列，单条连续失败 max-attempts 次后丢弃并计入死信指标；
+ * 缓冲（含重试队列）达到 max-buffered-ops 时不再接受新增量，由调用方同步写入。
+ */
+@Component
+@ConditionalOnProperty(name = "app.habits.write-behind.enabled", havingValue = "true")
+public class HabitLogWriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HabitLogWriteBehindBuffer.class);
+
+    private final HabitLogRecorder habitLogRecorder;
+    private final Stripe[] stripes;
+    private final int maxPendingOps;
+    private final int maxBufferedOps;
+    private final int maxAttempts;
+
+    private final AtomicInteger pendingOps = new AtomicInteger();
+    // 正在写入与等待重试的条目数，只在持有 flushLock 时修改
+    private final AtomicInteger retainedEntries = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "habit-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Timer flushTimer;
+    private final Counter flushedEntries;
+    private final Counter deadLetteredEntries;
+    private final Counter rejectedOps;
+
+    public HabitLogWriteBehindBuffer(HabitLogRecorder habitLogRecorder, MeterRegistry meterRegistry,
+            @Value("${app.habits.write-behind.stripes:16}") int stripeCount,
+            @Value("${app.habits.write-behind.max-pending-ops:500}") int maxPendingOps,
+            @Value("${app.habits.write-behind.max-buffered-ops:10000}") int maxBufferedOps,
+            @Value("${app.habits.write-behind.max-attempts:5}") int maxAttempts) {
+        this.habitLogRecorder = habitLogRecorder;
+        this.maxPendingOps = maxPendingOps;
+        this.maxBufferedOps = maxBufferedOps;
+        this.maxAttempts = maxAttempts;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        Gauge.builder("habit.write_behind.depth", pendingOps, AtomicInteger::get)
+                .description("Buffered habit log increments not yet flushed")
+                .register(meterRegistry);
+        Gauge.builder("habit.write_behind.retained_entries", retainedEntries, AtomicInteger::get)
+                .description("Entries being written or waiting in the retry queue")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("habit.write_behind.flush")
+                .description("Latency of write-behind flushes")
+                .register(meterRegistry);
+        this.flushedEntries = Counter.builder("habit.write_behind.flushed_entries")
+                .description("Coalesced (habit, day) entries written by flushes")
+                .register(meterRegistry);
+        this.deadLetteredEntries = Counter.builder("habit.write_behind.dead_lettered_entries")
+                .description("Buffered entries dropped after exhausting per-entry retries")
+                .register(meterRegistry);
+        this.rejectedOps = Counter.builder("habit.write_behind.rejected_ops")
+                .description("Increments written synchronously because the buffer was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓冲一次增量；缓冲已满时返回 false，调用方应改为同步写入。
+     */
+    public boolean add(UUID habitId, LocalDate date, int increment) {
+        if (pendingOps.get() + retainedEntries.get() >= maxBufferedOps) {
+            rejectedOps.increment();
+            return false;
+        }
+        Stripe stripe = stripeFor(habitId);
+        int ops;
+        synchronized (stripe) {
+            stripe.pending.computeIfAbsent(habitId, k -> new HashMap<>()).merge(date, increment, Integer::sum);
+            stripe.ops++;
+            ops = pendingOps.incrementAndGet();
+        }
+        if (ops >= maxPendingOps && !flushLock.isLocked() && !flushExecutor.isShutdown()) {
+            flushExecutor.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * 某习惯在 [from, to] 日期范围内尚未落库的增量之和（含正在写入与等待重试的条目），用于计算乐观的当前值。
+     */
+    public int pending(UUID habitId, LocalDate from, LocalDate to) {
+        Stripe stripe = stripeFor(habitId);
+        synchronized (stripe) {
+            int sum = sum(stripe.pending.get(habitId), from, to) + sum(stripe.inFlight.get(habitId), from, to);
+            for (Retry retry : stripe.retries) {
+                LocalDate date = retry.increment.getDate();
+                if (retry.increment.getHabitId().equals(habitId) && !date.isBefore(from) && !date.isAfter(to)) {
+                    sum += retry.increment.getIncrement();
+                }
+            }
+            return sum;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.habits.write-behind.flush-interval-ms:250}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Retry> retries = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    retries.addAll(stripe.retries);
+                }
+            }
+            List<HabitLogWriter.Increment> batch = drain();
+            if (batch.isEmpty() && retries.isEmpty()) {
+                return;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    flushTimer.record(() -> habitLogRecorder.recordBatch(batch));
+                    flushedEntries.increment(batch.size());
+                    clearInFlight();
+                    retainedEntries.addAndGet(-batch.size());
+                } catch (RuntimeException e) {
+                    // 整批失败时转入重试队列逐条重试，把个别无法写入的条目与其余条目隔离
+                    logger.warn("Write-behind flush of {} entries failed, retrying per entry: {}", batch.size(),
+                            e.getMessage());
+                    batch.forEach(i -> retries.add(new Retry(i)));
+                }
+            }
+            settle(retryEach(retries));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 逐条写入重试队列，返回仍需重试的条目
+    private List<Retry> retryEach(List<Retry> retries) {
+        List<Retry> kept = new ArrayList<>();
+        for (int i = 0; i < retries.size(); i++) {
+            Retry retry = retries.get(i);
+            try {
+                habitLogRecorder.recordBatch(List.of(retry.increment));
+                flushedEntries.increment();
+            } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+                // 数据库不可用：剩余条目留在重试队列，不计入重试次数，等待下一轮
+                logger.error("Write-behind retry aborted, database unavailable: {}", e.getMessage());
+                kept.addAll(retries.subList(i, retries.size()));
+                return kept;
+            } catch (RuntimeException e) {
+                retry.attempts++;
+                if (retry.attempts < maxAttempts) {
+                    kept.add(retry);
+                    continue;
+                }
+                // 死信：超过重试次数的条目丢弃并记录，避免一条坏数据无限占用缓冲
+                deadLetteredEntries.increment();
+                HabitLogWriter.Increment increment = retry.increment;
+                logger.error("Dropping write-behind entry habit={} date={} increment={} after {} attempts: {}",
+                        increment.getHabitId(), increment.getDate(), increment.getIncrement(), retry.attempts,
+                        e.getMessage());
+            }
+        }
+        return kept;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+        List<HabitLogWriter.Increment> unflushed = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.pending.forEach((habitId, byDate) -> byDate.forEach((date, value) ->
+                        unflushed.add(new HabitLogWriter.Increment(habitId, date, value))));
+                stripe.retries.forEach(r -> unflushed.add(r.increment));
+            }
+        }
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        // 最后一次刷新仍未写入的条目不再重试，逐条记入日志以便人工补录
+        logger.error("Shutting down with {} unflushed write-behind entries", unflushed.size());
+        for (HabitLogWriter.Increment increment : unflushed) {
+            logger.error("Unflushed write-behind entry habit={} date={} increment={}", increment.getHabitId(),
+                    increment.getDate(), increment.getIncrement());
+        }
+    }
+
+    // 新增量移入各分段的 inFlight，写入提交前 pending() 仍计入；深度计数只减去实际取走的操作数
+    private List<HabitLogWriter.Increment> drain() {
+        List<HabitLogWriter.Increment> batch = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.pending.isEmpty()) {
+                    continue;
+                }
+                stripe.pending.forEach((habitId, byDate) -> byDate.forEach((date, value) ->
+                        batch.add(new HabitLogWriter.Increment(habitId, date, value))));
+                stripe.inFlight = stripe.pending;
+                stripe.pending = new HashMap<>();
+                pendingOps.addAndGet(-stripe.ops);
+                stripe.ops = 0;
+            }
+        }
+        retainedEntries.addAndGet(batch.size());
+        return batch;
+    }
+
+    private void clearInFlight() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.inFlight = new HashMap<>();
+            }
+        }
+    }
+
+    // 本轮结束：inFlight 清空，仍需重试的条目放回各自分段的重试队列
+    private void settle(List<Retry> kept) {
+        Map<Stripe, List<Retry>> byStripe = new HashMap<>();
+        for (Retry retry : kept) {
+            byStripe.computeIfAbsent(stripeFor(retry.increment.getHabitId()), k -> new ArrayList<>()).add(retry);
+        }
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.inFlight = new HashMap<>();
+                stripe.retries = byStripe.getOrDefault(stripe, new ArrayList<>());
+            }
+        }
+        retainedEntries.set(kept.size());
+    }
+
+    private static int sum(Map<LocalDate, Integer> byDate, LocalDate from, LocalDate to) {
+        if (byDate == null) {
+            return 0;
+        }
+        return byDate.entrySet().stream()
+                .filter(e -> !e.getKey().isBefore(from) && !e.getKey().isAfter(to))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+
+    private Stripe stripeFor(UUID habitId) {
+        return stripes[Math.floorMod(habitId.hashCode(), stripes.length)];
+    }
+
+    // 同一习惯的所有日期落在同一分段，便于按习惯汇总未落库的增量；字段只在持有该对象的锁时读写
+    private static final class Stripe {
+        private Map<UUID, Map<LocalDate, Integer>> pending = new HashMap<>();
+        private Map<UUID, Map<LocalDate, Integer>> inFlight = new HashMap<>(); // 已取出、写入尚未提交
+        private List<Retry> retries = new ArrayList<>(); // 写入失败等待重试，不与新增量合并
+        private int ops; // pending 中合并前的操作数
+    }
+
+    // attempts 只在持有 flushLock 时读写
+    private static final class Retry {
+        private final HabitLogWriter.Increment increment;
+        private int attempts;
+
+        private Retry(HabitLogWriter.Increment increment) {
+            this.increment = increment;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.HabitPeriodRollup;
+import com.flowstate.api.enums.Frequency;
+import com.flowstate.api.repository.HabitPeriodRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 周 / 月习惯的周期汇总：写入时原子累加，读取时按 (habit, 周期) 索引查找。
+ */
+@Service
+public class HabitPeriodRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HabitPeriodRollupService.class);
+
+    private final HabitPeriodRollupRepository rollupRepository;
+
+    public HabitPeriodRollupService(HabitPeriodRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * 把一次打卡增量计入所属周期，仅对周 / 月习惯生效，需在打卡事务内调用。
+     */
+    public void record(Habit habit, LocalDate date, int increment) {
+        Frequency frequency = habit.getFrequency();
+        if (frequency == null || frequency == Frequency.DAILY) {
+            return;
+        }
+        rollupRepository.addToPeriod(habit.getId(), frequency.name(), HabitPeriods.start(frequency, date),
+                increment, habit.getGoalValue());
+    }
+
+    /**
+     * 读取一批习惯在 date 所处周期的累计值，key 为习惯 ID；日习惯不在结果中。
+     */
+    public Map<UUID, Integer> currentValues(Collection<Habit> habits, LocalDate date) {
+        Map<UUID, Integer> values = new HashMap<>();
+        boolean hasPeriodic = habits.stream()
+                .anyMatch(h -> h.getFrequency() == Frequency.WEEKLY || h.getFrequency() == Frequency.MONTHLY);
+        if (!hasPeriodic) {
+            return values;
+        }
+
+        List<LocalDate> periodStarts = List.of(
+                HabitPeriods.start(Frequency.WEEKLY, date),
+                HabitPeriods.start(Frequency.MONTHLY, date));
+        Map<UUID, Habit> habitsById = new HashMap<>();
+        habits.forEach(h -> habitsById.put(h.getId(), h));
+
+        for (HabitPeriodRollup rollup : rollupRepository.findByHabitInAndPeriodStartIn(habits, periodStarts)) {
+            Habit habit = habitsById.get(rollup.getHabit().getId());
+            if (habit != null && rollup.getPeriodType() == habit.getFrequency()
+                    && rollup.getPeriodStart().equals(HabitPeriods.start(habit.getFrequency(), date))) {
+                values.put(habit.getId(), rollup.getTotalValue());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 为 habit_logs 中尚无汇总行的周期补齐汇总，已有的汇总行保持不变。
+     */
+    @Transactional
+    public int backfillMissing() {
+        return rollupRepository.backfillFromLogs(HabitPeriods.WEEK_FIELDS.getFirstDayOfWeek().getValue());
+    }
+
+    // 启动迁移：汇总表为空时从 habit_logs 回填存量周期数据
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        int inserted = rollupRepository.backfillFromLogs(HabitPeriods.WEEK_FIELDS.getFirstDayOfWeek().getValue());
+        if (inserted > 0) {
+            logger.info("Backfilled {} habit period rollups from habit_logs", inserted);
+        }
+    }
+}
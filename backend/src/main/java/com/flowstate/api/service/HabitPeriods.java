@@ -0,0 +1,40 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.enums.Frequency;
+
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+
+/**
+ * 习惯周期的统一定义：周 / 月的起止日期即周期汇总表的周期键。
+ */
+public final class HabitPeriods {
+
+    public static final WeekFields WEEK_FIELDS = WeekFields.of(Locale.getDefault());
+
+    private HabitPeriods() {
+    }
+
+    public static LocalDate start(Frequency frequency, LocalDate date) {
+        switch (frequency) {
+            case WEEKLY:
+                return date.with(WEEK_FIELDS.dayOfWeek(), 1);
+            case MONTHLY:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    public static LocalDate end(Frequency frequency, LocalDate date) {
+        switch (frequency) {
+            case WEEKLY:
+                return date.with(WEEK_FIELDS.dayOfWeek(), 7);
+            case MONTHLY:
+                return date.withDayOfMonth(date.lengthOfMonth());
+            default:
+                return date;
+        }
+    }
+}
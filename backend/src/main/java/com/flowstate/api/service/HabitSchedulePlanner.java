@@ -0,0 +1,234 @@
+package com.flowstate.api.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 时长习惯的周排程算法，只在内存位图上计算，不访问数据库。
+ * <p>
+ * 贪心：需求按松弛度（候选时间内的空闲分钟减去需求分钟）从紧到松依次放置，每次选窗口内空闲最多的候选日，
+ * 取其中最早一段足够长的空档。修复：仍有缺口的需求尝试把挡在其窗口内的其他块整块挪到它们自己窗口的别处，
+ * 腾出空档后再放，挪不动就回滚。
+ */
+final class HabitSchedulePlanner {
+
+    // 修复阶段的尝试上限，保证最坏情况下的耗时有界
+    private static final int MAX_REPAIR_ATTEMPTS = 512;
+
+    private final BitSet[] days;
+    private final int[] earliest;
+    private final List<Block> blocks = new ArrayList<>();
+
+    /**
+     * @param days     每天的占用位图，排程过程中原地置位
+     * @param earliest 每天最早可排的分钟；已经过去的日子传 {@link TimeRecordOccupancyService#MINUTES_PER_DAY}
+     */
+    HabitSchedulePlanner(BitSet[] days, int[] earliest) {
+        this.days = days;
+        this.earliest = earliest;
+    }
+
+    List<Block> plan(List<Demand> demands) {
+        List<Demand> order = new ArrayList<>(demands);
+        for (Demand demand : order) {
+            int free = 0;
+            for (int day : demand.candidateDays) {
+                free += freeMinutes(demand, day);
+            }
+            demand.slack = free - demand.minutes;
+        }
+        order.sort(Comparator.comparingInt((Demand d) -> d.slack).thenComparingInt(d -> -d.minutes));
+
+        for (Demand demand : order) {
+            fill(demand);
+        }
+        repair(order);
+
+        blocks.sort(Comparator.comparingInt((Block b) -> b.day).thenComparingInt(b -> b.start));
+        return blocks;
+    }
+
+    private void fill(Demand demand) {
+        // 每次放一块，直到放满或没有足够长的空档
+        while (demand.remaining() > 0) {
+            if (place(demand, demand.remaining(), false) == null) {
+                return;
+            }
+        }
+    }
+
+    private void repair(List<Demand> order) {
+        int attempts = 0;
+        for (Demand demand : order) {
+            boolean progressed = true;
+            while (demand.remaining() >= demand.minBlock && progressed && attempts < MAX_REPAIR_ATTEMPTS) {
+                progressed = false;
+                for (Block blocker : new ArrayList<>(blocks)) {
+                    if (attempts >= MAX_REPAIR_ATTEMPTS) {
+                        break;
+                    }
+                    if (blocker.demand == demand || !demand.accepts(blocker.day)
+                            || blocker.start >= demand.windowEnd || blocker.end() <= demand.windowStart) {
+                        continue;
+                    }
+                    attempts++;
+                    release(blocker);
+                    Block placed = place(demand, demand.remaining(), false);
+                    if (placed == null) {
+                        restore(blocker);
+                        continue;
+                    }
+                    // 被挪的块保持原长度，原需求的已排分钟数不变
+                    if (place(blocker.demand, blocker.length, true) == null) {
+                        release(placed);
+                        restore(blocker);
+                        continue;
+                    }
+                    progressed = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    // 在需求的候选日中放一块：exact 时长度必须为 want，否则不短于最小块；不足最小块的剩余不放，计为未排入
+    private Block place(Demand demand, int want, boolean exact) {
+        if (!exact && want < demand.minBlock) {
+            return null;
+        }
+        int need = exact ? want : demand.minBlock;
+        int bestDay = -1;
+        int bestStart = -1;
+        int bestRun = 0;
+        int bestFree = -1;
+        for (int day : demand.candidateDays) {
+            int free = freeMinutes(demand, day);
+            if (free < need || free <= bestFree) {
+                continue;
+            }
+            int[] run = firstRun(demand, day, need);
+            if (run != null) {
+                bestDay = day;
+                bestStart = run[0];
+                bestRun = run[1];
+                bestFree = free;
+            }
+        }
+        if (bestDay < 0) {
+            return null;
+        }
+        int length = exact ? want : length(demand, want, Math.min(bestRun, demand.maxBlock));
+        Block block = new Block(demand, bestDay, bestStart, length);
+        restore(block);
+        return block;
+    }
+
+    // 取 min(want, room)；若剩余会短于最小块且还能再拆出一个最小块，则缩短本块，避免留下放不进去的零头
+    private static int length(Demand demand, int want, int room) {
+        int length = Math.min(want, room);
+        int rest = want - length;
+        if (rest > 0 && rest < demand.minBlock && want - demand.minBlock >= demand.minBlock) {
+            length = want - demand.minBlock;
+        }
+        return length;
+    }
+
+    // 窗口内最早一段不短于 need 的空档，返回 {起点, 长度}
+    private int[] firstRun(Demand demand, int day, int need) {
+        BitSet occupied = days[day];
+        int from = Math.max(demand.windowStart, earliest[day]);
+        while (from < demand.windowEnd) {
+            int free = occupied.nextClearBit(from);
+            if (free >= demand.windowEnd) {
+                return null;
+            }
+            int busy = occupied.nextSetBit(free);
+            int runEnd = busy < 0 || busy > demand.windowEnd ? demand.windowEnd : busy;
+            if (runEnd - free >= need) {
+                return new int[]{free, runEnd - free};
+            }
+            from = runEnd;
+        }
+        return null;
+    }
+
+    private int freeMinutes(Demand demand, int day) {
+        int from = Math.max(demand.windowStart, earliest[day]);
+        if (from >= demand.windowEnd) {
+            return 0;
+        }
+        return demand.windowEnd - from - days[day].get(from, demand.windowEnd).cardinality();
+    }
+
+    private void release(Block block) {
+        days[block.day].clear(block.start, block.end());
+        blocks.remove(block);
+        block.demand.placed -= block.length;
+    }
+
+    private void restore(Block block) {
+        days[block.day].set(block.start, block.end());
+        blocks.add(block);
+        block.demand.placed += block.length;
+    }
+
+    /**
+     * 一个习惯需要排入的分钟数：日习惯每天一个需求（单个候选日），周习惯整周一个需求。
+     */
+    static final class Demand {
+        final UUID habitId;
+        final int[] candidateDays;
+        final int windowStart;
+        final int windowEnd;
+        final int minBlock;
+        final int maxBlock;
+        final int minutes;
+        int placed;
+        private int slack;
+
+        Demand(UUID habitId, int[] candidateDays, int windowStart, int windowEnd, int minBlock, int maxBlock,
+               int minutes) {
+            this.habitId = habitId;
+            this.candidateDays = candidateDays;
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+            this.minBlock = minBlock;
+            this.maxBlock = maxBlock;
+            this.minutes = minutes;
+        }
+
+        int remaining() {
+            return minutes - placed;
+        }
+
+        boolean accepts(int day) {
+            for (int candidate : candidateDays) {
+                if (candidate == day) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static final class Block {
+        final Demand demand;
+        final int day;
+        final int start;
+        final int length;
+
+        Block(Demand demand, int day, int start, int length) {
+            this.demand = demand;
+            this.day = day;
+            this.start = start;
+            this.length = length;
+        }
+
+        int end() {
+            return start + length;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.HabitScheduleRequest;
+import com.flowstate.api.dto.HabitScheduleResponse;
+import com.flowstate.api.dto.TimeRecordResponse;
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.HabitLog;
+import com.flowstate.api.enums.Frequency;
+import com.flowstate.api.enums.GoalType;
+import com.flowstate.api.repository.HabitLogRepository;
+import com.flowstate.api.repository.HabitRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 把时长型习惯的剩余目标自动排进一周的空闲时间，生成建议的时间块（不落库）。
+ * 占用信息来自 {@link TimeRecordOccupancyService} 的分钟位图，排程本身由 {@link HabitSchedulePlanner} 在内存中完成。
+ * 月习惯不参与排程。
+ */
+@Service
+public class HabitScheduleService {
+
+    private static final int DEFAULT_DAY_START = 8 * 60;
+    private static final int DEFAULT_DAY_END = 22 * 60;
+    private static final int DEFAULT_MIN_BLOCK = 30;
+    private static final int DAYS_PER_WEEK = 7;
+
+    private final HabitRepository habitRepository;
+    private final HabitLogRepository habitLogRepository;
+    private final HabitPeriodRollupService habitPeriodRollupService;
+    private final TimeRecordOccupancyService occupancyService;
+    private final Timer planTimer;
+
+    public HabitScheduleService(HabitRepository habitRepository, HabitLogRepository habitLogRepository,
+                                HabitPeriodRollupService habitPeriodRollupService,
+                                TimeRecordOccupancyService occupancyService, MeterRegistry meterRegistry) {
+        this.habitRepository = habitRepository;
+        this.habitLogRepository = habitLogRepository;
+        this.habitPeriodRollupService = habitPeriodRollupService;
+        this.occupancyService = occupancyService;
+        this.planTimer = Timer.builder("habit.schedule.plan")
+                .description("In-memory planning time of a weekly habit schedule")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public HabitScheduleResponse planWeek(UUID userId, HabitScheduleRequest request) {
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = HabitPeriods.start(Frequency.WEEKLY,
+                request.getWeekStart() != null ? request.getWeekStart() : today);
+        LocalDate weekEnd = weekStart.plusDays(DAYS_PER_WEEK - 1);
+        int dayStart = request.getDayStart() != null ? request.getDayStart() : DEFAULT_DAY_START;
+        int dayEnd = request.getDayEnd() != null ? request.getDayEnd() : DEFAULT_DAY_END;
+        validateWindow(dayStart, dayEnd);
+
+        Map<UUID, HabitScheduleRequest.Preference> preferences = new HashMap<>();
+        if (request.getPreferences() != null) {
+            for (HabitScheduleRequest.Preference preference : request.getPreferences()) {
+                preferences.put(preference.getHabitId(), preference);
+            }
+        }
+
+        List<Habit> habits = habitRepository.findByUserIdAndIsActiveTrue(userId).stream()
+                .filter(h -> h.getGoalType() == GoalType.DURATION && h.getFrequency() != Frequency.MONTHLY)
+                .filter(h -> h.getGoalValue() != null && h.getGoalValue() > 0)
+                .collect(Collectors.toList());
+        if (habits.isEmpty()) {
+            return new HabitScheduleResponse(weekStart, weekEnd, List.of(), List.of());
+        }
+
+        // 过去的日子不可排；今天从当前分钟开始
+        Map<LocalDate, BitSet> occupancy = occupancyService.snapshot(userId, weekStart, weekEnd);
+        BitSet[] days = new BitSet[DAYS_PER_WEEK];
+        int[] earliest = new int[DAYS_PER_WEEK];
+        List<Integer> openDays = new ArrayList<>();
+        LocalTime now = LocalTime.now();
+        for (int i = 0; i < DAYS_PER_WEEK; i++) {
+            LocalDate date = weekStart.plusDays(i);
+            days[i] = occupancy.get(date);
+            if (date.isBefore(today)) {
+                earliest[i] = TimeRecordOccupancyService.MINUTES_PER_DAY;
+            } else {
+                earliest[i] = date.equals(today) ? now.getHour() * 60 + now.getMinute() : 0;
+                openDays.add(i);
+            }
+        }
+
+        Map<String, Integer> dailyLogged = new HashMap<>();
+        List<Habit> dailyHabits = habits.stream()
+                .filter(h -> h.getFrequency() == Frequency.DAILY)
+                .collect(Collectors.toList());
+        if (!dailyHabits.isEmpty()) {
+            for (HabitLog log : habitLogRepository.findByHabitInAndDateBetweenOrderByDateDesc(
+                    dailyHabits, weekStart, weekEnd)) {
+                dailyLogged.merge(log.getHabit().getId() + "|" + log.getDate(), log.getCurrentValue(), Integer::sum);
+            }
+        }
+        Map<UUID, Integer> weeklyLogged = habitPeriodRollupService.currentValues(habits, weekStart);
+
+        Map<UUID, List<HabitSchedulePlanner.Demand>> demandsByHabit = new LinkedHashMap<>();
+        List<HabitSchedulePlanner.Demand> demands = new ArrayList<>();
+        for (Habit habit : habits) {
+            HabitScheduleRequest.Preference preference = preferences.get(habit.getId());
+            int windowStart = preference != null && preference.getWindowStart() != null
+                    ? preference.getWindowStart() : dayStart;
+            int windowEnd = preference != null && preference.getWindowEnd() != null
+                    ? preference.getWindowEnd() : dayEnd;
+            validateWindow(windowStart, windowEnd);
+            int minBlock = preference != null && preference.getMinBlockMinutes() != null
+                    ? preference.getMinBlockMinutes() : DEFAULT_MIN_BLOCK;
+            int maxBlock = preference != null && preference.getMaxBlockMinutes() != null
+                    ? preference.getMaxBlockMinutes() : TimeRecordOccupancyService.MINUTES_PER_DAY;
+            if (minBlock < 1 || maxBlock < minBlock) {
+                throw new RuntimeException("习惯 " + habit.getName() + " 的时间块大小无效");
+            }
+
+            List<HabitSchedulePlanner.Demand> habitDemands = new ArrayList<>();
+            if (habit.getFrequency() == Frequency.WEEKLY) {
+                int remaining = habit.getGoalValue() - weeklyLogged.getOrDefault(habit.getId(), 0);
+                if (remaining > 0 && !openDays.isEmpty()) {
+                    int[] candidates = openDays.stream().mapToInt(Integer::intValue).toArray();
+                    habitDemands.add(new HabitSchedulePlanner.Demand(habit.getId(), candidates,
+                            windowStart, windowEnd, minBlock, maxBlock, remaining));
+                }
+            } else {
+                for (int day : openDays) {
+                    int logged = dailyLogged.getOrDefault(habit.getId() + "|" + weekStart.plusDays(day), 0);
+                    int remaining = habit.getGoalValue() - logged;
+                    if (remaining > 0) {
+                        habitDemands.add(new HabitSchedulePlanner.Demand(habit.getId(), new int[]{day},
+                                windowStart, windowEnd, minBlock, maxBlock, remaining));
+                    }
+                }
+            }
+            demandsByHabit.put(habit.getId(), habitDemands);
+            demands.addAll(habitDemands);
+        }
+
+        List<HabitSchedulePlanner.Block> planned = planTimer.record(
+                () -> new HabitSchedulePlanner(days, earliest).plan(demands));
+
+        Map<UUID, Habit> habitsById = habits.stream().collect(Collectors.toMap(Habit::getId, h -> h));
+        List<TimeRecordResponse> blocks = new ArrayList<>(planned.size());
+        for (HabitSchedulePlanner.Block block : planned) {
+            Habit habit = habitsById.get(block.demand.habitId);
+            blocks.add(new TimeRecordResponse(null, habit.getName(), "自动排程", block.start, block.length,
+                    habit.getCategory(), habit.getColor(), habit.getId(), weekStart.plusDays(block.day), null));
+        }
+
+        List<HabitScheduleResponse.Allocation> allocations = new ArrayList<>();
+        for (Habit habit : habits) {
+            List<HabitSchedulePlanner.Demand> habitDemands = demandsByHabit.get(habit.getId());
+            int requested = habitDemands.stream().mapToInt(d -> d.minutes).sum();
+            int placed = habitDemands.stream().mapToInt(d -> d.placed).sum();
+            allocations.add(new HabitScheduleResponse.Allocation(habit.getId(), habit.getName(), requested, placed));
+        }
+        return new HabitScheduleResponse(weekStart, weekEnd, blocks, allocations);
+    }
+
+    private static void validateWindow(int start, int end) {
+        if (start < 0 || end > TimeRecordOccupancyService.MINUTES_PER_DAY || start >= end) {
+            throw new RuntimeException("时间窗口无效");
+        }
+    }
+}
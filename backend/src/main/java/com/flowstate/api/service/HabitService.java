@@ -1,49 +1,75 @@
 package com.flowstate.api.service;
 
+import com.flowstate.api.dto.HabitHeatmapDTO;
+import com.flowstate.api.dto.HabitLogBatchRequest;
+import com.flowstate.api.dto.HabitLogBatchResponse;
 import com.flowstate.api.dto.HabitRequest;
 import com.flowstate.api.dto.HabitResponse;
 import com.flowstate.api.entity.Habit;
-import com.flowstate.api.entity.HabitLog;
 import com.flowstate.api.entity.User;
 import com.flowstate.api.enums.Frequency;
 import com.flowstate.api.enums.GoalType;
 import com.flowstate.api.repository.HabitLogRepository;
+import com.flowstate.api.repository.HabitLogWriter;
 import com.flowstate.api.repository.HabitRepository;
 import com.flowstate.api.repository.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @Service
 public class HabitService {
 
+    // 与时间记录批量移动的上限一致，超出时整批拒绝，由客户端分批同步
+    private static final int MAX_LOG_BATCH = 200;
+
     private final HabitRepository habitRepository;
     private final HabitLogRepository habitLogRepository;
     private final UserRepository userRepository;
+    private final HabitStreakService habitStreakService;
+    private final HabitPeriodRollupService habitPeriodRollupService;
+    private final HabitLogRecorder habitLogRecorder;
+    private final HabitCompletionService habitCompletionService;
+    private final SyntheticDataGenerator syntheticDataGenerator;
+    private final HabitDashboardCache dashboardCache;
+    private final ObjectProvider<HabitLogWriteBehindBuffer> writeBehindBuffer;
 
     public HabitService(HabitRepository habitRepository, HabitLogRepository habitLogRepository,
-                        UserRepository userRepository) {
+                        UserRepository userRepository, HabitStreakService habitStreakService,
+                        HabitPeriodRollupService habitPeriodRollupService, HabitLogRecorder habitLogRecorder,
+                        HabitCompletionService habitCompletionService, SyntheticDataGenerator syntheticDataGenerator,
+                        HabitDashboardCache dashboardCache,
+                        ObjectProvider<HabitLogWriteBehindBuffer> writeBehindBuffer) {
         this.habitRepository = habitRepository;
         this.habitLogRepository = habitLogRepository;
         this.userRepository = userRepository;
+        this.habitStreakService = habitStreakService;
+        this.habitPeriodRollupService = habitPeriodRollupService;
+        this.habitLogRecorder = habitLogRecorder;
+        this.habitCompletionService = habitCompletionService;
+        this.syntheticDataGenerator = syntheticDataGenerator;
+        this.dashboardCache = dashboardCache;
+        this.writeBehindBuffer = writeBehindBuffer;
     }
 
-    @Transactional(readOnly = true)
+    // 看板加载路径：命中缓存时不访问数据库；未命中时一次查询习惯 + 一次查询日志，避免逐个习惯懒加载 (N+1)
     public List<HabitResponse> getHabitsForDate(UUID userId, LocalDate date) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Habit> habits = habitRepository.findByUserAndIsActiveTrue(user);
-        return habits.stream()
-                .map(h -> mapToResponse(h, date))
-                .collect(Collectors.toList());
+        return dashboardCache.get(userId, date,
+                () -> buildResponses(habitRepository.findByUserIdAndIsActiveTrue(userId), date));
     }
 
-    @Transactional(readOnly = true)
     public List<HabitResponse> getTodayHabits(UUID userId) {
         return getHabitsForDate(userId, LocalDate.now());
     }
@@ -79,76 +105,216 @@ public class HabitService {
                 .build();
 
         Habit savedHabit = habitRepository.save(habit);
-        return mapToResponse(savedHabit, LocalDate.now());
+        dashboardCache.invalidateAfterCommit(List.of(userId));
+        return mapToResponse(savedHabit, 0, Collections.nCopies(7, false));
     }
 
+    public Optional<HabitResponse> findHabit(UUID userId, UUID habitId) {
+        return habitRepository.findById(habitId)
+                .filter(habit -> habit.getUser().getId().equals(userId))
+                .map(habit -> buildResponses(List.of(habit), LocalDate.now()).get(0));
+    }
+
+    public HabitResponse getHabit(UUID userId, UUID habitId) {
+        return findHabit(userId, habitId).orElseThrow(() -> new RuntimeException("Habit not found"));
+    }
+
+    /**
+     * 修改习惯的展示信息（名称、分类、单位、图标、颜色），请求中为空的字段保持不变。
+     * 目标值、目标类型与频率决定历史日志的完成状态，修改需要重算派生数据，不在此处开放。
+     * expectedVersion 不为空且与当前版本不一致时抛出 {@link VersionConflictException}。
+     */
     @Transactional
-    public HabitResponse logHabit(UUID habitId, Integer increment) {
-        System.out.println("[DEBUG] HabitService: Logging habit " + habitId + " with increment " + increment);
+    public HabitResponse updateHabit(UUID userId, UUID habitId, HabitRequest request, Long expectedVersion) {
         Habit habit = habitRepository.findById(habitId)
+                .filter(h -> h.getUser().getId().equals(userId))
                 .orElseThrow(() -> new RuntimeException("Habit not found"));
+        if (expectedVersion != null && !expectedVersion.equals(habit.getVersion())) {
+            throw new VersionConflictException(buildResponses(List.of(habit), LocalDate.now()).get(0),
+                    habit.getVersion());
+        }
 
-        LocalDate today = LocalDate.now();
-        HabitLog log = habitLogRepository.findByHabitAndDate(habit, today)
-                .orElseGet(() -> HabitLog.builder()
-                        .habit(habit)
-                        .date(today)
-                        .currentValue(0)
-                        .isCompleted(false)
-                        .build());
+        if (request.getName() != null) {
+            String habitName = request.getName().trim();
+            if (habitName.isEmpty()) {
+                throw new RuntimeException("习惯名称不能为空");
+            }
+            if (!habitName.equalsIgnoreCase(habit.getName())
+                    && habitRepository.existsByUserAndNameIgnoreCaseAndIsActiveTrue(habit.getUser(), habitName)) {
+                throw new RuntimeException("同名习惯已存在");
+            }
+            habit.setName(habitName);
+        }
+        if (request.getCategory() != null) {
+            habit.setCategory(request.getCategory());
+        }
+        if (request.getUnit() != null) {
+            habit.setUnit(request.getUnit());
+        }
+        if (request.getIcon() != null) {
+            habit.setIcon(request.getIcon());
+        }
+        if (request.getColor() != null) {
+            habit.setColor(request.getColor());
+        }
 
-        log.setCurrentValue(log.getCurrentValue() + increment);
+        // 立即 flush 使响应带上递增后的版本
+        Habit saved = habitRepository.saveAndFlush(habit);
+        dashboardCache.invalidateAfterCommit(List.of(userId));
+        return buildResponses(List.of(saved), LocalDate.now()).get(0);
+    }
 
-        // 判定完成逻辑
-        if (log.getCurrentValue() >= habit.getGoalValue()) {
-            log.setIsCompleted(true);
-        } else {
-            log.setIsCompleted(false);
+    // 不开启外层事务：写事务在 HabitLogRecorder 中提交后再组装响应，避免读取期间持有日志行锁
+    public HabitResponse logHabit(UUID habitId, Integer increment) {
+        log.debug("Logging habit {} with increment {}", habitId, increment);
+        LocalDate today = LocalDate.now();
+        HabitLogWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+        if (buffer != null) {
+            // 写后缓冲模式：增量进入内存缓冲后立即返回乐观的累计值，由后台批量落库
+            Habit habit = habitRepository.findById(habitId)
+                    .orElseThrow(() -> new RuntimeException("Habit not found"));
+            if (buffer.add(habitId, today, increment)) {
+                dashboardCache.invalidate(habit.getUser().getId());
+                return buildResponses(List.of(habit), today).get(0);
+            }
+            // 缓冲已满：本次增量改为同步写入
+        }
+        HabitLogRecorder.Recorded recorded = habitLogRecorder.record(habitId, today, increment);
+        Habit habit = recorded.getHabit();
+        if (recorded.getStreak() != null) {
+            // 事务已提交，Habit 已脱离持久化上下文，回填计数器只影响本次响应
+            habit.setCurrentStreak(recorded.getStreak().getCurrentStreak());
+            habit.setLongestStreak(recorded.getStreak().getLongestStreak());
+            habit.setLastCompletedDate(recorded.getStreak().getLastCompletedDate());
         }
+        return buildResponses(List.of(habit), today).get(0);
+    }
 
-        habitLogRepository.save(log);
+    /**
+     * 离线同步的批量打卡：一次查询校验归属，同一 (habit, date) 的条目合并后在单个事务内批量写入。
+     * 单条校验失败不影响其余条目；超过 MAX_LOG_BATCH 条时整批拒绝。
+     */
+    public HabitLogBatchResponse logHabitsBatch(UUID userId, HabitLogBatchRequest request) {
+        List<HabitLogBatchRequest.Entry> entries = request.getEntries() != null ? request.getEntries() : List.of();
+        if (entries.size() > MAX_LOG_BATCH) {
+            throw new BatchTooLargeException("单次最多同步 " + MAX_LOG_BATCH + " 条打卡", MAX_LOG_BATCH);
+        }
+        LocalDate today = LocalDate.now();
 
-        // 同步更新 habit 对象的 logs 集合，确保 mapToResponse 能够正确计算当前值
-        if (habit.getLogs() != null) {
-            if (!habit.getLogs().contains(log)) {
-                habit.getLogs().add(log);
+        Set<UUID> requestedIds = entries.stream()
+                .map(HabitLogBatchRequest.Entry::getHabitId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<UUID> ownedIds = requestedIds.isEmpty() ? Set.of()
+                : habitRepository.findByIdInAndUserId(requestedIds, userId).stream()
+                        .map(Habit::getId)
+                        .collect(Collectors.toSet());
+
+        List<String> errors = new ArrayList<>(entries.size());
+        List<HabitLogWriter.Increment> increments = new ArrayList<>();
+        for (HabitLogBatchRequest.Entry entry : entries) {
+            LocalDate date = entry.getDate() != null ? entry.getDate() : today;
+            String error = null;
+            if (entry.getHabitId() == null || !ownedIds.contains(entry.getHabitId())) {
+                error = "Habit not found";
+            } else if (date.isAfter(today)) {
+                error = "不能记录未来日期";
+            } else {
+                increments.add(new HabitLogWriter.Increment(entry.getHabitId(), date,
+                        entry.getIncrement() != null ? entry.getIncrement() : 1));
             }
+            errors.add(error);
         }
 
-        return mapToResponse(habit, LocalDate.now());
-    }
-
-    private HabitResponse mapToResponse(Habit habit, LocalDate date) {
-        int currentValue = 0;
-
-        if (habit.getLogs() != null) {
-            if (habit.getFrequency() == Frequency.DAILY) {
-                currentValue = habit.getLogs().stream()
-                        .filter(log -> log.getDate().isEqual(date))
-                        .mapToInt(HabitLog::getCurrentValue)
-                        .sum();
-            } else if (habit.getFrequency() == Frequency.WEEKLY) {
-                java.time.temporal.WeekFields weekFields = java.time.temporal.WeekFields.of(java.util.Locale.getDefault());
-                int targetWeek = date.get(weekFields.weekOfWeekBasedYear());
-                int targetYear = date.get(weekFields.weekBasedYear());
-
-                currentValue = habit.getLogs().stream()
-                        .filter(log -> {
-                            int logWeek = log.getDate().get(weekFields.weekOfWeekBasedYear());
-                            int logYear = log.getDate().get(weekFields.weekBasedYear());
-                            return logWeek == targetWeek && logYear == targetYear;
-                        })
-                        .mapToInt(HabitLog::getCurrentValue)
-                        .sum();
-            } else if (habit.getFrequency() == Frequency.MONTHLY) {
-                currentValue = habit.getLogs().stream()
-                        .filter(log -> log.getDate().getYear() == date.getYear() &&
-                                log.getDate().getMonth() == date.getMonth())
-                        .mapToInt(HabitLog::getCurrentValue)
-                        .sum();
+        Map<String, HabitLogWriter.UpsertResult> resultsByKey = habitLogRecorder.recordBatch(increments).stream()
+                .collect(Collectors.toMap(r -> r.getHabitId() + "|" + r.getDate(), r -> r));
+
+        List<HabitLogBatchResponse.EntryResult> results = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            HabitLogBatchRequest.Entry entry = entries.get(i);
+            LocalDate date = entry.getDate() != null ? entry.getDate() : today;
+            HabitLogWriter.UpsertResult result = resultsByKey.get(entry.getHabitId() + "|" + date);
+            if (errors.get(i) != null) {
+                results.add(HabitLogBatchResponse.EntryResult.rejected(entry.getHabitId(), date, errors.get(i)));
+            } else if (result == null) {
+                results.add(HabitLogBatchResponse.EntryResult.rejected(entry.getHabitId(), date, "Habit not found"));
+            } else {
+                results.add(HabitLogBatchResponse.EntryResult.applied(entry.getHabitId(), date,
+                        result.getCurrentValue(), result.isCompleted()));
             }
         }
 
+        // 写事务提交后重新读取习惯，带回最新的连续打卡计数器
+        List<Habit> refreshed = ownedIds.isEmpty() ? List.of() : habitRepository.findAllById(ownedIds);
+        return new HabitLogBatchResponse(results, buildResponses(refreshed, today));
+    }
+
+    /**
+     * 查询单个习惯的年度完成热力图，数据来自完成位图。
+     */
+    @Transactional(readOnly = true)
+    public HabitHeatmapDTO getHabitHeatmap(UUID userId, UUID habitId, int year) {
+        if (habitRepository.findByIdInAndUserId(List.of(habitId), userId).isEmpty()) {
+            throw new RuntimeException("Habit not found");
+        }
+        return habitCompletionService.heatmap(habitId, year);
+    }
+
+    /**
+     * 批量构建习惯响应：日习惯只读取 date 当天的日志，周 / 月习惯读取周期汇总表，
+     * 近七天状态来自完成位图，连续天数直接读取习惯上的计数器。
+     */
+    private List<HabitResponse> buildResponses(List<Habit> habits, LocalDate date) {
+        if (habits.isEmpty()) {
+            return List.of();
+        }
+
+        List<Habit> dailyHabits = habits.stream()
+                .filter(h -> h.getFrequency() != Frequency.WEEKLY && h.getFrequency() != Frequency.MONTHLY)
+                .collect(Collectors.toList());
+        Map<UUID, Integer> values = new HashMap<>(habitPeriodRollupService.currentValues(habits, date));
+        if (!dailyHabits.isEmpty()) {
+            habitLogRepository.findByHabitInAndDateBetweenOrderByDateDesc(dailyHabits, date, date)
+                    .forEach(l -> values.merge(l.getHabit().getId(), l.getCurrentValue(), Integer::sum));
+        }
+        Map<UUID, List<Boolean>> lastSevenDays = habitCompletionService.lastSevenDays(
+                habits.stream().map(Habit::getId).collect(Collectors.toList()), LocalDate.now());
+
+        HabitLogWriteBehindBuffer buffer = writeBehindBuffer.getIfAvailable();
+
+        return habits.stream()
+                .map(h -> {
+                    HabitResponse response = mapToResponse(h, values.getOrDefault(h.getId(), 0),
+                            new ArrayList<>(lastSevenDays.get(h.getId())));
+                    if (buffer != null) {
+                        applyPendingIncrements(response, h, date, buffer);
+                    }
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // 叠加写后缓冲中尚未落库的增量，使响应反映乐观的当前值
+    private void applyPendingIncrements(HabitResponse response, Habit habit, LocalDate date,
+                                        HabitLogWriteBehindBuffer buffer) {
+        int pending = buffer.pending(habit.getId(), HabitPeriods.start(habit.getFrequency(), date),
+                HabitPeriods.end(habit.getFrequency(), date));
+        if (pending == 0) {
+            return;
+        }
+        int currentValue = response.getCurrentValue() + pending;
+        response.setCurrentValue(currentValue);
+        response.setIsCompleted(currentValue >= habit.getGoalValue());
+        if (habit.getFrequency() == Frequency.DAILY && date.isEqual(LocalDate.now())) {
+            response.getLastSevenDays().set(6, currentValue >= habit.getGoalValue());
+        }
+    }
+
+    /**
+     * @param currentValue  日习惯为当天的值，周 / 月习惯为所处周期的累计值
+     * @param lastSevenDays 近七天完成状态，下标 6 为今天
+     */
+    private HabitResponse mapToResponse(Habit habit, int currentValue, List<Boolean> lastSevenDays) {
         boolean isCompleted = currentValue >= habit.getGoalValue();
 
         return HabitResponse.builder()
@@ -163,92 +329,27 @@ public class HabitService {
                 .color(habit.getColor())
                 .currentValue(currentValue)
                 .isCompleted(isCompleted)
-                .currentStreak(calculateCurrentStreak(habit))
-                .lastSevenDays(getLastSevenDaysStatus(habit))
+                .currentStreak(habitStreakService.currentStreak(habit, LocalDate.now()))
+                .longestStreak(habit.getLongestStreak() != null ? habit.getLongestStreak() : 0)
+                .lastSevenDays(lastSevenDays)
+                .version(habit.getVersion())
                 .build();
     }
 
-    private Integer calculateCurrentStreak(Habit habit) {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        // 获取所有完成的记录，按日期倒序
-        List<HabitLog> completedLogs = habitLogRepository.findByHabitAndDateAfterOrderByDateDesc(habit,
-                        today.minusMonths(12)) // 追溯过去一年
-                .stream()
-                .filter(HabitLog::getIsCompleted)
-                .collect(Collectors.toList());
-
-        if (completedLogs.isEmpty()) {
-            return 0;
-        }
-
-        // 检查最近一天是否是今天或昨天。如果最后一次完成是在昨天之前，Streak 已断。
-        LocalDate lastCompletedDate = completedLogs.get(0).getDate();
-        if (!lastCompletedDate.isEqual(today) && !lastCompletedDate.isEqual(yesterday)) {
-            return 0;
-        }
-
-        int streak = 0;
-        LocalDate expectedDate = lastCompletedDate;
-
-        for (HabitLog log : completedLogs) {
-            if (log.getDate().isEqual(expectedDate)) {
-                streak++;
-                expectedDate = expectedDate.minusDays(1);
-            } else {
-                break;
-            }
-        }
-
-        return streak;
+    // 为当前用户的习惯补录 30 天演示历史，未指定种子时每次结果不同
+    public int seedHistory(UUID userId, Long seed) {
+        return syntheticDataGenerator.seedHistory(userId, 30, seed != null ? seed : System.nanoTime());
     }
 
-    private List<Boolean> getLastSevenDaysStatus(Habit habit) {
-        LocalDate today = LocalDate.now();
-        // 生成从 6 天前到今天的映射
-        List<LocalDate> dateRange = IntStream.rangeClosed(0, 6)
-                .mapToObj(i -> today.minusDays(6 - i))
-                .collect(Collectors.toList());
-
-        List<HabitLog> recentLogs = habitLogRepository.findByHabitAndDateAfterOrderByDateDesc(habit,
-                today.minusDays(7));
-
-        return dateRange.stream().map(date -> {
-            return recentLogs.stream()
-                    .filter(log -> log.getDate().isEqual(date))
-                    .findFirst()
-                    .map(HabitLog::getIsCompleted)
-                    .orElse(false);
-        }).collect(Collectors.toList());
+    @Transactional
+    public int rebuildStreaks(UUID userId) {
+        dashboardCache.invalidateAfterCommit(List.of(userId));
+        return habitStreakService.rebuildForUser(userId);
     }
 
     @Transactional
-    public void seedHistory(UUID userId) {
-        User user = userRepository.findById(userId).orElseThrow();
-        List<Habit> habits = habitRepository.findByUserAndIsActiveTrue(user);
-        LocalDate today = LocalDate.now();
-        java.util.Random random = new java.util.Random();
-
-        for (Habit habit : habits) {
-            // Generate logs for past 30 days
-            for (int i = 1; i <= 30; i++) {
-                LocalDate pastDate = today.minusDays(i);
-                // 70% chance to have some activity, 30% chance of nothing
-                if (random.nextDouble() > 0.3) {
-                    // Random value between 0 and goal * 1.5
-                    int val = random.nextInt((int) (habit.getGoalValue() * 1.5) + 1);
-                    if (val > 0) {
-                        HabitLog log = HabitLog.builder()
-                                .habit(habit)
-                                .date(pastDate)
-                                .currentValue(val)
-                                .isCompleted(val >= habit.getGoalValue())
-                                .build();
-                        habitLogRepository.save(log);
-                    }
-                }
-            }
-        }
+    public int rebuildCompletionBitmaps(UUID userId) {
+        dashboardCache.invalidateAfterCommit(List.of(userId));
+        return habitCompletionService.rebuildForUser(userId);
     }
 }
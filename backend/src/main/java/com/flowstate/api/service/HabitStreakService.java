@@ -0,0 +1,83 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.repository.HabitRepository;
+import com.flowstate.api.repository.HabitStreakWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 维护 Habit 上的连续打卡计数器 (currentStreak / longestStreak / lastCompletedDate)。
+ * 常规路径是一条条件 UPDATE 的增量更新；补录历史或取消完成时回退到锁住习惯行后按日志重算。
+ */
+@Service
+public class HabitStreakService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HabitStreakService.class);
+
+    private final HabitRepository habitRepository;
+    private final HabitStreakWriter habitStreakWriter;
+
+    public HabitStreakService(HabitRepository habitRepository, HabitStreakWriter habitStreakWriter) {
+        this.habitRepository = habitRepository;
+        this.habitStreakWriter = habitStreakWriter;
+    }
+
+    /**
+     * 读取当前有效的连续天数：最后一次完成早于昨天则视为已断。
+     */
+    public int currentStreak(Habit habit, LocalDate today) {
+        LocalDate last = habit.getLastCompletedDate();
+        if (last == null || habit.getCurrentStreak() == null || last.isBefore(today.minusDays(1))) {
+            return 0;
+        }
+        return habit.getCurrentStreak();
+    }
+
+    /**
+     * 在同一事务内随日志完成状态翻转更新计数器，调用方需先写入本次的日志变化。
+     * 计数器只在数据库中读改写，不经过受管的 Habit 实体。
+     *
+     * @return 更新后的计数器；习惯已不存在时为空
+     */
+    public Optional<HabitStreakWriter.Counters> onCompletionChanged(UUID habitId, LocalDate date,
+            boolean completed) {
+        if (completed) {
+            // 常规路径：新完成的日期接在最后完成日期之后，一条语句完成
+            Optional<HabitStreakWriter.Counters> advanced = habitStreakWriter.advance(habitId, date);
+            if (advanced.isPresent()) {
+                return advanced;
+            }
+        }
+        // 取消完成、补录历史或计数器尚未初始化时按日志重算
+        return habitStreakWriter.recompute(habitId);
+    }
+
+    /**
+     * 重建该用户全部习惯的计数器：先锁住这些习惯行，重建语句在拿到锁之后执行，使用新快照，
+     * 不会用旧数据覆盖并发打卡刚写入的计数器。
+     */
+    @Transactional
+    public int rebuildForUser(UUID userId) {
+        habitStreakWriter.lockAll(habitRepository.findIdsByUserId(userId));
+        return habitRepository.rebuildStreakCountersForUser(userId);
+    }
+
+    // 启动时为尚无计数器的存量习惯回填
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillMissingCounters() {
+        int updated = habitRepository.rebuildMissingStreakCounters();
+        if (updated > 0) {
+            logger.info("Backfilled streak counters for {} habits", updated);
+        }
+    }
+}
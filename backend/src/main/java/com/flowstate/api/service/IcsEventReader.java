@@ -0,0 +1,254 @@
+package com.flowstate.api.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * iCalendar (RFC 5545) 的 VEVENT 流式读取：逐行展开折行，只保留当前事件的字段。
+ * 嵌套组件（如 VALARM）被跳过；RRULE 不展开，只导入首次发生；全天事件不导入。
+ */
+final class IcsEventReader implements ImportedEventReader {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final BufferedReader reader;
+    private final ZoneId zone;
+    private String lookahead;
+    private int lineNumber;
+    private int lookaheadLine;
+    private int logicalLine;
+
+    IcsEventReader(BufferedReader reader, ZoneId zone) {
+        this.reader = reader;
+        this.zone = zone;
+    }
+
+    @Override
+    public ImportedEvent next() throws IOException {
+        ImportedEvent event = null;
+        String duration = null;
+        int depth = 0;
+        String line;
+        while ((line = readLogical()) != null) {
+            int colon = valueSeparator(line);
+            if (colon < 0) {
+                continue;
+            }
+            String head = line.substring(0, colon);
+            String value = line.substring(colon + 1);
+            int semicolon = head.indexOf(';');
+            String name = (semicolon < 0 ? head : head.substring(0, semicolon)).trim().toUpperCase(Locale.ROOT);
+            String params = semicolon < 0 ? "" : head.substring(semicolon + 1);
+
+            if (name.equals("BEGIN")) {
+                if (event != null) {
+                    depth++;
+                } else if (value.trim().equalsIgnoreCase("VEVENT")) {
+                    event = new ImportedEvent(logicalLine);
+                }
+                continue;
+            }
+            if (name.equals("END") && event != null) {
+                if (depth > 0) {
+                    depth--;
+                    continue;
+                }
+                return finish(event, duration);
+            }
+            if (event == null || depth > 0 || event.error != null) {
+                continue;
+            }
+
+            try {
+                switch (name) {
+                    case "UID":
+                        event.uid = value.trim();
+                        break;
+                    case "SUMMARY":
+                        event.title = unescape(value);
+                        break;
+                    case "DESCRIPTION":
+                        event.subtitle = unescape(value);
+                        break;
+                    case "CATEGORIES":
+                        event.category = unescape(firstListItem(value));
+                        break;
+                    case "COLOR":
+                        event.color = value.trim();
+                        break;
+                    case "DTSTART":
+                        event.start = parseTime(params, value);
+                        if (event.start == null) {
+                            event.error = "全天事件不导入";
+                        }
+                        break;
+                    case "DTEND":
+                        event.end = parseTime(params, value);
+                        break;
+                    case "DURATION":
+                        duration = value.trim();
+                        break;
+                    default:
+                        break;
+                }
+            } catch (DateTimeException e) {
+                event.error = "无法解析 " + name + ": " + value;
+            }
+        }
+        return event != null ? ImportedEvent.failed(event.line, "VEVENT 缺少 END:VEVENT") : null;
+    }
+
+    private static ImportedEvent finish(ImportedEvent event, String duration) {
+        if (event.error != null) {
+            return event;
+        }
+        if (event.start == null) {
+            event.error = "缺少 DTSTART";
+            return event;
+        }
+        if (event.end == null && duration != null) {
+            try {
+                event.end = event.start.plus(parseDuration(duration));
+            } catch (DateTimeException e) {
+                event.error = "无法解析 DURATION: " + duration;
+            }
+        }
+        return event;
+    }
+
+    // 返回服务器本地时间；全天事件（DATE 值）返回 null
+    private LocalDateTime parseTime(String params, String value) {
+        String text = value.trim();
+        String upperParams = params.toUpperCase(Locale.ROOT);
+        if (text.length() == 8 || upperParams.contains("VALUE=DATE;") || upperParams.endsWith("VALUE=DATE")) {
+            return null;
+        }
+        if (text.endsWith("Z") || text.endsWith("z")) {
+            return LocalDateTime.parse(text.substring(0, text.length() - 1), DATE_TIME)
+                    .atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toLocalDateTime();
+        }
+        LocalDateTime local = LocalDateTime.parse(text, DATE_TIME);
+        String tzid = param(params, "TZID");
+        if (tzid == null) {
+            return local;
+        }
+        try {
+            return local.atZone(ZoneId.of(tzid)).withZoneSameInstant(zone).toLocalDateTime();
+        } catch (DateTimeException e) {
+            // 非 IANA 时区名（如 Windows 时区）按浮动时间处理
+            return local;
+        }
+    }
+
+    // ISO 8601 时长，额外支持 java.time 不接受的周单位（P2W）
+    private static Duration parseDuration(String text) {
+        String upper = text.toUpperCase(Locale.ROOT);
+        if (upper.matches("[+-]?P\\d+W")) {
+            int start = upper.indexOf('P') + 1;
+            Duration weeks = Duration.ofDays(7L * Long.parseLong(upper.substring(start, upper.length() - 1)));
+            return upper.startsWith("-") ? weeks.negated() : weeks;
+        }
+        return Duration.parse(upper);
+    }
+
+    private static String param(String params, String name) {
+        for (String part : params.split(";")) {
+            int eq = part.indexOf('=');
+            if (eq > 0 && part.substring(0, eq).trim().equalsIgnoreCase(name)) {
+                String value = part.substring(eq + 1).trim();
+                return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                        ? value.substring(1, value.length() - 1) : value;
+            }
+        }
+        return null;
+    }
+
+    // 属性名与值之间的冒号：参数值可以用双引号包含冒号
+    private static int valueSeparator(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String firstListItem(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '\\') {
+                i++;
+            } else if (value.charAt(i) == ',') {
+                return value.substring(0, i);
+            }
+        }
+        return value;
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value.trim();
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char escaped = value.charAt(++i);
+                sb.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    // 一条展开后的逻辑行：以空格或制表符开头的物理行是上一行的续行
+    private String readLogical() throws IOException {
+        String line;
+        if (lookahead != null) {
+            line = lookahead;
+            logicalLine = lookaheadLine;
+            lookahead = null;
+        } else {
+            line = readPhysical();
+            logicalLine = lineNumber;
+        }
+        if (line == null) {
+            return null;
+        }
+
+        StringBuilder unfolded = null;
+        String next;
+        while ((next = readPhysical()) != null && !next.isEmpty()
+                && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+            if (unfolded == null) {
+                unfolded = new StringBuilder(line);
+            }
+            unfolded.append(next, 1, next.length());
+        }
+        if (next != null) {
+            lookahead = next;
+            lookaheadLine = lineNumber;
+        }
+        return unfolded != null ? unfolded.toString() : line;
+    }
+
+    private String readPhysical() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+        return lineNumber == 1 && line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+}
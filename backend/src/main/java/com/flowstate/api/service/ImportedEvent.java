@@ -0,0 +1,29 @@
+package com.flowstate.api.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导入文件中解析出的一个事件，时间已换算为服务器本地时间。error 非空表示该事件无法导入。
+ */
+final class ImportedEvent {
+
+    final int line;
+    String uid;
+    String title;
+    String subtitle;
+    String category;
+    String color;
+    LocalDateTime start;
+    LocalDateTime end;
+    String error;
+
+    ImportedEvent(int line) {
+        this.line = line;
+    }
+
+    static ImportedEvent failed(int line, String error) {
+        ImportedEvent event = new ImportedEvent(line);
+        event.error = error;
+        return event;
+    }
+}
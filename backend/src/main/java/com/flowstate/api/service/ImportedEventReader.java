@@ -0,0 +1,14 @@
+package com.flowstate.api.service;
+
+import java.io.IOException;
+
+/**
+ * 逐个读取导入文件中的事件，任何时刻只持有当前事件。
+ */
+interface ImportedEventReader {
+
+    /**
+     * 下一个事件，文件结束时返回 null。单个事件格式错误时返回带 error 的事件，读取可以继续。
+     */
+    ImportedEvent next() throws IOException;
+}
@@ -0,0 +1,41 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.LiveFocusResponse;
+
+import java.util.UUID;
+
+/**
+ * 实时专注状态变化事件，由 LiveFocusRegistry 在内存状态更新后发布，FocusStreamHub 据此推送给该用户的其他设备。
+ * 心跳不改变状态，不发布事件。
+ */
+public class LiveFocusChangedEvent {
+
+    public enum Type {
+        STARTED,
+        PAUSED,
+        RESUMED,
+        STOPPED
+    }
+
+    private final Type type;
+    private final UUID userId;
+    private final LiveFocusResponse session;
+
+    public LiveFocusChangedEvent(Type type, UUID userId, LiveFocusResponse session) {
+        this.type = type;
+        this.userId = userId;
+        this.session = session;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public LiveFocusResponse getSession() {
+        return session;
+    }
+}
@@ -0,0 +1,369 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.FocusSessionRequest;
+import com.flowstate.api.dto.FocusSessionResponse;
+import com.flowstate.api.dto.LiveFocusResponse;
+import com.flowstate.api.dto.LiveFocusStartRequest;
+import com.flowstate.api.entity.LiveFocusCheckpoint;
+import com.flowstate.api.repository.LiveFocusCheckpointRepository;
+import com.flowstate.api.repository.LiveFocusCheckpointWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 进行中的专注会话注册表：每个用户同时最多一个会话，状态保存在内存中。
+ * 心跳只更新内存并标记待写，检查点任务定期把变化过的会话合并为一条 upsert；
+ * 停止时在同一事务内写入 FocusSession、登记归档发件箱并删除检查点，对应的 TimeRecord 由 FocusArchiveRelay 异步生成。
+ * <p>
+ * 持久性边界：进程崩溃时最多丢失最近一个检查点周期 (checkpoint-interval-ms) 内的心跳，重启后从检查点恢复；
+ * 超过 heartbeat-timeout-seconds 未收到心跳的会话由清扫任务按最后一次心跳归档。
+ * 注册表只存在于单个实例内，多实例部署时需要按用户粘性路由。
+ */
+@Service
+public class LiveFocusRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveFocusRegistry.class);
+
+    private static final String COMPLETED = "COMPLETED";
+    private static final String INTERRUPTED = "INTERRUPTED";
+
+    private final FocusSessionService focusSessionService;
+    private final LiveFocusCheckpointRepository checkpointRepository;
+    private final LiveFocusCheckpointWriter checkpointWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration heartbeatTimeout;
+
+    private final Map<UUID, LiveSession> sessions = new ConcurrentHashMap<>();
+
+    private final Timer checkpointTimer;
+    private final Counter sweptSessions;
+
+    public LiveFocusRegistry(FocusSessionService focusSessionService,
+            LiveFocusCheckpointRepository checkpointRepository, LiveFocusCheckpointWriter checkpointWriter,
+            ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+            @Value("${app.focus.live.heartbeat-timeout-seconds:120}") int heartbeatTimeoutSeconds) {
+        this.focusSessionService = focusSessionService;
+        this.checkpointRepository = checkpointRepository;
+        this.checkpointWriter = checkpointWriter;
+        this.eventPublisher = eventPublisher;
+        this.heartbeatTimeout = Duration.ofSeconds(heartbeatTimeoutSeconds);
+
+        Gauge.builder("focus.live.active_sessions", sessions, Map::size)
+                .description("Focus sessions currently in progress")
+                .register(meterRegistry);
+        this.checkpointTimer = Timer.builder("focus.live.checkpoint")
+                .description("Latency of live focus session checkpoint writes")
+                .register(meterRegistry);
+        this.sweptSessions = Counter.builder("focus.live.swept_sessions")
+                .description("Live focus sessions finalized after heartbeats stopped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 开始专注；该用户已有进行中的会话时返回空，不覆盖原会话。
+     */
+    public Optional<LiveFocusResponse> start(UUID userId, LiveFocusStartRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        LiveFocusStartRequest start = request != null ? request : new LiveFocusStartRequest();
+        if (start.getPlannedMinutes() != null && start.getPlannedMinutes() <= 0) {
+            throw new RuntimeException("Planned minutes must be positive");
+        }
+        LiveSession session = new LiveSession(UUID.randomUUID(), userId, start.getCategoryId(), start.getHabitId(),
+                start.getPlannedMinutes(), now, 0, now, now);
+        session.dirty = true;
+        if (sessions.putIfAbsent(userId, session) != null) {
+            return Optional.empty();
+        }
+        LiveFocusResponse response = session.toResponse(now);
+        eventPublisher.publishEvent(new LiveFocusChangedEvent(LiveFocusChangedEvent.Type.STARTED, userId, response));
+        return Optional.of(response);
+    }
+
+    public Optional<LiveFocusResponse> current(UUID userId) {
+        LiveSession session = sessions.get(userId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        synchronized (session) {
+            return session.finished ? Optional.empty() : Optional.of(session.toResponse(LocalDateTime.now()));
+        }
+    }
+
+    // 心跳只更新内存，由下一轮检查点落库
+    public Optional<LiveFocusResponse> heartbeat(UUID userId, UUID sessionId) {
+        return update(userId, sessionId, null, (session, now) -> {
+        });
+    }
+
+    public Optional<LiveFocusResponse> pause(UUID userId, UUID sessionId) {
+        return update(userId, sessionId, LiveFocusChangedEvent.Type.PAUSED, LiveSession::pause);
+    }
+
+    public Optional<LiveFocusResponse> resume(UUID userId, UUID sessionId) {
+        return update(userId, sessionId, LiveFocusChangedEvent.Type.RESUMED, LiveSession::resume);
+    }
+
+    /**
+     * 结束专注并归档，status 为空时按 COMPLETED 处理；会话不存在或已被清扫归档时返回空。
+     */
+    public Optional<FocusSessionResponse> stop(UUID userId, UUID sessionId, String status) {
+        String finalStatus = status != null ? status : COMPLETED;
+        if (!COMPLETED.equals(finalStatus) && !INTERRUPTED.equals(finalStatus)) {
+            throw new RuntimeException("Invalid focus session status: " + status);
+        }
+        LiveSession session = find(userId, sessionId);
+        if (session == null || !claim(session, null)) {
+            return Optional.empty();
+        }
+        return Optional.of(finish(session, LocalDateTime.now(), finalStatus));
+    }
+
+    /**
+     * 写入一轮检查点。批次中的会话在写入期间标记为 checkpointing，归档这些会话时等待本轮写完再删除检查点，
+     * 已认领的会话不进入批次；互斥只落在同一会话上，与批次无关的停止和清扫不受影响。
+     */
+    @Scheduled(fixedDelayString = "${app.focus.live.checkpoint-interval-ms:15000}")
+    public void checkpoint() {
+        List<LiveFocusCheckpointWriter.Checkpoint> batch = new ArrayList<>();
+        List<LiveSession> written = new ArrayList<>();
+        for (LiveSession session : sessions.values()) {
+            synchronized (session) {
+                if (session.finished || !session.dirty || session.checkpointing) {
+                    continue;
+                }
+                session.dirty = false;
+                session.checkpointing = true;
+                batch.add(session.toCheckpoint());
+                written.add(session);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        boolean failed = false;
+        try {
+            checkpointTimer.record(() -> checkpointWriter.upsert(batch));
+        } catch (RuntimeException e) {
+            // 写库失败时重新标记，等待下一轮
+            logger.error("Checkpoint of {} live focus sessions failed: {}", batch.size(), e.getMessage());
+            failed = true;
+        } finally {
+            for (LiveSession session : written) {
+                synchronized (session) {
+                    session.checkpointing = false;
+                    session.dirty |= failed;
+                    session.notifyAll();
+                }
+            }
+        }
+    }
+
+    // 心跳中断多为客户端崩溃或断网，截至最后一次心跳的专注时间照常归档
+    @Scheduled(fixedDelayString = "${app.focus.live.sweep-interval-ms:30000}")
+    public void sweep() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(heartbeatTimeout);
+        for (LiveSession session : sessions.values()) {
+            if (!claim(session, staleBefore)) {
+                continue;
+            }
+            try {
+                finish(session, session.lastHeartbeatAt, COMPLETED);
+                sweptSessions.increment();
+            } catch (RuntimeException e) {
+                logger.error("Finalizing stale focus session {} failed: {}", session.sessionId, e.getMessage());
+            }
+        }
+    }
+
+    // 启动时从检查点恢复；客户端没有继续心跳的会话随后由清扫任务归档
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        List<LiveFocusCheckpoint> checkpoints = checkpointRepository.findAll();
+        for (LiveFocusCheckpoint c : checkpoints) {
+            sessions.putIfAbsent(c.getUserId(), new LiveSession(c.getSessionId(), c.getUserId(), c.getCategoryId(),
+                    c.getHabitId(), c.getPlannedMinutes(), c.getStartedAt(), c.getFocusedMs(), c.getResumedAt(),
+                    c.getLastHeartbeatAt()));
+        }
+        if (!checkpoints.isEmpty()) {
+            logger.info("Restored {} live focus sessions from checkpoints", checkpoints.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    // eventType 为空表示状态没有变化，不发布事件
+    private Optional<LiveFocusResponse> update(UUID userId, UUID sessionId, LiveFocusChangedEvent.Type eventType,
+                                               BiConsumer<LiveSession, LocalDateTime> change) {
+        LiveSession session = find(userId, sessionId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LiveFocusResponse response;
+        synchronized (session) {
+            if (session.finished) {
+                return Optional.empty();
+            }
+            change.accept(session, now);
+            session.lastHeartbeatAt = now;
+            session.dirty = true;
+            response = session.toResponse(now);
+        }
+        if (eventType != null) {
+            eventPublisher.publishEvent(new LiveFocusChangedEvent(eventType, userId, response));
+        }
+        return Optional.of(response);
+    }
+
+    private LiveSession find(UUID userId, UUID sessionId) {
+        LiveSession session = sessions.get(userId);
+        return session != null && session.sessionId.equals(sessionId) ? session : null;
+    }
+
+    // 停止与清扫只有一方能认领会话；staleBefore 不为空时仅认领在此之前最后一次心跳的会话
+    private boolean claim(LiveSession session, LocalDateTime staleBefore) {
+        synchronized (session) {
+            if (session.finished || (staleBefore != null && !session.lastHeartbeatAt.isBefore(staleBefore))) {
+                return false;
+            }
+            session.finished = true;
+        }
+        sessions.remove(session.userId, session);
+        return true;
+    }
+
+    private FocusSessionResponse finish(LiveSession session, LocalDateTime endTime, String status) {
+        FocusSessionRequest request = new FocusSessionRequest();
+        request.setStartTime(session.startedAt);
+        request.setEndTime(endTime);
+        request.setDuration((int) (session.focusedMsAt(endTime) / 60_000));
+        request.setCategoryId(session.categoryId);
+        request.setHabitId(session.habitId);
+        request.setStatus(status);
+        FocusSessionResponse response;
+        try {
+            awaitCheckpoint(session);
+            response = focusSessionService.completeLiveSession(session.userId, session.sessionId, request);
+        } catch (RuntimeException e) {
+            // 归档失败时放回注册表，等待客户端重试停止或下一轮清扫；检查点可能已被删除，重新标记待写
+            synchronized (session) {
+                session.finished = false;
+                session.dirty = true;
+            }
+            sessions.putIfAbsent(session.userId, session);
+            throw e;
+        }
+        eventPublisher.publishEvent(new LiveFocusChangedEvent(LiveFocusChangedEvent.Type.STOPPED, session.userId,
+                session.toResponse(endTime)));
+        return response;
+    }
+
+    // 会话已被认领，之后的检查点轮次不会再写入它；只需等待已在写入的一轮完成，避免删除后被写回
+    private void awaitCheckpoint(LiveSession session) {
+        synchronized (session) {
+            while (session.checkpointing) {
+                try {
+                    session.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for focus session checkpoint", e);
+                }
+            }
+        }
+    }
+
+    // 可变字段只在持有该对象的锁时读写
+    private static final class LiveSession {
+        private final UUID sessionId;
+        private final UUID userId;
+        private final UUID categoryId;
+        private final UUID habitId;
+        private final Integer plannedMinutes;
+        private final LocalDateTime startedAt;
+        private long focusedMs; // resumedAt 之前已累计的专注毫秒数
+        private LocalDateTime resumedAt; // 当前计时片段的开始时间，暂停时为空
+        private LocalDateTime lastHeartbeatAt;
+        private boolean dirty; // 自上次检查点以来有变化
+        private boolean finished; // 已被停止或清扫认领，不再接受更新
+        private boolean checkpointing; // 正在由一轮检查点写入
+
+        private LiveSession(UUID sessionId, UUID userId, UUID categoryId, UUID habitId, Integer plannedMinutes,
+                            LocalDateTime startedAt, long focusedMs, LocalDateTime resumedAt,
+                            LocalDateTime lastHeartbeatAt) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.categoryId = categoryId;
+            this.habitId = habitId;
+            this.plannedMinutes = plannedMinutes;
+            this.startedAt = startedAt;
+            this.focusedMs = focusedMs;
+            this.resumedAt = resumedAt;
+            this.lastHeartbeatAt = lastHeartbeatAt;
+        }
+
+        private long focusedMsAt(LocalDateTime time) {
+            if (resumedAt == null) {
+                return focusedMs;
+            }
+            return focusedMs + Math.max(0, Duration.between(resumedAt, time).toMillis());
+        }
+
+        private void pause(LocalDateTime now) {
+            if (resumedAt != null) {
+                focusedMs = focusedMsAt(now);
+                resumedAt = null;
+            }
+        }
+
+        private void resume(LocalDateTime now) {
+            if (resumedAt == null) {
+                resumedAt = now;
+            }
+        }
+
+        private LiveFocusResponse toResponse(LocalDateTime now) {
+            LiveFocusResponse response = new LiveFocusResponse();
+            response.setSessionId(sessionId);
+            response.setCategoryId(categoryId);
+            response.setHabitId(habitId);
+            response.setStartedAt(startedAt);
+            long focusedSeconds = focusedMsAt(now) / 1000;
+            response.setPaused(resumedAt == null);
+            response.setFocusedSeconds(focusedSeconds);
+            response.setPlannedMinutes(plannedMinutes);
+            response.setRemainingSeconds(plannedMinutes != null
+                    ? Math.max(0, plannedMinutes * 60L - focusedSeconds) : null);
+            response.setLastHeartbeatAt(lastHeartbeatAt);
+            return response;
+        }
+
+        private LiveFocusCheckpointWriter.Checkpoint toCheckpoint() {
+            return new LiveFocusCheckpointWriter.Checkpoint(userId, sessionId, categoryId, habitId, plannedMinutes,
+                    startedAt, focusedMs, resumedAt, lastHeartbeatAt);
+        }
+    }
+}
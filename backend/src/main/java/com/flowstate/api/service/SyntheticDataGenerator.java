@@ -0,0 +1,470 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.HabitCompletionBitmap;
+import com.flowstate.api.enums.Frequency;
+import com.flowstate.api.enums.GoalType;
+import com.flowstate.api.repository.HabitLogWriter;
+import com.flowstate.api.repository.HabitRepository;
+import com.flowstate.api.repository.SyntheticDataWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测用合成数据生成器：按种子确定性地生成用户、分类、习惯、多年打卡历史、时间记录与专注记录。
+ * 同一种子与结束日期总是生成相同的数据（包括主键），重复运行不会产生重复行。
+ * <p>
+ * 写入走 {@link SyntheticDataWriter} 的 unnest 批量插入，完成位图在生成时直接计算；
+ * 连续打卡计数器与周期汇总在全部写入后用已有的集合语句回填。
+ */
+@Service
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final String[][] CATEGORIES = {
+            { "Work", "indigo", "work" },
+            { "Study", "violet", "school" },
+            { "Health", "emerald", "favorite" },
+            { "Exercise", "rose", "fitness_center" },
+            { "Reading", "amber", "menu_book" },
+            { "Life", "sky", "home" },
+    };
+
+    private static final HabitTemplate[] HABITS = {
+            new HabitTemplate("Deep Work", "Work", GoalType.DURATION, Frequency.DAILY, 240, "min", "💻"),
+            new HabitTemplate("Drink Water", "Health", GoalType.QUANTITATIVE, Frequency.DAILY, 2000, "ml", "💧"),
+            new HabitTemplate("Read", "Reading", GoalType.DURATION, Frequency.DAILY, 30, "min", "📚"),
+            new HabitTemplate("Meditate", "Health", GoalType.STATUS, Frequency.DAILY, 1, "次", "🧘"),
+            new HabitTemplate("Run", "Exercise", GoalType.QUANTITATIVE, Frequency.WEEKLY, 20, "km", "🏃"),
+            new HabitTemplate("Gym", "Exercise", GoalType.QUANTITATIVE, Frequency.WEEKLY, 3, "次", "🏋"),
+            new HabitTemplate("Journal", "Life", GoalType.STATUS, Frequency.DAILY, 1, "次", "📝"),
+            new HabitTemplate("Study Language", "Study", GoalType.DURATION, Frequency.DAILY, 20, "min", "🗣"),
+            new HabitTemplate("Call Family", "Life", GoalType.QUANTITATIVE, Frequency.MONTHLY, 4, "次", "📞"),
+            new HabitTemplate("Side Project", "Work", GoalType.DURATION, Frequency.WEEKLY, 300, "min", "🛠"),
+    };
+
+    private static final String[] RECORD_TITLES = {
+            "Planning", "Meeting", "Coding", "Review", "Reading", "Workout", "Commute", "Lunch", "Study", "Email",
+    };
+
+    private final SyntheticDataWriter writer;
+    private final HabitRepository habitRepository;
+    private final HabitLogRecorder habitLogRecorder;
+    private final HabitStreakService habitStreakService;
+    private final HabitPeriodRollupService habitPeriodRollupService;
+    private final PasswordEncoder passwordEncoder;
+
+    public SyntheticDataGenerator(SyntheticDataWriter writer, HabitRepository habitRepository,
+            HabitLogRecorder habitLogRecorder, HabitStreakService habitStreakService,
+            HabitPeriodRollupService habitPeriodRollupService, PasswordEncoder passwordEncoder) {
+        this.writer = writer;
+        this.habitRepository = habitRepository;
+        this.habitLogRecorder = habitLogRecorder;
+        this.habitStreakService = habitStreakService;
+        this.habitPeriodRollupService = habitPeriodRollupService;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * 生成 options.users 个压测用户及其全部历史，按用户分片并行写入。
+     */
+    public Report generate(Options options) {
+        long started = System.nanoTime();
+        String passwordHash = passwordEncoder.encode(options.getPassword());
+        LocalDate to = options.getEndDate();
+        LocalDate from = to.minusDays((long) options.getYears() * 365 - 1);
+
+        AtomicInteger nextUser = new AtomicInteger();
+        List<Callable<SyntheticDataWriter.Batch>> workers = new ArrayList<>();
+        for (int t = 0; t < options.getThreads(); t++) {
+            workers.add(() -> {
+                SyntheticDataWriter.Batch batch = writer.newBatch(options.getBatchSize());
+                for (int i = nextUser.getAndIncrement(); i < options.getUsers(); i = nextUser.getAndIncrement()) {
+                    generateUser(batch, options, i, passwordHash, from, to);
+                    batch.flushIfFull();
+                }
+                batch.flush();
+                return batch;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        Map<String, Long> rows = new LinkedHashMap<>();
+        try {
+            for (Future<SyntheticDataWriter.Batch> future : executor.invokeAll(workers)) {
+                SyntheticDataWriter.Batch batch = future.get();
+                rows.merge("users", batch.users.getWritten(), Long::sum);
+                rows.merge("categories", batch.categories.getWritten(), Long::sum);
+                rows.merge("habits", batch.habits.getWritten(), Long::sum);
+                rows.merge("habit_logs", batch.habitLogs.getWritten(), Long::sum);
+                rows.merge("habit_completion_bitmaps", batch.completionBitmaps.getWritten(), Long::sum);
+                rows.merge("time_records", batch.timeRecords.getWritten(), Long::sum);
+                rows.merge("focus_sessions", batch.focusSessions.getWritten(), Long::sum);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Synthetic data generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Synthetic data generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long writeNanos = System.nanoTime() - started;
+
+        // 派生数据：新习惯的计数器为空、周期汇总缺行，交给已有的回填语句处理
+        habitStreakService.backfillMissingCounters();
+        habitPeriodRollupService.backfillMissing();
+
+        Report report = new Report(rows, writeNanos / 1_000_000, (System.nanoTime() - started) / 1_000_000);
+        logger.info("Synthetic data (seed {}): {} rows in {} ms ({} rows/s), derived data ready after {} ms, per table {}",
+                options.getSeed(), report.getTotalRows(), report.getWriteMillis(), report.getRowsPerSecond(),
+                report.getTotalMillis(), rows);
+        return report;
+    }
+
+    /**
+     * 为已有用户的活跃习惯补录过去 days 天（不含今天）的打卡，走常规批量打卡路径以维护全部派生数据。
+     */
+    @Transactional
+    public int seedHistory(UUID userId, int days, long seed) {
+        List<Habit> habits = habitRepository.findByUserIdAndIsActiveTrue(userId);
+        LocalDate today = LocalDate.now();
+        List<HabitLogWriter.Increment> increments = new ArrayList<>();
+        for (Habit habit : habits) {
+            SplittableRandom random = new SplittableRandom(seed + habit.getId().getLeastSignificantBits() * GOLDEN_GAMMA);
+            int goal = habit.getGoalValue() != null ? habit.getGoalValue() : 1;
+            generateDays(random, goal, today.minusDays(days), today.minusDays(1),
+                    (date, value) -> increments.add(new HabitLogWriter.Increment(habit.getId(), date, value)));
+        }
+        return habitLogRecorder.recordBatch(increments).size();
+    }
+
+    private void generateUser(SyntheticDataWriter.Batch batch, Options options, int index, String passwordHash,
+                              LocalDate from, LocalDate to) {
+        SplittableRandom random = new SplittableRandom(options.getSeed() + index * GOLDEN_GAMMA);
+        Timestamp joinedAt = Timestamp.valueOf(from.atTime(9, 0));
+
+        UUID userId = uuid(random);
+        batch.users.add(userId, "loadtest-" + options.getSeed() + "-" + index + "@flowstate.test", passwordHash,
+                "Load Test " + index, "Synthetic user", joinedAt, joinedAt);
+
+        int categoryCount = Math.min(options.getCategoriesPerUser(), CATEGORIES.length);
+        UUID[] categoryIds = new UUID[categoryCount];
+        String[][] categories = shuffled(random, CATEGORIES);
+        for (int c = 0; c < categoryCount; c++) {
+            categoryIds[c] = uuid(random);
+            batch.categories.add(categoryIds[c], userId, categories[c][0], categories[c][1], categories[c][2], joinedAt);
+        }
+
+        HabitTemplate[] templates = shuffled(random, HABITS);
+        List<UUID> durationHabits = new ArrayList<>();
+        int totalDays = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+        for (int h = 0; h < options.getHabitsPerUser(); h++) {
+            HabitTemplate template = templates[h % templates.length];
+            String name = h < templates.length ? template.name : template.name + " " + (h / templates.length + 1);
+            LocalDate createdOn = from.plusDays(random.nextInt(Math.max(1, totalDays / 4)));
+            Timestamp createdAt = Timestamp.valueOf(createdOn.atTime(8, 0));
+
+            UUID habitId = uuid(random);
+            batch.habits.add(habitId, userId, name, template.category, template.goalType.name(),
+                    template.frequency.name(), template.goalValue, template.unit, template.icon, "bg-primary", true,
+                    createdAt, createdAt);
+            if (template.goalType == GoalType.DURATION) {
+                durationHabits.add(habitId);
+            }
+
+            // 周 / 月习惯的目标按周期计：单日取值按周期目标均摊（向上取整），是否达标体现在周期汇总上。
+            // 日志与位图的完成状态与线上打卡写入一致，按整个目标判断，周 / 月习惯的单日通常不会达标
+            int dailyGoal = template.frequency == Frequency.WEEKLY ? (template.goalValue + 6) / 7
+                    : template.frequency == Frequency.MONTHLY ? (template.goalValue + 29) / 30 : template.goalValue;
+            Map<Integer, BitSet> bitmaps = new HashMap<>();
+            generateDays(random, dailyGoal, createdOn, to, (date, value) -> {
+                boolean completed = value >= template.goalValue;
+                batch.habitLogs.add(uuid(random), habitId, Date.valueOf(date), value,
+                        completed, Timestamp.valueOf(date.atTime(21, 0)));
+                if (completed) {
+                    bitmaps.computeIfAbsent(date.getYear(), y -> new BitSet()).set(date.getDayOfYear() - 1);
+                }
+            });
+            bitmaps.forEach((year, bits) -> batch.completionBitmaps.add(uuid(random), habitId, year,
+                    Arrays.copyOf(bits.toByteArray(), HabitCompletionBitmap.BYTES), Timestamp.valueOf(to.atStartOfDay())));
+        }
+
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            generateTimeRecords(batch, random, options, userId, categories, categoryCount, durationHabits, date);
+            generateFocusSessions(batch, random, options, userId, categoryIds, durationHabits, date);
+        }
+    }
+
+    /**
+     * 单个习惯的逐日取值：完成概率带惯性（昨天完成今天更可能完成），未完成的日子部分有进度、部分没有记录。
+     */
+    private void generateDays(SplittableRandom random, int goal, LocalDate from, LocalDate to, DayConsumer consumer) {
+        double adherence = 0.45 + random.nextDouble() * 0.5;
+        boolean completedYesterday = false;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            double chance = completedYesterday ? Math.min(0.97, adherence + 0.15) : adherence - 0.1;
+            if (random.nextDouble() < chance) {
+                consumer.accept(date, goal + random.nextInt(goal / 3 + 1));
+                completedYesterday = true;
+            } else {
+                if (goal > 1 && random.nextDouble() < 0.4) {
+                    consumer.accept(date, 1 + random.nextInt(goal - 1));
+                }
+                completedYesterday = false;
+            }
+        }
+    }
+
+    private void generateTimeRecords(SyntheticDataWriter.Batch batch, SplittableRandom random, Options options,
+                                     UUID userId, String[][] categories, int categoryCount, List<UUID> durationHabits,
+                                     LocalDate date) {
+        int count = random.nextInt(options.getTimeRecordsPerDay() * 2 + 1);
+        int start = 7 * 60 + random.nextInt(120);
+        Timestamp createdAt = Timestamp.valueOf(date.atTime(23, 0));
+        for (int i = 0; i < count; i++) {
+            int duration = 15 + random.nextInt(106);
+            if (start + duration > 24 * 60) {
+                break;
+            }
+            String[] category = categories[random.nextInt(Math.max(1, categoryCount))];
+            UUID habitId = !durationHabits.isEmpty() && random.nextInt(10) < 3
+                    ? durationHabits.get(random.nextInt(durationHabits.size())) : null;
+            batch.timeRecords.add(uuid(random), userId, habitId, RECORD_TITLES[random.nextInt(RECORD_TITLES.length)],
+                    null, start, duration, category[0], category[1], Date.valueOf(date), createdAt);
+            start += duration + random.nextInt(60);
+        }
+    }
+
+    private void generateFocusSessions(SyntheticDataWriter.Batch batch, SplittableRandom random, Options options,
+                                       UUID userId, UUID[] categoryIds, List<UUID> durationHabits, LocalDate date) {
+        int count = random.nextInt(options.getFocusSessionsPerDay() * 2 + 1);
+        LocalDateTime start = date.atTime(8, 0).plusMinutes(random.nextInt(120));
+        for (int i = 0; i < count; i++) {
+            int planned = new int[] { 25, 45, 50, 90 }[random.nextInt(4)];
+            boolean interrupted = random.nextInt(100) < 15;
+            int duration = interrupted ? 1 + random.nextInt(planned) : planned;
+            LocalDateTime end = start.plusMinutes(duration);
+            if (!end.toLocalDate().equals(date)) {
+                break;
+            }
+            UUID categoryId = categoryIds.length > 0 ? categoryIds[random.nextInt(categoryIds.length)] : null;
+            UUID habitId = !durationHabits.isEmpty() && random.nextInt(10) < 2
+                    ? durationHabits.get(random.nextInt(durationHabits.size())) : null;
+            batch.focusSessions.add(uuid(random), userId, categoryId, habitId, Timestamp.valueOf(start),
+                    Date.valueOf(date), Timestamp.valueOf(end), duration, interrupted ? "INTERRUPTED" : "COMPLETED",
+                    Timestamp.valueOf(end));
+            start = end.plusMinutes(5 + random.nextInt(90));
+        }
+    }
+
+    // 由随机数生成的 v4 UUID，保证同一种子下主键稳定
+    private static UUID uuid(SplittableRandom random) {
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+
+    private static <T> T[] shuffled(SplittableRandom random, T[] source) {
+        T[] copy = Arrays.copyOf(source, source.length);
+        for (int i = copy.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            T tmp = copy[i];
+            copy[i] = copy[j];
+            copy[j] = tmp;
+        }
+        return copy;
+    }
+
+    @FunctionalInterface
+    private interface DayConsumer {
+        void accept(LocalDate date, int value);
+    }
+
+    private static class HabitTemplate {
+        private final String name;
+        private final String category;
+        private final GoalType goalType;
+        private final Frequency frequency;
+        private final int goalValue;
+        private final String unit;
+        private final String icon;
+
+        private HabitTemplate(String name, String category, GoalType goalType, Frequency frequency, int goalValue,
+                              String unit, String icon) {
+            this.name = name;
+            this.category = category;
+            this.goalType = goalType;
+            this.frequency = frequency;
+            this.goalValue = goalValue;
+            this.unit = unit;
+            this.icon = icon;
+        }
+    }
+
+    /**
+     * 生成参数，默认值对应一次小规模冒烟运行。
+     */
+    public static class Options {
+        private long seed = 42L;
+        private int users = 10;
+        private int years = 2;
+        private int habitsPerUser = 6;
+        private int categoriesPerUser = 4;
+        private int timeRecordsPerDay = 3;
+        private int focusSessionsPerDay = 1;
+        private LocalDate endDate = LocalDate.now().minusDays(1);
+        private String password = "password";
+        private int batchSize = 5000;
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public void setUsers(int users) {
+            this.users = users;
+        }
+
+        public int getYears() {
+            return years;
+        }
+
+        public void setYears(int years) {
+            this.years = years;
+        }
+
+        public int getHabitsPerUser() {
+            return habitsPerUser;
+        }
+
+        public void setHabitsPerUser(int habitsPerUser) {
+            this.habitsPerUser = habitsPerUser;
+        }
+
+        public int getCategoriesPerUser() {
+            return categoriesPerUser;
+        }
+
+        public void setCategoriesPerUser(int categoriesPerUser) {
+            this.categoriesPerUser = categoriesPerUser;
+        }
+
+        public int getTimeRecordsPerDay() {
+            return timeRecordsPerDay;
+        }
+
+        public void setTimeRecordsPerDay(int timeRecordsPerDay) {
+            this.timeRecordsPerDay = timeRecordsPerDay;
+        }
+
+        public int getFocusSessionsPerDay() {
+            return focusSessionsPerDay;
+        }
+
+        public void setFocusSessionsPerDay(int focusSessionsPerDay) {
+            this.focusSessionsPerDay = focusSessionsPerDay;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+
+        public void setEndDate(LocalDate endDate) {
+            this.endDate = endDate;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * 一次生成的统计：各表写入行数与吞吐。
+     */
+    public static class Report {
+        private final Map<String, Long> rows;
+        private final long writeMillis;
+        private final long totalMillis;
+
+        public Report(Map<String, Long> rows, long writeMillis, long totalMillis) {
+            this.rows = rows;
+            this.writeMillis = writeMillis;
+            this.totalMillis = totalMillis;
+        }
+
+        public Map<String, Long> getRows() {
+            return rows;
+        }
+
+        public long getTotalRows() {
+            return rows.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long getWriteMillis() {
+            return writeMillis;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getRowsPerSecond() {
+            return writeMillis > 0 ? getTotalRows() * 1000 / writeMillis : getTotalRows();
+        }
+    }
+}
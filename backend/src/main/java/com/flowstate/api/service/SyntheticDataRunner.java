@@ -0,0 +1,53 @@
+package com.flowstate.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 压测数据集的启动入口：开启 app.seed.synthetic.enabled 后在启动完成时按配置生成一次数据。
+ */
+@Component
+@ConditionalOnProperty(name = "app.seed.synthetic.enabled", havingValue = "true")
+public class SyntheticDataRunner {
+
+    private final SyntheticDataGenerator generator;
+    private final SyntheticDataGenerator.Options options = new SyntheticDataGenerator.Options();
+
+    public SyntheticDataRunner(SyntheticDataGenerator generator,
+            @Value("${app.seed.synthetic.seed:42}") long seed,
+            @Value("${app.seed.synthetic.users:10}") int users,
+            @Value("${app.seed.synthetic.years:2}") int years,
+            @Value("${app.seed.synthetic.habits-per-user:6}") int habitsPerUser,
+            @Value("${app.seed.synthetic.categories-per-user:4}") int categoriesPerUser,
+            @Value("${app.seed.synthetic.time-records-per-day:3}") int timeRecordsPerDay,
+            @Value("${app.seed.synthetic.focus-sessions-per-day:1}") int focusSessionsPerDay,
+            @Value("${app.seed.synthetic.end-date:}") String endDate,
+            @Value("${app.seed.synthetic.batch-size:5000}") int batchSize,
+            @Value("${app.seed.synthetic.threads:0}") int threads) {
+        this.generator = generator;
+        options.setSeed(seed);
+        options.setUsers(users);
+        options.setYears(years);
+        options.setHabitsPerUser(habitsPerUser);
+        options.setCategoriesPerUser(categoriesPerUser);
+        options.setTimeRecordsPerDay(timeRecordsPerDay);
+        options.setFocusSessionsPerDay(focusSessionsPerDay);
+        if (!endDate.isBlank()) {
+            options.setEndDate(LocalDate.parse(endDate));
+        }
+        options.setBatchSize(batchSize);
+        if (threads > 0) {
+            options.setThreads(threads);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        generator.generate(options);
+    }
+}
@@ -0,0 +1,52 @@
+package com.flowstate.api.service;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 时间记录写入事件，在写事务内发布，由各派生索引（日布局、占用位图等）在提交后消费。
+ * 更新记录时对旧日期与新日期各发布一次 REMOVED / ADDED；批量导入每批对每个涉及的日期发布一次 DAY_CHANGED。
+ */
+public class TimeRecordChangedEvent {
+
+    public enum Type {
+        ADDED,
+        REMOVED,
+        // 同一天新增了多条记录，只带日期（startTime / duration 为 0），派生索引按天重建
+        DAY_CHANGED
+    }
+
+    private final Type type;
+    private final UUID userId;
+    private final LocalDate date;
+    private final int startTime;
+    private final int duration;
+
+    public TimeRecordChangedEvent(Type type, UUID userId, LocalDate date, int startTime, int duration) {
+        this.type = type;
+        this.userId = userId;
+        this.date = date;
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getStartTime() {
+        return startTime;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+}
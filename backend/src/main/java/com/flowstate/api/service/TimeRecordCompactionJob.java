@@ -0,0 +1,124 @@
+package com.flowstate.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 后台增量合并碎片时间记录（默认关闭）。只处理最近新增过记录的 (user, date)：
+ * 新增事件把当天标记为待合并，当天 settle-minutes 内没有再变化后才合并，避免与正在进行的拖拽编辑交错。
+ * <p>
+ * 待合并日期只保存在内存中，重启后丢失的日期不再补做；合并是尽力而为的整理，不影响正确性。
+ */
+@Component
+@ConditionalOnProperty(name = "app.time-records.compaction.enabled", havingValue = "true")
+public class TimeRecordCompactionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeRecordCompactionJob.class);
+
+    private final TimeRecordCompactionService compactionService;
+    private final long settleMillis;
+    private final int maxDaysPerRun;
+    private final int maxPendingDays;
+    private final int undoRetentionDays;
+
+    // "userId|date" -> 最后一次新增记录的时间戳
+    private final Map<String, Long> dirtyDays = new ConcurrentHashMap<>();
+
+    private final Timer runTimer;
+    private final Counter absorbedRecords;
+    private final Counter droppedDays;
+
+    public TimeRecordCompactionJob(TimeRecordCompactionService compactionService, MeterRegistry meterRegistry,
+            @Value("${app.time-records.compaction.settle-minutes:10}") int settleMinutes,
+            @Value("${app.time-records.compaction.max-days-per-run:500}") int maxDaysPerRun,
+            @Value("${app.time-records.compaction.max-pending-days:100000}") int maxPendingDays,
+            @Value("${app.time-records.compaction.undo-retention-days:30}") int undoRetentionDays) {
+        this.compactionService = compactionService;
+        this.settleMillis = settleMinutes * 60_000L;
+        this.maxDaysPerRun = maxDaysPerRun;
+        this.maxPendingDays = maxPendingDays;
+        this.undoRetentionDays = undoRetentionDays;
+
+        Gauge.builder("time_record.compaction.pending_days", dirtyDays, Map::size)
+                .description("Days with new time records waiting for compaction")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("time_record.compaction.run")
+                .description("Latency of one compaction pass")
+                .register(meterRegistry);
+        this.absorbedRecords = Counter.builder("time_record.compaction.absorbed_records")
+                .description("Time records merged into an adjacent record and deleted")
+                .register(meterRegistry);
+        this.droppedDays = Counter.builder("time_record.compaction.dropped_days")
+                .description("Changed days not queued because the pending set was full")
+                .register(meterRegistry);
+    }
+
+    // 只有新增（含批量导入的整天变化）会产生新的碎片；删除与移动出去的一侧不需要合并
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTimeRecordChanged(TimeRecordChangedEvent event) {
+        if (event.getType() == TimeRecordChangedEvent.Type.REMOVED) {
+            return;
+        }
+        String key = event.getUserId() + "|" + event.getDate();
+        if (dirtyDays.size() >= maxPendingDays && !dirtyDays.containsKey(key)) {
+            droppedDays.increment();
+            return;
+        }
+        dirtyDays.put(key, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${app.time-records.compaction.interval-ms:60000}")
+    public void run() {
+        runTimer.record(this::compactSettledDays);
+    }
+
+    @Scheduled(fixedDelayString = "${app.time-records.compaction.purge-interval-ms:3600000}")
+    public void purgeUndoLog() {
+        int purged = compactionService.purgeUndoLog(undoRetentionDays);
+        if (purged > 0) {
+            logger.info("Purged {} time record compaction undo entries older than {} days", purged,
+                    undoRetentionDays);
+        }
+    }
+
+    private void compactSettledDays() {
+        long settledBefore = System.currentTimeMillis() - settleMillis;
+        int processed = 0;
+        for (Map.Entry<String, Long> entry : dirtyDays.entrySet()) {
+            if (processed >= maxDaysPerRun) {
+                break;
+            }
+            Long changedAt = entry.getValue();
+            // 先移除再合并：合并期间的新写入会重新标记，留到下一轮
+            if (changedAt > settledBefore || !dirtyDays.remove(entry.getKey(), changedAt)) {
+                continue;
+            }
+            processed++;
+            String[] key = entry.getKey().split("\\|");
+            try {
+                absorbedRecords.increment(compactionService.compactDay(UUID.fromString(key[0]),
+                        LocalDate.parse(key[1]), true));
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // 合并期间记录被修改，整天已回滚，稍后重试
+                dirtyDays.putIfAbsent(entry.getKey(), System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                logger.error("Compaction of {} failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.flowstate.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.flowstate.api.dto.TimeRecordCompactionResponse;
+import com.flowstate.api.dto.TimeRecordResponse;
+import com.flowstate.api.entity.TimeRecord;
+import com.flowstate.api.entity.TimeRecordCompaction;
+import com.flowstate.api.repository.TimeRecordCompactionRepository;
+import com.flowstate.api.repository.TimeRecordCompactionWriter;
+import com.flowstate.api.repository.TimeRecordRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 碎片时间记录的合并与撤销。专注自动归档等来源会在同一天留下大量首尾相接的小块，
+ * 合并后一组只保留时间最早的一条并延长到整组的结束，其余删除；原始记录写入撤销日志。
+ */
+@Service
+public class TimeRecordCompactionService {
+
+    private static final int MAX_LISTED = 50;
+
+    private static final Comparator<TimeRecord> BY_START = Comparator
+            .comparing(TimeRecord::getStartTime)
+            .thenComparing(TimeRecord::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(TimeRecord::getId);
+
+    private final TimeRecordRepository timeRecordRepository;
+    private final TimeRecordCompactionRepository compactionRepository;
+    private final TimeRecordCompactionWriter compactionWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader snapshotReader;
+    private final ObjectWriter snapshotWriter;
+
+    public TimeRecordCompactionService(TimeRecordRepository timeRecordRepository,
+            TimeRecordCompactionRepository compactionRepository, TimeRecordCompactionWriter compactionWriter,
+            ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper) {
+        this.timeRecordRepository = timeRecordRepository;
+        this.compactionRepository = compactionRepository;
+        this.compactionWriter = compactionWriter;
+        this.eventPublisher = eventPublisher;
+        TypeReference<List<TimeRecordResponse>> type = new TypeReference<List<TimeRecordResponse>>() {
+        };
+        this.snapshotReader = objectMapper.readerFor(type);
+        this.snapshotWriter = objectMapper.writerFor(type);
+    }
+
+    /**
+     * 合并一天内标题、分类、习惯都相同且首尾相接或重叠的记录，每组写一条撤销日志。
+     * 导入的记录（带 import_uid）不参与，以免重复导入时被合并掉的部分再次写入。
+     *
+     * @param automatic 后台任务调用时为 true，跳过用户撤销过合并的日期
+     * @return 被合并掉（删除）的记录数
+     */
+    @Transactional
+    public int compactDay(UUID userId, LocalDate date, boolean automatic) {
+        if (automatic && compactionRepository.existsByUserIdAndRecordDateAndUndoneAtIsNotNull(userId, date)) {
+            return 0;
+        }
+        List<TimeRecord> records = timeRecordRepository.findByUserIdAndRecordDate(userId, date);
+        if (records.size() < 2) {
+            return 0;
+        }
+
+        Map<List<Object>, List<TimeRecord>> groups = new HashMap<>();
+        for (TimeRecord record : records) {
+            if (record.getImportUid() != null) {
+                continue;
+            }
+            List<Object> key = Arrays.asList(record.getTitle(), record.getCategory(),
+                    record.getHabit() != null ? record.getHabit().getId() : null);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+
+        int absorbed = 0;
+        for (List<TimeRecord> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            group.sort(BY_START);
+            List<TimeRecord> run = new ArrayList<>();
+            int runEnd = 0;
+            for (TimeRecord record : group) {
+                int end = record.getStartTime() + record.getDuration();
+                if (!run.isEmpty() && record.getStartTime() > runEnd) {
+                    absorbed += merge(userId, date, run, runEnd);
+                    run.clear();
+                }
+                runEnd = run.isEmpty() ? end : Math.max(runEnd, end);
+                run.add(record);
+            }
+            absorbed += merge(userId, date, run, runEnd);
+        }
+        return absorbed;
+    }
+
+    // run 已按开始时间排序；第一条保留并延长到 runEnd，其余删除
+    private int merge(UUID userId, LocalDate date, List<TimeRecord> run, int runEnd) {
+        if (run.size() < 2) {
+            return 0;
+        }
+        TimeRecord survivor = run.get(0);
+        List<TimeRecordResponse> originals = run.stream().map(this::toSnapshot).collect(Collectors.toList());
+        for (TimeRecord record : run) {
+            publishChange(TimeRecordChangedEvent.Type.REMOVED, userId, record.getRecordDate(), record.getStartTime(),
+                    record.getDuration());
+        }
+
+        survivor.setDuration(runEnd - survivor.getStartTime());
+        timeRecordRepository.deleteAll(run.subList(1, run.size()));
+        // 删除与更新都带版本条件，期间被其他请求修改时整天回滚
+        timeRecordRepository.saveAndFlush(survivor);
+
+        TimeRecordCompaction compaction = new TimeRecordCompaction();
+        compaction.setUser(survivor.getUser());
+        compaction.setRecordDate(date);
+        compaction.setSurvivorId(survivor.getId());
+        compaction.setSurvivorVersion(survivor.getVersion());
+        compaction.setMergedCount(run.size());
+        compaction.setOriginals(writeSnapshots(originals));
+        compactionRepository.save(compaction);
+
+        publishChange(TimeRecordChangedEvent.Type.ADDED, userId, date, survivor.getStartTime(),
+                survivor.getDuration());
+        return run.size() - 1;
+    }
+
+    /**
+     * 撤销一次合并：被合并掉的记录按原 id 恢复，保留的记录改回原来的时间段。
+     * 保留的记录在合并后又被修改过时抛出 {@link VersionConflictException}，不覆盖用户的修改。
+     */
+    @Transactional
+    public TimeRecordCompactionResponse undo(UUID userId, UUID compactionId) {
+        TimeRecordCompaction compaction = compactionRepository.findByIdAndUserId(compactionId, userId)
+                .orElseThrow(() -> new RuntimeException("Compaction not found"));
+        if (compaction.getUndoneAt() != null) {
+            throw new RuntimeException("该合并已撤销");
+        }
+        TimeRecord survivor = timeRecordRepository.findById(compaction.getSurvivorId())
+                .orElseThrow(() -> new RuntimeException("合并后的记录已被删除，无法撤销"));
+        if (!survivor.getVersion().equals(compaction.getSurvivorVersion())) {
+            TimeRecordResponse current = timeRecordRepository.findResponses(userId, List.of(survivor.getId()))
+                    .stream().findFirst().orElse(null);
+            throw new VersionConflictException(current, survivor.getVersion());
+        }
+
+        List<TimeRecordResponse> originals = readSnapshots(compaction.getOriginals());
+        List<TimeRecordResponse> absorbed = new ArrayList<>(originals.size());
+        publishChange(TimeRecordChangedEvent.Type.REMOVED, userId, survivor.getRecordDate(), survivor.getStartTime(),
+                survivor.getDuration());
+        for (TimeRecordResponse original : originals) {
+            if (original.getId().equals(survivor.getId())) {
+                survivor.setStartTime(original.getStartTime());
+                survivor.setDuration(original.getDuration());
+            } else {
+                absorbed.add(original);
+            }
+            publishChange(TimeRecordChangedEvent.Type.ADDED, userId, original.getRecordDate(),
+                    original.getStartTime(), original.getDuration());
+        }
+        compactionWriter.restore(userId, absorbed);
+        compaction.setUndoneAt(LocalDateTime.now());
+        return mapToResponse(compaction, originals);
+    }
+
+    /**
+     * 某天的合并记录；date 为空时返回最近的 {@value #MAX_LISTED} 条。
+     */
+    @Transactional(readOnly = true)
+    public List<TimeRecordCompactionResponse> getCompactions(UUID userId, LocalDate date) {
+        List<TimeRecordCompaction> compactions = date != null
+                ? compactionRepository.findByUserIdAndRecordDateOrderByCreatedAtDesc(userId, date)
+                : compactionRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, MAX_LISTED));
+        return compactions.stream()
+                .map(c -> mapToResponse(c, readSnapshots(c.getOriginals())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 删除 retentionDays 天以前的撤销日志，之后这些合并不能再撤销。
+     */
+    @Transactional
+    public int purgeUndoLog(int retentionDays) {
+        return compactionRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    private void publishChange(TimeRecordChangedEvent.Type type, UUID userId, LocalDate date, int startTime,
+                               int duration) {
+        eventPublisher.publishEvent(new TimeRecordChangedEvent(type, userId, date, startTime, duration));
+    }
+
+    private TimeRecordResponse toSnapshot(TimeRecord record) {
+        return TimeRecordResponse.builder()
+                .id(record.getId())
+                .title(record.getTitle())
+                .subtitle(record.getSubtitle())
+                .startTime(record.getStartTime())
+                .duration(record.getDuration())
+                .category(record.getCategory())
+                .color(record.getColor())
+                .habitId(record.getHabit() != null ? record.getHabit().getId() : null)
+                .recordDate(record.getRecordDate())
+                .createdAt(record.getCreatedAt())
+                .version(record.getVersion())
+                .focusSessionId(record.getFocusSessionId())
+                .build();
+    }
+
+    private String writeSnapshots(List<TimeRecordResponse> snapshots) {
+        try {
+            return snapshotWriter.writeValueAsString(snapshots);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("撤销日志序列化失败", e);
+        }
+    }
+
+    private List<TimeRecordResponse> readSnapshots(String json) {
+        try {
+            return snapshotReader.readValue(json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("撤销日志无法读取", e);
+        }
+    }
+
+    private static TimeRecordCompactionResponse mapToResponse(TimeRecordCompaction compaction,
+                                                              List<TimeRecordResponse> originals) {
+        TimeRecordCompactionResponse response = new TimeRecordCompactionResponse();
+        response.setId(compaction.getId());
+        response.setRecordDate(compaction.getRecordDate());
+        response.setSurvivorId(compaction.getSurvivorId());
+        response.setMergedCount(compaction.getMergedCount());
+        response.setOriginals(originals);
+        response.setCreatedAt(compaction.getCreatedAt());
+        response.setUndoneAt(compaction.getUndoneAt());
+        return response;
+    }
+}
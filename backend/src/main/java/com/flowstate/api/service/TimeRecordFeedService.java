@@ -0,0 +1,181 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.CalendarFeedTokenResponse;
+import com.flowstate.api.dto.TimeRecordResponse;
+import com.flowstate.api.entity.User;
+import com.flowstate.api.repository.TimeRecordRepository;
+import com.flowstate.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 时间记录的 ICS 订阅源：按令牌识别用户，数据库游标读到的行直接写入响应，不组装实体列表。
+ * 只导出最近 past-days 天以来的记录；版本由记录数与最后修改时间构成，供条件请求返回 304。
+ * 不输出 Last-Modified：删除不会推进最后修改时间，按时间比较会在删除后误判为未变化。
+ */
+@Service
+public class TimeRecordFeedService {
+
+    public static final String FEED_PATH = "/api/time-records/feed/";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final DateTimeFormatter UTC_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    // RFC 5545：内容行超过 75 个字节需要折行
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final UserRepository userRepository;
+    private final TimeRecordRepository timeRecordRepository;
+    private final int pastDays;
+
+    public TimeRecordFeedService(UserRepository userRepository, TimeRecordRepository timeRecordRepository,
+            @Value("${app.time-records.feed.past-days:365}") int pastDays) {
+        this.userRepository = userRepository;
+        this.timeRecordRepository = timeRecordRepository;
+        this.pastDays = pastDays;
+    }
+
+    /**
+     * 生成新的订阅令牌，旧令牌对应的订阅地址立即失效。
+     */
+    @Transactional
+    public CalendarFeedTokenResponse rotateToken(UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        user.setCalendarFeedToken(token);
+        return new CalendarFeedTokenResponse(token, FEED_PATH + token + ".ics");
+    }
+
+    public Optional<UUID> findOwner(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        return userRepository.findIdByCalendarFeedToken(token);
+    }
+
+    /**
+     * 当前订阅源的 ETag。删除改变记录数，新增与修改推进最后修改时间，任一写入都会改变 ETag；
+     * 窗口起点也计入，跨天后窗口滑动时客户端会重新拉取。
+     */
+    public String etag(UUID userId) {
+        LocalDate from = windowStart();
+        TimeRecordRepository.FeedVersionProjection version = timeRecordRepository.findFeedVersion(userId, from);
+        long count = version.getRecordCount() != null ? version.getRecordCount() : 0;
+        long lastModified = version.getLastModified() != null
+                ? version.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        return "\"" + count + "-" + lastModified + "-" + from + "\"";
+    }
+
+    /**
+     * 把订阅源写入 writer，时间以 UTC 输出，客户端按各自时区显示。
+     *
+     * @return 写出的事件数
+     */
+    @Transactional(readOnly = true)
+    public long writeFeed(UUID userId, Writer writer) throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        String stamp = toUtc(LocalDateTime.now(), zone);
+        writeLine(writer, "BEGIN:VCALENDAR");
+        writeLine(writer, "VERSION:2.0");
+        writeLine(writer, "PRODID:-//FlowState//Time Blocks//ZH");
+        writeLine(writer, "CALSCALE:GREGORIAN");
+        writeLine(writer, "X-WR-CALNAME:FlowState");
+
+        long count = 0;
+        try (Stream<TimeRecordResponse> records = timeRecordRepository.streamFeed(userId, windowStart())) {
+            for (TimeRecordResponse record : (Iterable<TimeRecordResponse>) records::iterator) {
+                writeEvent(writer, record, zone, stamp);
+                count++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writeLine(writer, "END:VCALENDAR");
+        writer.flush();
+        return count;
+    }
+
+    private static void writeEvent(Writer writer, TimeRecordResponse record, ZoneId zone, String stamp) {
+        LocalDateTime start = record.getRecordDate().atStartOfDay().plusMinutes(record.getStartTime());
+        LocalDateTime end = start.plusMinutes(record.getDuration());
+        try {
+            writeLine(writer, "BEGIN:VEVENT");
+            writeLine(writer, "UID:" + record.getId() + "@flowstate");
+            writeLine(writer, "DTSTAMP:" + (record.getCreatedAt() != null ? toUtc(record.getCreatedAt(), zone) : stamp));
+            writeLine(writer, "DTSTART:" + toUtc(start, zone));
+            writeLine(writer, "DTEND:" + toUtc(end, zone));
+            writeLine(writer, "SUMMARY:" + escape(record.getTitle()));
+            if (record.getSubtitle() != null && !record.getSubtitle().isBlank()) {
+                writeLine(writer, "DESCRIPTION:" + escape(record.getSubtitle()));
+            }
+            if (record.getCategory() != null && !record.getCategory().isBlank()) {
+                writeLine(writer, "CATEGORIES:" + escape(record.getCategory()));
+            }
+            writeLine(writer, "END:VEVENT");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LocalDate windowStart() {
+        return LocalDate.now().minusDays(pastDays);
+    }
+
+    private static String toUtc(LocalDateTime time, ZoneId zone) {
+        return time.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).format(UTC_FORMAT);
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == ';' || c == ',') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c != '\r') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // 按 UTF-8 字节数折行，不拆开多字节字符；续行以一个空格开头
+    private static void writeLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + length > MAX_LINE_OCTETS) {
+                writer.write("\r\n ");
+                octets = 1;
+            }
+            writer.write(line, i, Character.charCount(codePoint));
+            octets += length;
+            i += Character.charCount(codePoint);
+        }
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,181 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.TimeRecordImportReport;
+import com.flowstate.api.enums.ImportFormat;
+import com.flowstate.api.repository.TimeRecordImportWriter;
+import com.flowstate.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * ICS / CSV 流式导入：边解析边按批写入，内存中只保留当前事件与一批待写入的行。
+ * 跨天事件按天拆分为多条记录。每批单独提交，中途失败时已写入的批次保留；
+ * 事件以 "UID|日期" 作为 import_uid，重复导入时跳过；CSV 中没有 uid 的行使用派生的稳定 uid。
+ */
+@Service
+public class TimeRecordImportService {
+
+    private static final int MAX_SPAN_DAYS = 31;
+    private static final int MAX_ERROR_REPORTS = 1000;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final String UNTITLED = "未命名事件";
+
+    private final TimeRecordImportWriter importWriter;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public TimeRecordImportService(TimeRecordImportWriter importWriter, UserRepository userRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.time-records.import.batch-size:1000}") int batchSize) {
+        this.importWriter = importWriter;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 根据 format 参数或请求的 Content-Type 确定导入格式。
+     */
+    public ImportFormat resolveFormat(String format, String contentType) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return ImportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("不支持的导入格式: " + format);
+            }
+        }
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        if (type.contains("calendar")) {
+            return ImportFormat.ICS;
+        }
+        if (type.contains("csv")) {
+            return ImportFormat.CSV;
+        }
+        throw new RuntimeException("无法识别导入格式，请指定 format=ics 或 format=csv");
+    }
+
+    /**
+     * 导入 UTF-8 编码的文件内容。每批写入后向 sink 报告进度，无法导入的事件逐条报告
+     * （超过 {@value #MAX_ERROR_REPORTS} 条后只计数），最后报告并返回汇总。
+     */
+    public TimeRecordImportReport importRecords(UUID userId, InputStream in, ImportFormat format,
+                                                Consumer<TimeRecordImportReport> sink) throws IOException {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        long startedAt = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        ImportedEventReader events = format == ImportFormat.ICS
+                ? new IcsEventReader(reader, ZoneId.systemDefault())
+                : new CsvEventReader(reader);
+
+        TimeRecordImportWriter.Rows rows = new TimeRecordImportWriter.Rows();
+        long eventCount = 0;
+        long imported = 0;
+        long duplicates = 0;
+        long errors = 0;
+        ImportedEvent event;
+        while ((event = events.next()) != null) {
+            eventCount++;
+            String error = event.error != null ? event.error : validate(event);
+            if (error != null) {
+                errors++;
+                if (errors <= MAX_ERROR_REPORTS) {
+                    sink.accept(TimeRecordImportReport.error(event.line, error));
+                }
+                continue;
+            }
+            split(event, rows);
+
+            if (rows.size() >= batchSize) {
+                int pending = rows.size();
+                int written = flush(userId, rows);
+                imported += written;
+                duplicates += pending - written;
+                sink.accept(TimeRecordImportReport.progress("progress", eventCount, imported, duplicates, errors,
+                        elapsedMillis(startedAt)));
+            }
+        }
+        int pending = rows.size();
+        int written = flush(userId, rows);
+        imported += written;
+        duplicates += pending - written;
+
+        TimeRecordImportReport summary = TimeRecordImportReport.progress("summary", eventCount, imported,
+                duplicates, errors, elapsedMillis(startedAt));
+        sink.accept(summary);
+        return summary;
+    }
+
+    private static String validate(ImportedEvent event) {
+        if (event.end == null) {
+            return "缺少结束时间";
+        }
+        if (!event.end.isAfter(event.start.plusSeconds(59))) {
+            return "结束时间必须比开始时间晚至少 1 分钟";
+        }
+        if (Duration.between(event.start, event.end).toDays() > MAX_SPAN_DAYS) {
+            return "事件跨度不能超过 " + MAX_SPAN_DAYS + " 天";
+        }
+        return null;
+    }
+
+    // 按自然日拆分，每段一条记录；秒数向下取整到分钟
+    private static void split(ImportedEvent event, TimeRecordImportWriter.Rows rows) {
+        String title = event.title != null && !event.title.isBlank() ? truncate(event.title) : UNTITLED;
+        LocalDateTime cursor = event.start.withSecond(0).withNano(0);
+        LocalDateTime end = event.end.withSecond(0).withNano(0);
+        while (cursor.isBefore(end)) {
+            LocalDateTime nextDay = cursor.toLocalDate().plusDays(1).atStartOfDay();
+            LocalDateTime segmentEnd = end.isBefore(nextDay) ? end : nextDay;
+            rows.add(title, truncate(event.subtitle), cursor.getHour() * 60 + cursor.getMinute(),
+                    (int) Duration.between(cursor, segmentEnd).toMinutes(), truncate(event.category),
+                    truncate(event.color), cursor.toLocalDate(),
+                    event.uid != null ? truncate(event.uid + "|" + cursor.toLocalDate()) : null);
+            cursor = segmentEnd;
+        }
+    }
+
+    // 每批单独提交；按实际插入的行涉及的日期每天发布一次事件，派生的布局与占用缓存按天重建
+    private int flush(UUID userId, TimeRecordImportWriter.Rows rows) {
+        if (rows.size() == 0) {
+            return 0;
+        }
+        List<TimeRecordImportWriter.Inserted> inserted = importWriter.insert(userId, rows);
+        Set<LocalDate> dates = new TreeSet<>();
+        for (TimeRecordImportWriter.Inserted row : inserted) {
+            dates.add(row.getRecordDate());
+        }
+        for (LocalDate date : dates) {
+            eventPublisher.publishEvent(new TimeRecordChangedEvent(TimeRecordChangedEvent.Type.DAY_CHANGED, userId,
+                    date, 0, 0));
+        }
+        return inserted.size();
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= MAX_TEXT_LENGTH ? value : value.substring(0, MAX_TEXT_LENGTH);
+    }
+
+    private static long elapsedMillis(long startedAt) {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+}
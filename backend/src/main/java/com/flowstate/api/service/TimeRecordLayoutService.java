@@ -0,0 +1,110 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.TimeRecordResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 时间块日历的重叠布局：为互相重叠的记录分配列下标 (columnIndex) 与所在重叠组的总列数 (columnCount)，
+ * 前端按 left = columnIndex / columnCount、width = 1 / columnCount 渲染。
+ * 单日布局结果按 (user, date) 缓存，由 {@link TimeRecordChangedEvent} 在写事务提交后失效；
+ * 重复时间块变化 ({@link TimeRecordSeriesChangedEvent}) 可能影响任意一天，丢弃该用户的全部条目。
+ */
+@Service
+public class TimeRecordLayoutService {
+
+    private static final Comparator<TimeRecordResponse> BY_START = Comparator
+            .comparing(TimeRecordResponse::getStartTime)
+            .thenComparing(Comparator.comparing(TimeRecordResponse::getDuration).reversed())
+            .thenComparing(TimeRecordResponse::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Cache<String, List<TimeRecordResponse>> cache;
+
+    public TimeRecordLayoutService(MeterRegistry meterRegistry,
+            @Value("${app.time-records.layout-cache.max-size:20000}") long maxSize,
+            @Value("${app.time-records.layout-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "time_record.layout");
+    }
+
+    /**
+     * 读取单日已布局的记录，未命中时调用 loader 取数并布局。
+     */
+    public List<TimeRecordResponse> getDay(UUID userId, LocalDate date, Supplier<List<TimeRecordResponse>> loader) {
+        return cache.get(key(userId, date), k -> List.copyOf(layout(loader.get())));
+    }
+
+    /**
+     * 区间扫描布局，O(n log n)：按开始时间排序后维护按结束时间排序的活动块堆与空闲列堆，
+     * 活动堆清空即一个重叠组结束，组内最大并发列数即该组的 columnCount。
+     *
+     * @return 按开始时间排序的同一批记录（原对象上写入布局字段）
+     */
+    public List<TimeRecordResponse> layout(List<TimeRecordResponse> records) {
+        List<TimeRecordResponse> sorted = new ArrayList<>(records);
+        sorted.sort(BY_START);
+
+        PriorityQueue<int[]> active = new PriorityQueue<>(Comparator.comparingInt(a -> a[0])); // {end, column}
+        PriorityQueue<Integer> freeColumns = new PriorityQueue<>();
+        List<TimeRecordResponse> group = new ArrayList<>();
+        int groupColumns = 0;
+
+        for (TimeRecordResponse record : sorted) {
+            int start = record.getStartTime();
+            while (!active.isEmpty() && active.peek()[0] <= start) {
+                freeColumns.add(active.poll()[1]);
+            }
+            if (active.isEmpty()) {
+                closeGroup(group, groupColumns);
+                freeColumns.clear();
+                groupColumns = 0;
+            }
+
+            int column = freeColumns.isEmpty() ? groupColumns++ : freeColumns.poll();
+            record.setColumnIndex(column);
+            active.add(new int[] { start + Math.max(1, record.getDuration()), column });
+            group.add(record);
+        }
+        closeGroup(group, groupColumns);
+        return sorted;
+    }
+
+    // 写事务提交后失效受影响那天的布局
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTimeRecordChanged(TimeRecordChangedEvent event) {
+        cache.invalidate(key(event.getUserId(), event.getDate()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeriesChanged(TimeRecordSeriesChangedEvent event) {
+        String prefix = event.getUserId() + "|";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static void closeGroup(List<TimeRecordResponse> group, int columns) {
+        group.forEach(r -> r.setColumnCount(columns));
+        group.clear();
+    }
+
+    private static String key(UUID userId, LocalDate date) {
+        return userId + "|" + date;
+    }
+}
@@ -0,0 +1,222 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.DayFreeTimeDTO;
+import com.flowstate.api.dto.FreeSlotDTO;
+import com.flowstate.api.dto.TimeRecordResponse;
+import com.flowstate.api.repository.TimeRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分钟级占用索引：每个用户每天一个 1440 位的位图，第 n 位表示 [n, n+1) 这一分钟被时间记录占用。
+ * 空闲时段查找与空闲分钟统计只做按字的位运算 (nextClearBit / nextSetBit / cardinality)，不扫描记录。
+ * <p>
+ * 位图按 (user, date) 缓存，通过 {@link TimeRecordChangedEvent} 增量维护：新增记录直接置位，
+ * 删除或修改后清位需要知道其余记录，因此让该天失效并在下次读取时重建；批量导入的 DAY_CHANGED 同样按天失效。
+ * 重复时间块展开出的发生同样计为占用，系列变化时丢弃该用户的全部位图。
+ */
+@Service
+public class TimeRecordOccupancyService {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_SEARCH_DAYS = 366;
+    private static final int EPOCH_STRIPES = 1024;
+
+    private final TimeRecordRepository timeRecordRepository;
+    private final TimeRecordSeriesService timeRecordSeriesService;
+    private final Cache<String, BitSet> cache;
+    // 按用户分段的写入计数，用户写入时递增所在分段；批量加载期间该分段发生写入时本次结果不回填缓存，
+    // 避免覆盖掉增量。分段而非全局计数，其他用户的写入不会让本用户的加载失去缓存
+    private final AtomicLongArray writeEpochs = new AtomicLongArray(EPOCH_STRIPES);
+
+    public TimeRecordOccupancyService(TimeRecordRepository timeRecordRepository,
+            TimeRecordSeriesService timeRecordSeriesService, MeterRegistry meterRegistry,
+            @Value("${app.time-records.occupancy-cache.max-size:50000}") long maxSize,
+            @Value("${app.time-records.occupancy-cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.timeRecordRepository = timeRecordRepository;
+        this.timeRecordSeriesService = timeRecordSeriesService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "time_record.occupancy");
+    }
+
+    /**
+     * 在 [start, end] 的每天 [dayStart, dayEnd) 分钟窗口内按时间顺序查找至少 minMinutes 分钟的空闲时段。
+     * 今天的窗口从当前分钟开始，已经过去的时间不算空闲。
+     */
+    public List<FreeSlotDTO> findFreeSlots(UUID userId, LocalDate start, LocalDate end, int minMinutes, int limit,
+                                           int dayStart, int dayEnd) {
+        validate(start, end, dayStart, dayEnd);
+        if (minMinutes < 1) {
+            throw new RuntimeException("minMinutes 必须大于 0");
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalTime now = LocalTime.now();
+        int nowMinute = now.getHour() * 60 + now.getMinute();
+        Map<LocalDate, BitSet> days = load(userId, start, end);
+
+        List<FreeSlotDTO> slots = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end) && slots.size() < limit; date = date.plusDays(1)) {
+            if (date.isBefore(today)) {
+                continue;
+            }
+            BitSet occupied = days.get(date);
+            int from = date.equals(today) ? Math.max(dayStart, nowMinute) : dayStart;
+            while (from < dayEnd && slots.size() < limit) {
+                int free = occupied.nextClearBit(from);
+                if (free >= dayEnd) {
+                    break;
+                }
+                int busy = occupied.nextSetBit(free);
+                int slotEnd = busy < 0 || busy > dayEnd ? dayEnd : busy;
+                if (slotEnd - free >= minMinutes) {
+                    slots.add(new FreeSlotDTO(date, free, slotEnd - free));
+                }
+                from = slotEnd;
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * [start, end] 每天在 [dayStart, dayEnd) 窗口内的空闲与占用分钟数，重叠的记录只计一次。
+     */
+    public List<DayFreeTimeDTO> getFreeMinutes(UUID userId, LocalDate start, LocalDate end, int dayStart, int dayEnd) {
+        validate(start, end, dayStart, dayEnd);
+        Map<LocalDate, BitSet> days = load(userId, start, end);
+
+        List<DayFreeTimeDTO> result = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            int occupied = days.get(date).get(dayStart, dayEnd).cardinality();
+            result.add(new DayFreeTimeDTO(date, dayEnd - dayStart - occupied, occupied));
+        }
+        return result;
+    }
+
+    /**
+     * [start, end] 每天的占用位图副本，调用方可以在上面试排而不影响缓存。
+     */
+    public Map<LocalDate, BitSet> snapshot(UUID userId, LocalDate start, LocalDate end) {
+        validate(start, end, 0, MINUTES_PER_DAY);
+        Map<LocalDate, BitSet> copies = new HashMap<>();
+        load(userId, start, end).forEach((date, bits) -> copies.put(date, (BitSet) bits.clone()));
+        return copies;
+    }
+
+    // 写事务提交后增量维护：新增直接置位（幂等），删除 / 修改使该天失效
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTimeRecordChanged(TimeRecordChangedEvent event) {
+        writeEpochs.incrementAndGet(epochStripe(event.getUserId()));
+        String key = key(event.getUserId(), event.getDate());
+        if (event.getType() != TimeRecordChangedEvent.Type.ADDED) {
+            cache.invalidate(key);
+            return;
+        }
+        cache.asMap().computeIfPresent(key, (k, bits) -> {
+            BitSet updated = (BitSet) bits.clone();
+            occupy(updated, event.getStartTime(), event.getDuration());
+            return updated;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeriesChanged(TimeRecordSeriesChangedEvent event) {
+        writeEpochs.incrementAndGet(epochStripe(event.getUserId()));
+        String prefix = event.getUserId() + "|";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    // 读取区间内每天的位图：命中的直接用，未命中的天合并为一次范围查询构建
+    private Map<LocalDate, BitSet> load(UUID userId, LocalDate start, LocalDate end) {
+        Map<LocalDate, BitSet> days = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            BitSet bits = cache.getIfPresent(key(userId, date));
+            if (bits != null) {
+                days.put(date, bits);
+            } else {
+                firstMissing = firstMissing == null ? date : firstMissing;
+                lastMissing = date;
+            }
+        }
+        if (firstMissing == null) {
+            return days;
+        }
+
+        int stripe = epochStripe(userId);
+        long epoch = writeEpochs.get(stripe);
+        Map<LocalDate, BitSet> loaded = new HashMap<>();
+        for (LocalDate date = firstMissing; !date.isAfter(lastMissing); date = date.plusDays(1)) {
+            loaded.put(date, new BitSet(MINUTES_PER_DAY));
+        }
+        for (TimeRecordRepository.OccupancyProjection record
+                : timeRecordRepository.findOccupancy(userId, firstMissing, lastMissing)) {
+            occupy(loaded.get(record.getRecordDate()), record.getStartTime(), record.getDuration());
+        }
+        for (TimeRecordResponse occurrence : timeRecordSeriesService.expand(userId, firstMissing, lastMissing)) {
+            occupy(loaded.get(occurrence.getRecordDate()), occurrence.getStartTime(), occurrence.getDuration());
+        }
+
+        boolean cacheable = writeEpochs.get(stripe) == epoch;
+        loaded.forEach((date, bits) -> {
+            if (!days.containsKey(date)) {
+                days.put(date, bits);
+                if (cacheable) {
+                    cache.put(key(userId, date), bits);
+                }
+            }
+        });
+        return days;
+    }
+
+    private static int epochStripe(UUID userId) {
+        return Math.floorMod(userId.hashCode(), EPOCH_STRIPES);
+    }
+
+    private static void occupy(BitSet bits, Integer startTime, Integer duration) {
+        if (startTime == null || duration == null) {
+            return;
+        }
+        int from = Math.max(0, Math.min(startTime, MINUTES_PER_DAY));
+        int to = Math.max(from, Math.min(startTime + duration, MINUTES_PER_DAY));
+        bits.set(from, to);
+    }
+
+    private static void validate(LocalDate start, LocalDate end, int dayStart, int dayEnd) {
+        if (end.isBefore(start)) {
+            throw new RuntimeException("结束日期不能早于开始日期");
+        }
+        if (ChronoUnit.DAYS.between(start, end) + 1 > MAX_SEARCH_DAYS) {
+            throw new RuntimeException("查询区间不能超过 " + MAX_SEARCH_DAYS + " 天");
+        }
+        if (dayStart < 0 || dayEnd > MINUTES_PER_DAY || dayStart >= dayEnd) {
+            throw new RuntimeException("时间窗口无效");
+        }
+    }
+
+    private static String key(UUID userId, LocalDate date) {
+        return userId + "|" + date;
+    }
+}
@@ -0,0 +1,104 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.enums.Frequency;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 重复规则的展开：直接计算区间内第一次发生的位置再按步长前进，耗时只与区间内的发生次数有关，
+ * 与系列开始了多久无关。
+ */
+final class TimeRecordRecurrence {
+
+    private TimeRecordRecurrence() {
+    }
+
+    /**
+     * 按日期升序回调 [from, to] 与系列有效期交集内的每次发生。
+     *
+     * @param weekdays 周重复的星期掩码，bit0 = 周一 … bit6 = 周日；其他频率忽略
+     */
+    static void forEachOccurrence(Frequency frequency, int interval, int weekdays, LocalDate seriesStart,
+                                  LocalDate seriesEnd, LocalDate from, LocalDate to, Consumer<LocalDate> action) {
+        LocalDate lower = from.isAfter(seriesStart) ? from : seriesStart;
+        LocalDate upper = seriesEnd != null && seriesEnd.isBefore(to) ? seriesEnd : to;
+        if (lower.isAfter(upper)) {
+            return;
+        }
+
+        switch (frequency) {
+            case WEEKLY: {
+                LocalDate anchor = HabitPeriods.start(Frequency.WEEKLY, seriesStart);
+                long weeks = ChronoUnit.WEEKS.between(anchor, HabitPeriods.start(Frequency.WEEKLY, lower));
+                for (LocalDate week = anchor.plusWeeks(ceilDiv(weeks, interval) * interval);
+                     !week.isAfter(upper); week = week.plusWeeks(interval)) {
+                    for (int i = 0; i < 7; i++) {
+                        LocalDate date = week.plusDays(i);
+                        if (!date.isBefore(lower) && !date.isAfter(upper) && contains(weekdays, date.getDayOfWeek())) {
+                            action.accept(date);
+                        }
+                    }
+                }
+                break;
+            }
+            case MONTHLY: {
+                // 没有这一天的月份（如 31 号遇到小月）跳过
+                YearMonth anchor = YearMonth.from(seriesStart);
+                int day = seriesStart.getDayOfMonth();
+                long months = ChronoUnit.MONTHS.between(anchor, YearMonth.from(lower));
+                for (YearMonth month = anchor.plusMonths(ceilDiv(months, interval) * interval);
+                     !month.atDay(1).isAfter(upper); month = month.plusMonths(interval)) {
+                    if (day <= month.lengthOfMonth()) {
+                        LocalDate date = month.atDay(day);
+                        if (!date.isBefore(lower) && !date.isAfter(upper)) {
+                            action.accept(date);
+                        }
+                    }
+                }
+                break;
+            }
+            default: {
+                long days = ChronoUnit.DAYS.between(seriesStart, lower);
+                for (LocalDate date = seriesStart.plusDays(ceilDiv(days, interval) * interval);
+                     !date.isAfter(upper); date = date.plusDays(interval)) {
+                    action.accept(date);
+                }
+                break;
+            }
+        }
+    }
+
+    static int toMask(Collection<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << (day.getValue() - 1);
+        }
+        return mask;
+    }
+
+    static Set<DayOfWeek> fromMask(int mask) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (contains(mask, day)) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    private static boolean contains(int mask, DayOfWeek day) {
+        return (mask & (1 << (day.getValue() - 1))) != 0;
+    }
+
+    // 非负数的向上取整除法
+    private static long ceilDiv(long value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,19 @@
+package com.flowstate.api.service;
+
+import java.util.UUID;
+
+/**
+ * 重复时间块（系列或其例外）写入事件。一个系列可能影响任意多天，派生索引收到后丢弃该用户的全部条目。
+ */
+public class TimeRecordSeriesChangedEvent {
+
+    private final UUID userId;
+
+    public TimeRecordSeriesChangedEvent(UUID userId) {
+        this.userId = userId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,254 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.TimeRecordOccurrenceRequest;
+import com.flowstate.api.dto.TimeRecordResponse;
+import com.flowstate.api.dto.TimeRecordSeriesRequest;
+import com.flowstate.api.dto.TimeRecordSeriesResponse;
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.TimeRecordSeries;
+import com.flowstate.api.entity.TimeRecordSeriesException;
+import com.flowstate.api.entity.User;
+import com.flowstate.api.enums.Frequency;
+import com.flowstate.api.repository.HabitRepository;
+import com.flowstate.api.repository.TimeRecordSeriesExceptionRepository;
+import com.flowstate.api.repository.TimeRecordSeriesRepository;
+import com.flowstate.api.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 重复时间块：系列只存一行规则，读取时按请求的日期区间展开为发生，并应用单次例外。
+ * 展开结果与具体记录同形（id 为空、seriesId 为所属系列），由调用方与具体记录合并。
+ */
+@Service
+public class TimeRecordSeriesService {
+
+    public static final Comparator<TimeRecordResponse> BY_DATE_AND_START = Comparator
+            .comparing(TimeRecordResponse::getRecordDate)
+            .thenComparing(TimeRecordResponse::getStartTime);
+
+    private final TimeRecordSeriesRepository seriesRepository;
+    private final TimeRecordSeriesExceptionRepository exceptionRepository;
+    private final UserRepository userRepository;
+    private final HabitRepository habitRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TimeRecordSeriesService(TimeRecordSeriesRepository seriesRepository,
+                                   TimeRecordSeriesExceptionRepository exceptionRepository,
+                                   UserRepository userRepository, HabitRepository habitRepository,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.seriesRepository = seriesRepository;
+        this.exceptionRepository = exceptionRepository;
+        this.userRepository = userRepository;
+        this.habitRepository = habitRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 展开 [start, end] 内全部系列的发生（已应用例外），按日期、开始时间排序。
+     * 一次查询取出相交的系列，一次查询取出区间内的例外，没有系列时只有第一次查询。
+     */
+    @Transactional(readOnly = true)
+    public List<TimeRecordResponse> expand(UUID userId, LocalDate start, LocalDate end) {
+        List<TimeRecordSeries> seriesList = seriesRepository.findOverlapping(userId, start, end);
+        if (seriesList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, TimeRecordSeriesException> exceptions = new HashMap<>();
+        for (TimeRecordSeriesException exception
+                : exceptionRepository.findBySeriesInAndOccurrenceDateBetween(seriesList, start, end)) {
+            exceptions.put(exception.getSeries().getId() + "|" + exception.getOccurrenceDate(), exception);
+        }
+
+        List<TimeRecordResponse> occurrences = new ArrayList<>();
+        for (TimeRecordSeries series : seriesList) {
+            UUID habitId = series.getHabit() != null ? series.getHabit().getId() : null;
+            TimeRecordRecurrence.forEachOccurrence(series.getFrequency(), series.getRepeatInterval(),
+                    series.getWeekdays() != null ? series.getWeekdays() : 0, series.getStartDate(),
+                    series.getEndDate(), start, end, date -> {
+                        TimeRecordSeriesException exception = exceptions.get(series.getId() + "|" + date);
+                        if (exception != null && Boolean.TRUE.equals(exception.getCancelled())) {
+                            return;
+                        }
+                        occurrences.add(toOccurrence(series, habitId, date, exception));
+                    });
+        }
+        occurrences.sort(BY_DATE_AND_START);
+        return occurrences;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TimeRecordSeriesResponse> getSeries(UUID userId) {
+        return seriesRepository.findByUserIdOrderByStartDateAscStartTimeAsc(userId).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public TimeRecordSeriesResponse createSeries(UUID userId, TimeRecordSeriesRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        TimeRecordSeries series = new TimeRecordSeries();
+        series.setUser(user);
+        apply(series, request, userId);
+        TimeRecordSeries saved = seriesRepository.save(series);
+        eventPublisher.publishEvent(new TimeRecordSeriesChangedEvent(userId));
+        return mapToResponse(saved);
+    }
+
+    /**
+     * 修改系列规则；已有的单次例外保留，规则变化后不再落在发生日期上的例外自然失效。
+     */
+    @Transactional
+    public TimeRecordSeriesResponse updateSeries(UUID userId, UUID seriesId, TimeRecordSeriesRequest request) {
+        TimeRecordSeries series = findOwned(userId, seriesId);
+        apply(series, request, userId);
+        eventPublisher.publishEvent(new TimeRecordSeriesChangedEvent(userId));
+        return mapToResponse(series);
+    }
+
+    @Transactional
+    public void deleteSeries(UUID userId, UUID seriesId) {
+        TimeRecordSeries series = findOwned(userId, seriesId);
+        exceptionRepository.deleteBySeries(series);
+        seriesRepository.delete(series);
+        eventPublisher.publishEvent(new TimeRecordSeriesChangedEvent(userId));
+    }
+
+    /**
+     * 修改或取消某一次发生。date 必须是规则上的发生日期。
+     */
+    @Transactional
+    public void updateOccurrence(UUID userId, UUID seriesId, LocalDate date, TimeRecordOccurrenceRequest request) {
+        TimeRecordSeries series = findOwned(userId, seriesId);
+        List<LocalDate> matches = new ArrayList<>(1);
+        TimeRecordRecurrence.forEachOccurrence(series.getFrequency(), series.getRepeatInterval(),
+                series.getWeekdays() != null ? series.getWeekdays() : 0, series.getStartDate(), series.getEndDate(),
+                date, date, matches::add);
+        if (matches.isEmpty()) {
+            throw new RuntimeException("该日期不是这个系列的发生日期");
+        }
+        if (request.getStartTime() != null || request.getDuration() != null) {
+            validateTime(request.getStartTime() != null ? request.getStartTime() : series.getStartTime(),
+                    request.getDuration() != null ? request.getDuration() : series.getDuration());
+        }
+
+        TimeRecordSeriesException exception = exceptionRepository.findBySeriesAndOccurrenceDate(series, date)
+                .orElseGet(() -> {
+                    TimeRecordSeriesException created = new TimeRecordSeriesException();
+                    created.setSeries(series);
+                    created.setOccurrenceDate(date);
+                    return created;
+                });
+        exception.setCancelled(Boolean.TRUE.equals(request.getCancelled()));
+        exception.setTitle(request.getTitle());
+        exception.setSubtitle(request.getSubtitle());
+        exception.setStartTime(request.getStartTime());
+        exception.setDuration(request.getDuration());
+        exceptionRepository.save(exception);
+        eventPublisher.publishEvent(new TimeRecordSeriesChangedEvent(userId));
+    }
+
+    private TimeRecordSeries findOwned(UUID userId, UUID seriesId) {
+        return seriesRepository.findByIdAndUserId(seriesId, userId)
+                .orElseThrow(() -> new RuntimeException("Series not found"));
+    }
+
+    private void apply(TimeRecordSeries series, TimeRecordSeriesRequest request, UUID userId) {
+        if (request.getTitle() == null || request.getTitle().isBlank()) {
+            throw new RuntimeException("标题不能为空");
+        }
+        if (request.getStartDate() == null) {
+            throw new RuntimeException("开始日期不能为空");
+        }
+        if (request.getEndDate() != null && request.getEndDate().isBefore(request.getStartDate())) {
+            throw new RuntimeException("结束日期不能早于开始日期");
+        }
+        validateTime(request.getStartTime(), request.getDuration());
+        int interval = request.getRepeatInterval() != null ? request.getRepeatInterval() : 1;
+        if (interval < 1) {
+            throw new RuntimeException("重复间隔必须大于 0");
+        }
+        Frequency frequency = request.getFrequency() != null ? request.getFrequency() : Frequency.WEEKLY;
+
+        Integer weekdays = null;
+        if (frequency == Frequency.WEEKLY) {
+            weekdays = request.getWeekdays() != null && !request.getWeekdays().isEmpty()
+                    ? TimeRecordRecurrence.toMask(request.getWeekdays())
+                    : TimeRecordRecurrence.toMask(Set.of(request.getStartDate().getDayOfWeek()));
+        }
+
+        Habit habit = null;
+        if (request.getHabitId() != null) {
+            habit = habitRepository.findById(request.getHabitId())
+                    .filter(h -> h.getUser().getId().equals(userId))
+                    .orElseThrow(() -> new RuntimeException("Habit not found"));
+        }
+
+        series.setTitle(request.getTitle());
+        series.setSubtitle(request.getSubtitle());
+        series.setStartTime(request.getStartTime());
+        series.setDuration(request.getDuration());
+        series.setCategory(request.getCategory());
+        series.setColor(request.getColor());
+        series.setHabit(habit);
+        series.setFrequency(frequency);
+        series.setRepeatInterval(interval);
+        series.setWeekdays(weekdays);
+        series.setStartDate(request.getStartDate());
+        series.setEndDate(request.getEndDate());
+    }
+
+    // 发生不跨天：开始时间与时长都落在当天之内
+    private static void validateTime(Integer startTime, Integer duration) {
+        if (startTime == null || startTime < 0 || startTime >= TimeRecordOccupancyService.MINUTES_PER_DAY) {
+            throw new RuntimeException("开始时间无效");
+        }
+        if (duration == null || duration < 1 || startTime + duration > TimeRecordOccupancyService.MINUTES_PER_DAY) {
+            throw new RuntimeException("时长无效");
+        }
+    }
+
+    private static TimeRecordResponse toOccurrence(TimeRecordSeries series, UUID habitId, LocalDate date,
+                                                   TimeRecordSeriesException exception) {
+        TimeRecordResponse occurrence = new TimeRecordResponse(null,
+                exception != null && exception.getTitle() != null ? exception.getTitle() : series.getTitle(),
+                exception != null && exception.getSubtitle() != null ? exception.getSubtitle() : series.getSubtitle(),
+                exception != null && exception.getStartTime() != null ? exception.getStartTime() : series.getStartTime(),
+                exception != null && exception.getDuration() != null ? exception.getDuration() : series.getDuration(),
+                series.getCategory(), series.getColor(), habitId, date, series.getCreatedAt());
+        occurrence.setSeriesId(series.getId());
+        return occurrence;
+    }
+
+    private TimeRecordSeriesResponse mapToResponse(TimeRecordSeries series) {
+        TimeRecordSeriesResponse response = new TimeRecordSeriesResponse();
+        response.setId(series.getId());
+        response.setTitle(series.getTitle());
+        response.setSubtitle(series.getSubtitle());
+        response.setStartTime(series.getStartTime());
+        response.setDuration(series.getDuration());
+        response.setCategory(series.getCategory());
+        response.setColor(series.getColor());
+        response.setHabitId(series.getHabit() != null ? series.getHabit().getId() : null);
+        response.setFrequency(series.getFrequency());
+        response.setRepeatInterval(series.getRepeatInterval());
+        response.setWeekdays(series.getWeekdays() != null
+                ? new ArrayList<>(TimeRecordRecurrence.fromMask(series.getWeekdays())) : null);
+        response.setStartDate(series.getStartDate());
+        response.setEndDate(series.getEndDate());
+        response.setCreatedAt(series.getCreatedAt());
+        return response;
+    }
+}
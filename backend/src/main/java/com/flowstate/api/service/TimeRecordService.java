@@ -1,33 +1,65 @@
 package com.flowstate.api.service;
 
+import com.flowstate.api.dto.TimeRecordPageResponse;
+import com.flowstate.api.dto.TimeRecordPatchRequest;
+import com.flowstate.api.dto.TimeRecordPatchResult;
+import com.flowstate.api.dto.TimeRecordRangeResponse;
 import com.flowstate.api.dto.TimeRecordRequest;
 import com.flowstate.api.dto.TimeRecordResponse;
 import com.flowstate.api.entity.Habit;
 import com.flowstate.api.entity.TimeRecord;
 import com.flowstate.api.entity.User;
 import com.flowstate.api.repository.HabitRepository;
+import com.flowstate.api.repository.TimeRecordMoveWriter;
 import com.flowstate.api.repository.TimeRecordRepository;
 import com.flowstate.api.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TimeRecordService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_RANGE_DAYS = 62;
+    private static final int MAX_PATCH_BATCH = 200;
+
     private final TimeRecordRepository timeRecordRepository;
     private final UserRepository userRepository;
     private final HabitRepository habitRepository;
+    private final TimeRecordLayoutService timeRecordLayoutService;
+    private final TimeRecordSeriesService timeRecordSeriesService;
+    private final TimeRecordMoveWriter moveWriter;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TimeRecordService(TimeRecordRepository timeRecordRepository, UserRepository userRepository,
-            HabitRepository habitRepository) {
+            HabitRepository habitRepository, TimeRecordLayoutService timeRecordLayoutService,
+            TimeRecordSeriesService timeRecordSeriesService, TimeRecordMoveWriter moveWriter,
+            ApplicationEventPublisher eventPublisher) {
         this.timeRecordRepository = timeRecordRepository;
+        this.moveWriter = moveWriter;
         this.userRepository = userRepository;
         this.habitRepository = habitRepository;
+        this.timeRecordLayoutService = timeRecordLayoutService;
+        this.timeRecordSeriesService = timeRecordSeriesService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -37,11 +69,181 @@ public class TimeRecordService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
+    // 单日视图：具体记录与重复时间块当天的发生合并后布局，命中布局缓存时不访问数据库
     public List<TimeRecordResponse> getRecordsForUserByDate(UUID userId, LocalDate date) {
-        return timeRecordRepository.findByUserIdAndRecordDate(userId, date).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return timeRecordLayoutService.getDay(userId, date, () -> findMerged(userId, date, date));
+    }
+
+    /**
+     * 日历区间查询：一次查询取出 [start, end] 内的全部记录，按天分组或编码为列式数组。
+     */
+    @Transactional(readOnly = true)
+    public TimeRecordRangeResponse getRecordsForRange(UUID userId, LocalDate start, LocalDate end, boolean columnar) {
+        if (end.isBefore(start)) {
+            throw new RuntimeException("结束日期不能早于开始日期");
+        }
+        int dayCount = (int) ChronoUnit.DAYS.between(start, end) + 1;
+        if (dayCount > MAX_RANGE_DAYS) {
+            throw new RuntimeException("查询区间不能超过 " + MAX_RANGE_DAYS + " 天");
+        }
+
+        List<TimeRecordResponse> records = findMerged(userId, start, end);
+        if (columnar) {
+            return new TimeRecordRangeResponse(start, end, null, toColumns(records, start, dayCount));
+        }
+
+        List<TimeRecordRangeResponse.Day> days = new ArrayList<>(dayCount);
+        int index = 0;
+        for (int i = 0; i < dayCount; i++) {
+            LocalDate date = start.plusDays(i);
+            List<TimeRecordResponse> dayRecords = new ArrayList<>();
+            while (index < records.size() && records.get(index).getRecordDate().equals(date)) {
+                dayRecords.add(records.get(index++));
+            }
+            days.add(new TimeRecordRangeResponse.Day(date, timeRecordLayoutService.layout(dayRecords)));
+        }
+        return new TimeRecordRangeResponse(start, end, days, null);
+    }
+
+    // 区间内的具体记录与重复时间块展开出的发生，按日期、开始时间排序
+    private List<TimeRecordResponse> findMerged(UUID userId, LocalDate start, LocalDate end) {
+        List<TimeRecordResponse> records = timeRecordRepository.findRange(userId, start, end);
+        List<TimeRecordResponse> occurrences = timeRecordSeriesService.expand(userId, start, end);
+        if (occurrences.isEmpty()) {
+            return records;
+        }
+        List<TimeRecordResponse> merged = new ArrayList<>(records.size() + occurrences.size());
+        merged.addAll(records);
+        merged.addAll(occurrences);
+        merged.sort(TimeRecordSeriesService.BY_DATE_AND_START);
+        return merged;
+    }
+
+    // records 已按日期、开始时间排序
+    private static TimeRecordRangeResponse.Columns toColumns(List<TimeRecordResponse> records, LocalDate start,
+                                                             int dayCount) {
+        int size = records.size();
+        int[] dayOffsets = new int[dayCount + 1];
+        int[] startTimes = new int[size];
+        int[] durations = new int[size];
+        int[] categoryIds = new int[size];
+        int[] colorIds = new int[size];
+        List<UUID> ids = new ArrayList<>(size);
+        List<String> titles = new ArrayList<>(size);
+        List<String> subtitles = new ArrayList<>(size);
+        List<UUID> habitIds = new ArrayList<>(size);
+        List<UUID> seriesIds = new ArrayList<>(size);
+        List<String> categories = new ArrayList<>();
+        List<String> colors = new ArrayList<>();
+        Map<String, Integer> categoryIndex = new HashMap<>();
+        Map<String, Integer> colorIndex = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            TimeRecordResponse record = records.get(i);
+            int day = (int) ChronoUnit.DAYS.between(start, record.getRecordDate());
+            dayOffsets[day + 1]++;
+            ids.add(record.getId());
+            titles.add(record.getTitle());
+            subtitles.add(record.getSubtitle());
+            startTimes[i] = record.getStartTime();
+            durations[i] = record.getDuration();
+            categoryIds[i] = dictionaryIndex(record.getCategory(), categories, categoryIndex);
+            colorIds[i] = dictionaryIndex(record.getColor(), colors, colorIndex);
+            habitIds.add(record.getHabitId());
+            seriesIds.add(record.getSeriesId());
+        }
+        // 每天的计数前缀求和得到起始下标
+        for (int day = 0; day < dayCount; day++) {
+            dayOffsets[day + 1] += dayOffsets[day];
+        }
+
+        TimeRecordRangeResponse.Columns columns = new TimeRecordRangeResponse.Columns();
+        columns.setDayOffsets(dayOffsets);
+        columns.setIds(ids);
+        columns.setTitles(titles);
+        columns.setSubtitles(subtitles);
+        columns.setStartTimes(startTimes);
+        columns.setDurations(durations);
+        columns.setCategoryIds(categoryIds);
+        columns.setColorIds(colorIds);
+        columns.setHabitIds(habitIds);
+        columns.setSeriesIds(seriesIds);
+        columns.setCategories(categories);
+        columns.setColors(colors);
+        return columns;
+    }
+
+    private static int dictionaryIndex(String value, List<String> dictionary, Map<String, Integer> index) {
+        if (value == null) {
+            return -1;
+        }
+        return index.computeIfAbsent(value, v -> {
+            dictionary.add(v);
+            return dictionary.size() - 1;
+        });
+    }
+
+    /**
+     * 键集分页读取用户的记录，按 (recordDate, startTime, id) 倒序。
+     *
+     * @param cursor 上一页返回的 nextCursor，为空时读取第一页
+     */
+    @Transactional(readOnly = true)
+    public TimeRecordPageResponse getRecordPage(UUID userId, String cursor, Integer size) {
+        int limit = size != null ? Math.max(1, Math.min(size, MAX_PAGE_SIZE)) : DEFAULT_PAGE_SIZE;
+
+        List<TimeRecord> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = timeRecordRepository.findFirstPage(userId, limit + 1);
+        } else {
+            String[] key = decodeCursor(cursor);
+            rows = timeRecordRepository.findPageAfter(userId, LocalDate.parse(key[0]), Integer.parseInt(key[1]),
+                    UUID.fromString(key[2]), limit + 1);
+        }
+
+        // 多取一行判断是否还有下一页
+        boolean hasMore = rows.size() > limit;
+        List<TimeRecord> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new TimeRecordPageResponse(page.stream().map(this::mapToResponse).collect(Collectors.toList()),
+                nextCursor);
+    }
+
+    /**
+     * 按分页相同的顺序逐条推送用户的全部记录，结果集以游标方式读取，堆内存占用与记录总数无关。
+     *
+     * @return 推送的记录数
+     */
+    @Transactional(readOnly = true)
+    public long streamRecords(UUID userId, Consumer<TimeRecordResponse> sink) {
+        long count = 0;
+        try (Stream<TimeRecordResponse> records = timeRecordRepository.streamByUserId(userId)) {
+            for (TimeRecordResponse record : (Iterable<TimeRecordResponse>) records::iterator) {
+                sink.accept(record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String encodeCursor(TimeRecord record) {
+        String key = record.getRecordDate() + "|" + record.getStartTime() + "|" + record.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            LocalDate.parse(key[0]);
+            Integer.parseInt(key[1]);
+            UUID.fromString(key[2]);
+            return key;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
     }
 
     @Transactional
@@ -71,13 +273,28 @@ public class TimeRecordService {
                 .build();
 
         TimeRecord saved = timeRecordRepository.save(record);
+        publishChange(TimeRecordChangedEvent.Type.ADDED, saved);
         return mapToResponse(saved);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<TimeRecordResponse> findRecord(UUID userId, UUID recordId) {
+        return timeRecordRepository.findResponses(userId, List.of(recordId)).stream().findFirst();
+    }
+
+    public TimeRecordResponse getRecord(UUID userId, UUID recordId) {
+        return findRecord(userId, recordId).orElseThrow(() -> new RuntimeException("TimeRecord not found"));
+    }
+
+    /**
+     * 整条更新。expectedVersion 不为空且与当前版本不一致时抛出 {@link VersionConflictException}；
+     * 检查之后被并发修改的情况由 flush 时的版本条件发现。
+     */
     @Transactional
-    public TimeRecordResponse updateRecord(UUID recordId, TimeRecordRequest request) {
-        TimeRecord record = timeRecordRepository.findById(recordId)
-                .orElseThrow(() -> new RuntimeException("TimeRecord not found"));
+    public TimeRecordResponse updateRecord(UUID userId, UUID recordId, TimeRecordRequest request,
+                                           Long expectedVersion) {
+        TimeRecord record = findOwned(userId, recordId);
+        checkVersion(record, expectedVersion);
 
         Habit habit = null;
         if (request.getHabitId() != null) {
@@ -85,6 +302,7 @@ public class TimeRecordService {
                     .orElse(null);
         }
 
+        publishChange(TimeRecordChangedEvent.Type.REMOVED, record);
         record.setTitle(request.getTitle());
         record.setSubtitle(request.getSubtitle());
         record.setStartTime(request.getStartTime());
@@ -93,13 +311,147 @@ public class TimeRecordService {
         record.setColor(request.getColor());
         record.setHabit(habit);
 
-        TimeRecord updated = timeRecordRepository.save(record);
+        // 立即 flush 使响应带上递增后的版本
+        TimeRecord updated = timeRecordRepository.saveAndFlush(record);
+        publishChange(TimeRecordChangedEvent.Type.ADDED, updated);
         return mapToResponse(updated);
     }
 
+    /**
+     * 拖拽移动 / 调整时长单条记录，语义同 {@link #patchRecords}。
+     */
     @Transactional
-    public void deleteRecord(UUID recordId) {
-        timeRecordRepository.deleteById(recordId);
+    public TimeRecordPatchResult patchRecord(UUID userId, UUID recordId, TimeRecordPatchRequest request) {
+        request.setId(recordId);
+        return patchRecords(userId, List.of(request)).get(0);
+    }
+
+    /**
+     * 批量移动：整批一条按 (id, 所属用户, version) 条件更新的语句，不先读实体。
+     * 拖拽过程中连续发出的请求只有基于最新版本的那一次生效，其余返回 conflict 与当前状态，
+     * 由客户端以最新版本重发或放弃；同一批内同一记录的多次移动只应用最后一次。
+     *
+     * @return 与 requests 一一对应的结果
+     */
+    @Transactional
+    public List<TimeRecordPatchResult> patchRecords(UUID userId, List<TimeRecordPatchRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (requests.size() > MAX_PATCH_BATCH) {
+            throw new BatchTooLargeException("单次最多移动 " + MAX_PATCH_BATCH + " 条记录", MAX_PATCH_BATCH);
+        }
+
+        TimeRecordPatchResult[] results = new TimeRecordPatchResult[requests.size()];
+        Map<UUID, Integer> latest = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TimeRecordPatchRequest request = requests.get(i);
+            String error = validatePatch(request);
+            if (error != null) {
+                results[i] = TimeRecordPatchResult.rejected(request.getId(), TimeRecordPatchResult.INVALID, error);
+                continue;
+            }
+            Integer previous = latest.put(request.getId(), i);
+            if (previous != null) {
+                results[previous] = TimeRecordPatchResult.of(request.getId(), TimeRecordPatchResult.COALESCED);
+            }
+        }
+
+        List<TimeRecordMoveWriter.Move> moves = new ArrayList<>(latest.size());
+        for (int index : latest.values()) {
+            TimeRecordPatchRequest request = requests.get(index);
+            moves.add(new TimeRecordMoveWriter.Move(request.getId(), request.getVersion(), request.getRecordDate(),
+                    request.getStartTime(), request.getDuration()));
+        }
+        Map<UUID, TimeRecordMoveWriter.Moved> moved = new HashMap<>();
+        for (TimeRecordMoveWriter.Moved row : moveWriter.move(userId, moves)) {
+            moved.put(row.getId(), row);
+            eventPublisher.publishEvent(new TimeRecordChangedEvent(TimeRecordChangedEvent.Type.REMOVED, userId,
+                    row.getOldRecordDate(), row.getOldStartTime(), row.getOldDuration()));
+            eventPublisher.publishEvent(new TimeRecordChangedEvent(TimeRecordChangedEvent.Type.ADDED, userId,
+                    row.getRecordDate(), row.getStartTime(), row.getDuration()));
+        }
+
+        // 未更新的行再读一次当前状态，区分版本过期、越过当天与不存在
+        List<UUID> missed = new ArrayList<>();
+        for (UUID id : latest.keySet()) {
+            if (!moved.containsKey(id)) {
+                missed.add(id);
+            }
+        }
+        Map<UUID, TimeRecordResponse> current = new HashMap<>();
+        if (!missed.isEmpty()) {
+            timeRecordRepository.findResponses(userId, missed).forEach(r -> current.put(r.getId(), r));
+        }
+
+        for (Map.Entry<UUID, Integer> entry : latest.entrySet()) {
+            UUID id = entry.getKey();
+            TimeRecordMoveWriter.Moved row = moved.get(id);
+            TimeRecordResponse now = current.get(id);
+            if (row != null) {
+                results[entry.getValue()] = TimeRecordPatchResult.applied(id, row.getVersion(), row.getRecordDate(),
+                        row.getStartTime(), row.getDuration());
+            } else if (now == null) {
+                results[entry.getValue()] = TimeRecordPatchResult.rejected(id, TimeRecordPatchResult.NOT_FOUND,
+                        "TimeRecord not found");
+            } else if (now.getVersion().equals(requests.get(entry.getValue()).getVersion())) {
+                results[entry.getValue()] = TimeRecordPatchResult.rejected(id, TimeRecordPatchResult.INVALID,
+                        "移动后的时间段超出当天");
+            } else {
+                results[entry.getValue()] = TimeRecordPatchResult.conflict(now);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static String validatePatch(TimeRecordPatchRequest request) {
+        if (request.getId() == null) {
+            return "缺少记录 id";
+        }
+        if (request.getVersion() == null) {
+            return "缺少 version";
+        }
+        if (request.getRecordDate() == null && request.getStartTime() == null && request.getDuration() == null) {
+            return "没有需要修改的字段";
+        }
+        if (request.getStartTime() != null
+                && (request.getStartTime() < 0 || request.getStartTime() >= TimeRecordOccupancyService.MINUTES_PER_DAY)) {
+            return "开始时间无效";
+        }
+        if (request.getDuration() != null
+                && (request.getDuration() < 1 || request.getDuration() > TimeRecordOccupancyService.MINUTES_PER_DAY)) {
+            return "时长无效";
+        }
+        return null;
+    }
+
+    @Transactional
+    public void deleteRecord(UUID userId, UUID recordId, Long expectedVersion) {
+        timeRecordRepository.findById(recordId)
+                .filter(record -> record.getUser().getId().equals(userId))
+                .ifPresent(record -> {
+                    checkVersion(record, expectedVersion);
+                    timeRecordRepository.delete(record);
+                    publishChange(TimeRecordChangedEvent.Type.REMOVED, record);
+                });
+    }
+
+    private TimeRecord findOwned(UUID userId, UUID recordId) {
+        return timeRecordRepository.findById(recordId)
+                .filter(record -> record.getUser().getId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("TimeRecord not found"));
+    }
+
+    private void checkVersion(TimeRecord record, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(record.getVersion())) {
+            throw new VersionConflictException(mapToResponse(record), record.getVersion());
+        }
+    }
+
+    // 派生索引在提交后按事件更新
+    private void publishChange(TimeRecordChangedEvent.Type type, TimeRecord record) {
+        eventPublisher.publishEvent(new TimeRecordChangedEvent(type, record.getUser().getId(), record.getRecordDate(),
+                record.getStartTime(), record.getDuration()));
     }
 
     private TimeRecordResponse mapToResponse(TimeRecord record) {
@@ -112,7 +464,10 @@ public class TimeRecordService {
                 .category(record.getCategory())
                 .color(record.getColor())
                 .habitId(record.getHabit() != null ? record.getHabit().getId() : null)
+                .recordDate(record.getRecordDate())
                 .createdAt(record.getCreatedAt())
+                .version(record.getVersion())
+                .focusSessionId(record.getFocusSessionId())
                 .build();
     }
 }
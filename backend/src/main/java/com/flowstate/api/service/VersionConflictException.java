@@ -0,0 +1,27 @@
+package com.flowstate.api.service;
+
+/**
+ * 客户端带来的版本（If-Match 或请求体中的 version）已过期。
+ * current 为服务端当前状态，作为 409 响应体返回，客户端据此合并后重试。
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object current;
+    private final Long currentVersion;
+
+    public VersionConflictException(Object current, Long currentVersion) {
+        super("版本已过期，记录已被其他设备修改");
+        this.current = current;
+        this.currentVersion = currentVersion;
+    }
+
+    public Object getCurrent() {
+        return current;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,69 @@
+package com.flowstate.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvEventReaderTest {
+
+    private static final String HEADER = "title,start,duration\n";
+
+    @Test
+    void quotedFieldsMaySpanLines() throws IOException {
+        List<ImportedEvent> events = read(HEADER + "\"deep\nwork\",2025-06-02 09:00,30\nreview,2025-06-02 10:00,15\n");
+
+        assertThat(events).extracting(e -> e.title).containsExactly("deep\nwork", "review");
+        assertThat(events).extracting(e -> e.line).containsExactly(2, 4);
+        assertThat(events).allMatch(e -> e.error == null);
+    }
+
+    @Test
+    void unterminatedQuoteFailsOneRecordAndResynchronises() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append("\"broken,2025-06-02 09:00,30\n");
+        for (int i = 0; i < CsvEventReader.MAX_RECORD_LINES + 20; i++) {
+            csv.append("line ").append(i).append(",2025-06-02 10:00,15\n");
+        }
+
+        List<ImportedEvent> events = read(csv.toString());
+
+        assertThat(events.get(0).line).isEqualTo(2);
+        assertThat(events.get(0).error).isNotNull();
+        // 坏记录占用 MAX_RECORD_LINES 个物理行，之后从下一个物理行继续，其余行正常导入
+        assertThat(events.subList(1, events.size())).hasSize(21).allMatch(e -> e.error == null);
+        assertThat(events.get(1).line).isEqualTo(2 + CsvEventReader.MAX_RECORD_LINES);
+    }
+
+    @Test
+    void oversizedLineIsSkippedWithAnError() throws IOException {
+        String huge = "x".repeat(CsvEventReader.MAX_RECORD_CHARS + 10);
+        List<ImportedEvent> events = read(HEADER + huge + ",2025-06-02 09:00,30\nok,2025-06-02 10:00,15\n");
+
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).error).isNotNull();
+        assertThat(events.get(1).title).isEqualTo("ok");
+        assertThat(events.get(1).line).isEqualTo(3);
+    }
+
+    @Test
+    void handlesCarriageReturnLineEndings() throws IOException {
+        List<ImportedEvent> events = read("\uFEFFtitle,start,duration\r\na,2025-06-02 09:00,30\rb,2025-06-02 10:00,15");
+
+        assertThat(events).extracting(e -> e.title).containsExactly("a", "b");
+    }
+
+    private static List<ImportedEvent> read(String csv) throws IOException {
+        CsvEventReader reader = new CsvEventReader(new BufferedReader(new StringReader(csv)));
+        List<ImportedEvent> events = new ArrayList<>();
+        ImportedEvent event;
+        while ((event = reader.next()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+}
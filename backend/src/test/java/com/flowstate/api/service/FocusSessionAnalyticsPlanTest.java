@@ -0,0 +1,160 @@
+package com.flowstate.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowstate.api.entity.Category;
+import com.flowstate.api.entity.User;
+import com.flowstate.api.repository.CategoryRepository;
+import com.flowstate.api.repository.FocusSessionRepository;
+import com.flowstate.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分析页聚合查询的执行计划回归：对 Hibernate 实际生成的 SQL 执行 EXPLAIN (FORMAT JSON)，
+ * 断言按 session_date 范围过滤时使用 idx_focus_sessions_user_date，而不是顺序扫描整张 focus_sessions。
+ * 需要 PostgreSQL，通过 DATABASE_URL 指向测试库时运行。
+ */
+@SpringBootTest(properties = "app.habits.write-behind.enabled=false")
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = "jdbc:postgresql:.*")
+@Import(HabitDashboardQueryCountTest.CountingDataSourceConfig.class)
+class FocusSessionAnalyticsPlanTest {
+
+    private static final String INDEX = "idx_focus_sessions_user_date";
+    private static final int OTHER_USERS = 40;
+    private static final int DAYS = 365;
+
+    // 每个用户每天一条专注记录，覆盖一整年
+    private static final String INSERT_SESSIONS_SQL =
+            "INSERT INTO focus_sessions (id, user_id, category_id, start_time, session_date, end_time, duration, " +
+            "status, created_at) " +
+            "SELECT gen_random_uuid(), CAST(? AS uuid), CAST(? AS uuid), d + interval '9 hours', CAST(d AS date), " +
+            "d + interval '9 hours 25 minutes', 25, 'COMPLETED', now() " +
+            "FROM generate_series(CAST(? AS date) - ?, CAST(? AS date), interval '1 day') AS d";
+
+    @Autowired
+    private FocusSessionRepository focusSessionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<User> users = new ArrayList<>();
+    private final LocalDate today = LocalDate.now();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser();
+        Category category = categoryRepository.save(new Category(user, "工作", "indigo", "work"));
+        insertSessions(user.getId(), category.getId());
+        // 其他用户的数据让表足够大，小表上规划器本来就会选择顺序扫描
+        for (int i = 0; i < OTHER_USERS; i++) {
+            insertSessions(createUser().getId(), null);
+        }
+        jdbcTemplate.execute("ANALYZE focus_sessions");
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (User u : users) {
+            jdbcTemplate.update("DELETE FROM focus_sessions WHERE user_id = ?", u.getId());
+            jdbcTemplate.update("DELETE FROM categories WHERE user_id = ?", u.getId());
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", u.getId());
+        }
+    }
+
+    @Test
+    void sumDurationByCategoryUsesUserDateIndex() throws Exception {
+        LocalDate start = today.minusDays(29);
+        String sql = capture(() -> focusSessionRepository.sumDurationByCategory(user, start, today));
+
+        assertThat(scanTypes(explain(sql, start))).contains(INDEX).doesNotContain("Seq Scan on focus_sessions");
+    }
+
+    @Test
+    void sumDurationByDateAndCategoryUsesUserDateIndex() throws Exception {
+        LocalDate start = today.minusDays(29);
+        String sql = capture(() -> focusSessionRepository.sumDurationByDateAndCategory(user, start, today));
+
+        assertThat(scanTypes(explain(sql, start))).contains(INDEX).doesNotContain("Seq Scan on focus_sessions");
+    }
+
+    // 记录查询在测试线程上预编译的 SQL，应当恰好是一条 focus_sessions 的聚合
+    private String capture(Runnable query) {
+        HabitDashboardQueryCountTest.CountingDataSource.reset(Thread.currentThread());
+        query.run();
+        HabitDashboardQueryCountTest.CountingDataSource.stop();
+        List<String> sql = new ArrayList<>();
+        for (String statement : HabitDashboardQueryCountTest.CountingDataSource.sql()) {
+            if (statement.contains("focus_sessions")) {
+                sql.add(statement);
+            }
+        }
+        assertThat(sql).hasSize(1);
+        return sql.get(0);
+    }
+
+    // 生成的 SQL 依次绑定 user_id、起始日期、结束日期
+    private JsonNode explain(String sql, LocalDate start) throws Exception {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, user.getId(),
+                Date.valueOf(start), Date.valueOf(today));
+        return objectMapper.readTree(plan).get(0).get("Plan");
+    }
+
+    /**
+     * 收集计划树中的扫描节点：索引扫描记为索引名，其余扫描记为 "节点类型 on 表名"。
+     */
+    private static List<String> scanTypes(JsonNode plan) {
+        List<String> scans = new ArrayList<>();
+        collect(plan, scans);
+        return scans;
+    }
+
+    private static void collect(JsonNode node, List<String> scans) {
+        String type = node.path("Node Type").asText();
+        if (type.equals("Index Scan") || type.equals("Bitmap Index Scan")) {
+            scans.add(node.path("Index Name").asText());
+        } else if (node.has("Relation Name")) {
+            scans.add(type + " on " + node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, scans);
+        }
+    }
+
+    private User createUser() {
+        User u = new User();
+        u.setEmail("focus-plan-" + UUID.randomUUID() + "@test.local");
+        u.setPasswordHash("x");
+        u.setName("focus-plan");
+        u = userRepository.save(u);
+        users.add(u);
+        return u;
+    }
+
+    private void insertSessions(UUID userId, UUID categoryId) {
+        Date end = Date.valueOf(today);
+        jdbcTemplate.update(INSERT_SESSIONS_SQL, userId, categoryId, end, DAYS - 1, end);
+    }
+}
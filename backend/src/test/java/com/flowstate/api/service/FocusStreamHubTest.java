@@ -0,0 +1,90 @@
+package com.flowstate.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class FocusStreamHubTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final AtomicInteger sends = new AtomicInteger();
+    private volatile boolean blockSends;
+    private volatile Throwable closedWith;
+
+    private final FocusStreamHub hub = new FocusStreamHub(mock(LiveFocusRegistry.class), meterRegistry, 60_000, 16, 8,
+            1, 50) {
+        @Override
+        SseEmitter newEmitter(long timeout) {
+            return new RecordingEmitter(timeout);
+        }
+    };
+
+    @Test
+    void stalledSendIsClosedAndItsQueueDropped() throws Exception {
+        blockSends = true;
+        hub.subscribe(UUID.randomUUID());
+        assertThat(sending.await(10, TimeUnit.SECONDS)).isTrue();
+        hub.tick();
+
+        Thread.sleep(100);
+        hub.closeStalledSends();
+
+        assertThat(closedWith).isInstanceOf(IOException.class);
+        assertThat(meterRegistry.get("focus.stream.connections").gauge().value()).isZero();
+        assertThat(meterRegistry.get("focus.stream.stalled_sends").counter().count()).isEqualTo(1);
+
+        // 卡住的写入返回后不再发送排队中的消息
+        release.countDown();
+        Thread.sleep(100);
+        assertThat(sends).hasValue(1);
+    }
+
+    @Test
+    void idleConnectionsAreNotClosed() throws Exception {
+        hub.subscribe(UUID.randomUUID());
+        assertThat(sending.await(10, TimeUnit.SECONDS)).isTrue();
+
+        Thread.sleep(100);
+        hub.closeStalledSends();
+
+        assertThat(closedWith).isNull();
+        assertThat(meterRegistry.get("focus.stream.connections").gauge().value()).isEqualTo(1);
+    }
+
+    private final class RecordingEmitter extends SseEmitter {
+
+        private RecordingEmitter(long timeout) {
+            super(timeout);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sends.incrementAndGet();
+            sending.countDown();
+            if (blockSends) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            closedWith = ex;
+            super.completeWithError(ex);
+        }
+    }
+}
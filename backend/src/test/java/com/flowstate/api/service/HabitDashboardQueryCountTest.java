@@ -0,0 +1,196 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.HabitResponse;
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.User;
+import com.flowstate.api.enums.Frequency;
+import com.flowstate.api.repository.HabitRepository;
+import com.flowstate.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 看板加载的查询次数回归：缓存未命中时语句数与习惯数量无关，防止重新引入逐个习惯查询 (N+1)。
+ * 在数据源层计数，JPA 与 JdbcTemplate 的语句都计入；只统计测试线程，排除后台定时任务。
+ * 需要 PostgreSQL，通过 DATABASE_URL 指向测试库时运行。
+ */
+@SpringBootTest(properties = "app.habits.write-behind.enabled=false")
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = "jdbc:postgresql:.*")
+class HabitDashboardQueryCountTest {
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private HabitLogRecorder habitLogRecorder;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (User user : users) {
+            for (Habit habit : habitRepository.findByUserId(user.getId())) {
+                jdbcTemplate.update("DELETE FROM habit_logs WHERE habit_id = ?", habit.getId());
+                jdbcTemplate.update("DELETE FROM habit_period_rollups WHERE habit_id = ?", habit.getId());
+                jdbcTemplate.update("DELETE FROM habit_completion_bitmaps WHERE habit_id = ?", habit.getId());
+                jdbcTemplate.update("DELETE FROM habits WHERE id = ?", habit.getId());
+            }
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+        }
+    }
+
+    @Test
+    void dashboardStatementCountDoesNotGrowWithHabitCount() {
+        LocalDate today = LocalDate.now();
+        UUID small = createUserWithHabits(1, today);
+        UUID large = createUserWithHabits(25, today);
+
+        int smallStatements = countStatements(() -> habitService.getHabitsForDate(small, today), 2);
+        int largeStatements = countStatements(() -> habitService.getHabitsForDate(large, today), 50);
+
+        // 习惯、日志、周期汇总、完成位图各一次
+        assertThat(smallStatements).isLessThanOrEqualTo(4);
+        assertThat(largeStatements).isEqualTo(smallStatements);
+    }
+
+    private int countStatements(Loader loader, int expectedHabits) {
+        CountingDataSource.reset(Thread.currentThread());
+        List<HabitResponse> responses = loader.load();
+        int statements = CountingDataSource.stop();
+        assertThat(responses).hasSize(expectedHabits);
+        return statements;
+    }
+
+    // 每种频率各 perFrequency 个习惯，日习惯与周习惯都有当天 / 本周的打卡，覆盖日志与周期汇总两条读取路径
+    private UUID createUserWithHabits(int perFrequency, LocalDate today) {
+        User user = new User();
+        user.setEmail("habit-query-count-" + UUID.randomUUID() + "@test.local");
+        user.setPasswordHash("x");
+        user.setName("query-count");
+        user = userRepository.save(user);
+        users.add(user);
+
+        for (int i = 0; i < perFrequency; i++) {
+            for (Frequency frequency : new Frequency[] { Frequency.DAILY, Frequency.WEEKLY }) {
+                Habit habit = new Habit();
+                habit.setUser(user);
+                habit.setName(frequency.name().toLowerCase() + "-" + i);
+                habit.setFrequency(frequency);
+                habit.setGoalValue(3);
+                habit = habitRepository.save(habit);
+                habitLogRecorder.record(habit.getId(), today, 1);
+            }
+        }
+        return user.getId();
+    }
+
+    private interface Loader {
+        List<HabitResponse> load();
+    }
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? CountingDataSource.wrap((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * 以 JDK 动态代理包装数据源，统计指定线程上创建的语句数，并记下预编译语句的 SQL 文本。
+     */
+    static final class CountingDataSource {
+
+        private static final AtomicInteger STATEMENTS = new AtomicInteger();
+        private static final List<String> SQL = new CopyOnWriteArrayList<>();
+        private static volatile Thread recording;
+
+        private CountingDataSource() {
+        }
+
+        static void reset(Thread thread) {
+            STATEMENTS.set(0);
+            SQL.clear();
+            recording = thread;
+        }
+
+        static int stop() {
+            recording = null;
+            return STATEMENTS.get();
+        }
+
+        static List<String> sql() {
+            return new ArrayList<>(SQL);
+        }
+
+        static DataSource wrap(DataSource target) {
+            return (DataSource) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(),
+                    new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+                        Object result = invoke(target, method, args);
+                        if (result instanceof Connection) {
+                            return wrap((Connection) result);
+                        }
+                        return result;
+                    });
+        }
+
+        private static Connection wrap(Connection target) {
+            return (Connection) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (Thread.currentThread() == recording && (name.equals("prepareStatement")
+                                || name.equals("createStatement") || name.equals("prepareCall"))) {
+                            STATEMENTS.incrementAndGet();
+                            if (args != null && args.length > 0 && args[0] instanceof String) {
+                                SQL.add((String) args[0]);
+                            }
+                        }
+                        return invoke(target, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.entity.Habit;
+import com.flowstate.api.entity.User;
+import com.flowstate.api.enums.Frequency;
+import com.flowstate.api.repository.HabitRepository;
+import com.flowstate.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 同一 (habit, date) 的并发打卡：累加值不丢失，完成位图与连续打卡计数器只随一次翻转更新且彼此一致。
+ * 需要 PostgreSQL，通过 DATABASE_URL 指向测试库时运行。
+ */
+@SpringBootTest(properties = "app.habits.write-behind.enabled=false")
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = "jdbc:postgresql:.*")
+class HabitLogConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private HabitLogRecorder habitLogRecorder;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Habit habit;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("habit-concurrency-" + UUID.randomUUID() + "@test.local");
+        user.setPasswordHash("x");
+        user.setName("concurrency");
+        user = userRepository.save(user);
+
+        habit = new Habit();
+        habit.setUser(user);
+        habit.setName("water");
+        habit.setFrequency(Frequency.DAILY);
+        // 目标值介于单线程增量与总增量之间，保证恰好有一次请求使当天翻转为完成
+        habit.setGoalValue(100);
+        habit = habitRepository.save(habit);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UUID habitId = habit.getId();
+        jdbcTemplate.update("DELETE FROM habit_logs WHERE habit_id = ?", habitId);
+        jdbcTemplate.update("DELETE FROM habit_period_rollups WHERE habit_id = ?", habitId);
+        jdbcTemplate.update("DELETE FROM habit_completion_bitmaps WHERE habit_id = ?", habitId);
+        jdbcTemplate.update("DELETE FROM habits WHERE id = ?", habitId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void concurrentLogsOnSameDaySumIncrementsAndKeepBitmapAndStreakConsistent() throws Exception {
+        LocalDate today = LocalDate.now();
+        // 昨天已完成，今天的翻转应走增量路径把连续天数接到 2
+        habitLogRecorder.record(habit.getId(), today.minusDays(1), 100);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        int expected = 0;
+        for (int i = 1; i <= THREADS; i++) {
+            int increment = i;
+            expected += increment;
+            futures.add(pool.submit(() -> {
+                start.await();
+                habitService.logHabit(habit.getId(), increment);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Integer value = jdbcTemplate.queryForObject(
+                "SELECT current_value FROM habit_logs WHERE habit_id = ? AND date = ?", Integer.class,
+                habit.getId(), Date.valueOf(today));
+        Boolean completed = jdbcTemplate.queryForObject(
+                "SELECT is_completed FROM habit_logs WHERE habit_id = ? AND date = ?", Boolean.class,
+                habit.getId(), Date.valueOf(today));
+        assertThat(value).isEqualTo(expected);
+        assertThat(completed).isTrue();
+
+        byte[] bytes = jdbcTemplate.queryForObject(
+                "SELECT bits FROM habit_completion_bitmaps WHERE habit_id = ? AND calendar_year = ?", byte[].class,
+                habit.getId(), today.getYear());
+        BitSet bits = BitSet.valueOf(bytes);
+        assertThat(bits.get(today.getDayOfYear() - 1)).isTrue();
+        assertThat(bits.get(today.minusDays(1).getDayOfYear() - 1) || today.getDayOfYear() == 1).isTrue();
+
+        Habit reloaded = habitRepository.findById(habit.getId()).orElseThrow();
+        assertThat(reloaded.getLastCompletedDate()).isEqualTo(today);
+        assertThat(reloaded.getCurrentStreak()).isEqualTo(2);
+        assertThat(reloaded.getLongestStreak()).isEqualTo(2);
+    }
+}
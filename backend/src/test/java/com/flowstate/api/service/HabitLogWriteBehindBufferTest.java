@@ -0,0 +1,108 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.repository.HabitLogWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HabitLogWriteBehindBufferTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 2);
+
+    private final HabitLogRecorder recorder = mock(HabitLogRecorder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID habitId = UUID.randomUUID();
+
+    private HabitLogWriteBehindBuffer buffer(int maxBufferedOps) {
+        return new HabitLogWriteBehindBuffer(recorder, meterRegistry, 4, 1_000, maxBufferedOps, 3);
+    }
+
+    @Test
+    void inFlightIncrementsStayVisibleAndLaterOpsKeepTheirDepth() throws Exception {
+        HabitLogWriteBehindBuffer buffer = buffer(100);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(recorder.recordBatch(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            return List.of();
+        });
+
+        buffer.add(habitId, TODAY, 2);
+        buffer.add(habitId, TODAY, 3);
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flush);
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // 写入提交前仍计入乐观值；期间新到的操作不被清零
+        assertThat(buffer.pending(habitId, TODAY, TODAY)).isEqualTo(5);
+        buffer.add(habitId, TODAY, 4);
+        assertThat(buffer.pending(habitId, TODAY, TODAY)).isEqualTo(9);
+        assertThat(depth()).isEqualTo(1);
+
+        release.countDown();
+        flush.get(10, TimeUnit.SECONDS);
+        assertThat(buffer.pending(habitId, TODAY, TODAY)).isEqualTo(4);
+        assertThat(depth()).isEqualTo(1);
+    }
+
+    @Test
+    void deadLetteredEntryDoesNotSwallowLaterIncrements() {
+        HabitLogWriteBehindBuffer buffer = buffer(100);
+        List<Integer> written = new ArrayList<>();
+        when(recorder.recordBatch(any())).thenAnswer(invocation -> {
+            Collection<HabitLogWriter.Increment> increments = invocation.getArgument(0);
+            if (increments.stream().anyMatch(i -> i.getIncrement() == 99)) {
+                throw new IllegalArgumentException("bad entry");
+            }
+            increments.forEach(i -> written.add(i.getIncrement()));
+            return List.of();
+        });
+
+        buffer.add(habitId, TODAY, 99);
+        buffer.flush();
+        buffer.add(habitId, TODAY, 1);
+        buffer.flush();
+        buffer.add(habitId, TODAY, 2);
+        buffer.flush();
+
+        assertThat(written).containsExactly(1, 2);
+        assertThat(meterRegistry.get("habit.write_behind.dead_lettered_entries").counter().count()).isEqualTo(1);
+        assertThat(buffer.pending(habitId, TODAY, TODAY)).isZero();
+    }
+
+    @Test
+    void fullBufferRejectsWhileDatabaseIsDown() {
+        HabitLogWriteBehindBuffer buffer = buffer(3);
+        when(recorder.recordBatch(any())).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        assertThat(buffer.add(habitId, TODAY, 1)).isTrue();
+        assertThat(buffer.add(habitId, TODAY.minusDays(1), 1)).isTrue();
+        buffer.flush();
+        assertThat(buffer.add(habitId, TODAY.minusDays(2), 1)).isTrue();
+        assertThat(buffer.add(habitId, TODAY.minusDays(3), 1)).isFalse();
+
+        // 数据库不可用不计入重试次数，条目留在重试队列
+        buffer.flush();
+        assertThat(buffer.pending(habitId, TODAY.minusDays(2), TODAY)).isEqualTo(3);
+        assertThat(meterRegistry.get("habit.write_behind.dead_lettered_entries").counter().count()).isZero();
+        assertThat(meterRegistry.get("habit.write_behind.rejected_ops").counter().count()).isEqualTo(1);
+    }
+
+    private double depth() {
+        return meterRegistry.get("habit.write_behind.depth").gauge().value();
+    }
+}
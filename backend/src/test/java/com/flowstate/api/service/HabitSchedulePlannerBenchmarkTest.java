@@ -0,0 +1,110 @@
+package com.flowstate.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 周排程的计时基准：一周几乎排满（窗口内约 85% 已占用、空档零碎）、习惯数量较多时的排程耗时。
+ * 默认不运行，使用 mvn test -Dbenchmarks=true -Dtest=HabitSchedulePlannerBenchmarkTest 执行，结果打印到标准输出。
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class HabitSchedulePlannerBenchmarkTest {
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+    private static final int DAILY_HABITS = 70;
+    private static final int WEEKLY_HABITS = 30;
+
+    @Test
+    void fullyBookedWeekWithManyHabits() {
+        SplittableRandom random = new SplittableRandom(20240601L);
+        BitSet[] week = bookedWeek(random, 0.85);
+        int[] earliest = new int[7];
+        List<long[]> specs = demandSpecs(random);
+
+        long[] nanos = new long[ITERATIONS];
+        int blocks = 0;
+        int demands = 0;
+        for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+            BitSet[] days = HabitSchedulePlannerTest.copy(week);
+            List<HabitSchedulePlanner.Demand> plan = demands(specs);
+            long start = System.nanoTime();
+            List<HabitSchedulePlanner.Block> placed = new HabitSchedulePlanner(days, earliest).plan(plan);
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP) {
+                nanos[i - WARMUP] = elapsed;
+            }
+            blocks = placed.size();
+            demands = plan.size();
+        }
+
+        Arrays.sort(nanos);
+        System.out.printf("HabitSchedulePlanner fully booked week: habits=%d demands=%d blocks=%d "
+                        + "median=%.2fms p95=%.2fms max=%.2fms%n",
+                DAILY_HABITS + WEEKLY_HABITS, demands, blocks, nanos[ITERATIONS / 2] / 1e6,
+                nanos[ITERATIONS * 95 / 100] / 1e6, nanos[ITERATIONS - 1] / 1e6);
+        assertThat(blocks).isPositive();
+    }
+
+    /**
+     * 每天 08:00-22:00 的窗口按目标占用率铺满随机长度的记录，记录之间留 5-60 分钟的零碎空档。
+     */
+    static BitSet[] bookedWeek(SplittableRandom random, double occupancy) {
+        BitSet[] days = new BitSet[7];
+        for (int d = 0; d < 7; d++) {
+            BitSet bits = new BitSet(TimeRecordOccupancyService.MINUTES_PER_DAY);
+            int minute = 480;
+            while (minute < 1320) {
+                if (random.nextDouble() < occupancy) {
+                    int length = 15 + random.nextInt(106);
+                    bits.set(minute, Math.min(minute + length, 1320));
+                    minute += length;
+                } else {
+                    minute += 5 + random.nextInt(56);
+                }
+            }
+            days[d] = bits;
+        }
+        return days;
+    }
+
+    // {习惯序号, 是否周习惯, 分钟数, 最短块}，每轮据此重新生成需求，使各轮输入相同
+    private static List<long[]> demandSpecs(SplittableRandom random) {
+        List<long[]> specs = new ArrayList<>();
+        for (int h = 0; h < DAILY_HABITS + WEEKLY_HABITS; h++) {
+            boolean weekly = h >= DAILY_HABITS;
+            int minutes = weekly ? 60 + random.nextInt(240) : 15 + random.nextInt(46);
+            int minBlock = weekly ? 30 : 15;
+            specs.add(new long[]{h, weekly ? 1 : 0, minutes, minBlock});
+        }
+        return specs;
+    }
+
+    private static List<HabitSchedulePlanner.Demand> demands(List<long[]> specs) {
+        int[] week = {0, 1, 2, 3, 4, 5, 6};
+        List<HabitSchedulePlanner.Demand> demands = new ArrayList<>();
+        for (long[] spec : specs) {
+            UUID habitId = new UUID(0, spec[0]);
+            int minutes = (int) spec[2];
+            int minBlock = (int) spec[3];
+            if (spec[1] == 1) {
+                demands.add(new HabitSchedulePlanner.Demand(habitId, week, 480, 1320, minBlock, 120, minutes));
+            } else {
+                for (int day : week) {
+                    demands.add(new HabitSchedulePlanner.Demand(habitId, new int[]{day}, 480, 1320, minBlock, 120,
+                            minutes));
+                }
+            }
+        }
+        return demands;
+    }
+}
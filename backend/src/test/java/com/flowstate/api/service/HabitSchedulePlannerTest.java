@@ -0,0 +1,88 @@
+package com.flowstate.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HabitSchedulePlannerTest {
+
+    private static final int DAYS = 7;
+
+    @Test
+    void remainderBelowMinBlockIsReportedUnplaced() {
+        BitSet[] days = emptyWeek();
+        HabitSchedulePlanner.Demand demand = new HabitSchedulePlanner.Demand(UUID.randomUUID(), new int[]{0},
+                480, 1320, 30, 120, 10);
+
+        List<HabitSchedulePlanner.Block> blocks = new HabitSchedulePlanner(days, new int[DAYS]).plan(List.of(demand));
+
+        assertThat(blocks).isEmpty();
+        assertThat(demand.placed).isZero();
+    }
+
+    @Test
+    void splitsBlockSoTheRemainderStaysPlaceable() {
+        BitSet[] days = emptyWeek();
+        // 窗口内只有 [540, 585) 与 [600, 640) 两段空档
+        days[0].set(480, 1320);
+        days[0].clear(540, 585);
+        days[0].clear(600, 640);
+        HabitSchedulePlanner.Demand demand = new HabitSchedulePlanner.Demand(UUID.randomUUID(), new int[]{0},
+                480, 1320, 30, 120, 60);
+
+        List<HabitSchedulePlanner.Block> blocks = new HabitSchedulePlanner(days, new int[DAYS]).plan(List.of(demand));
+
+        // 45 分钟的空档只放 30，剩下的 30 放进 40 分钟的空档，而不是 45 + 15
+        assertThat(blocks).extracting(b -> b.length).containsExactly(30, 30);
+        assertThat(demand.placed).isEqualTo(60);
+    }
+
+    @Test
+    void neverPlacesBlocksShorterThanMinBlockOrOverExistingRecords() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int round = 0; round < 50; round++) {
+            BitSet[] days = HabitSchedulePlannerBenchmarkTest.bookedWeek(random, 0.6);
+            BitSet[] original = copy(days);
+            List<HabitSchedulePlanner.Demand> demands = new ArrayList<>();
+            for (int h = 0; h < 20; h++) {
+                int minBlock = 15 + random.nextInt(4) * 15;
+                int minutes = 5 + random.nextInt(120);
+                int[] candidates = random.nextBoolean() ? new int[]{random.nextInt(DAYS)} : new int[]{0, 1, 2, 3, 4, 5, 6};
+                demands.add(new HabitSchedulePlanner.Demand(UUID.randomUUID(), candidates, 480, 1320, minBlock,
+                        minBlock * 4, minutes));
+            }
+
+            List<HabitSchedulePlanner.Block> blocks = new HabitSchedulePlanner(days, new int[DAYS]).plan(demands);
+
+            for (HabitSchedulePlanner.Block block : blocks) {
+                assertThat(block.length).isGreaterThanOrEqualTo(block.demand.minBlock);
+                assertThat(original[block.day].get(block.start, block.end()).isEmpty()).isTrue();
+            }
+            for (HabitSchedulePlanner.Demand demand : demands) {
+                assertThat(demand.placed).isLessThanOrEqualTo(demand.minutes);
+            }
+        }
+    }
+
+    private static BitSet[] emptyWeek() {
+        BitSet[] days = new BitSet[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            days[i] = new BitSet(TimeRecordOccupancyService.MINUTES_PER_DAY);
+        }
+        return days;
+    }
+
+    static BitSet[] copy(BitSet[] days) {
+        BitSet[] copy = new BitSet[days.length];
+        for (int i = 0; i < days.length; i++) {
+            copy[i] = (BitSet) days[i].clone();
+        }
+        return copy;
+    }
+}
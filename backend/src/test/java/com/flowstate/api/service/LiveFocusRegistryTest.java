@@ -0,0 +1,95 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.dto.FocusSessionResponse;
+import com.flowstate.api.dto.LiveFocusResponse;
+import com.flowstate.api.repository.LiveFocusCheckpointRepository;
+import com.flowstate.api.repository.LiveFocusCheckpointWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LiveFocusRegistryTest {
+
+    private final FocusSessionService focusSessionService = mock(FocusSessionService.class);
+    private final LiveFocusCheckpointWriter checkpointWriter = mock(LiveFocusCheckpointWriter.class);
+    private final LiveFocusRegistry registry = new LiveFocusRegistry(focusSessionService,
+            mock(LiveFocusCheckpointRepository.class), checkpointWriter, mock(ApplicationEventPublisher.class),
+            new SimpleMeterRegistry(), 120);
+
+    @Test
+    void stopWaitsOnlyForTheCheckpointWritingItsOwnSession() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean written = new AtomicBoolean();
+        when(checkpointWriter.upsert(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            written.set(true);
+            return 1;
+        });
+
+        UUID inBatchUser = UUID.randomUUID();
+        LiveFocusResponse inBatch = registry.start(inBatchUser, null).orElseThrow();
+        CompletableFuture<Void> checkpoint = CompletableFuture.runAsync(registry::checkpoint);
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // 不在这一轮批次里的会话可以立即归档
+        UUID otherUser = UUID.randomUUID();
+        LiveFocusResponse other = registry.start(otherUser, null).orElseThrow();
+        when(focusSessionService.completeLiveSession(eq(otherUser), eq(other.getSessionId()), any()))
+                .thenReturn(new FocusSessionResponse());
+        assertThat(registry.stop(otherUser, other.getSessionId(), null)).isPresent();
+        assertThat(written).isFalse();
+
+        // 批次中的会话要等本轮写完才删除检查点，否则会被写回
+        AtomicBoolean writtenBeforeArchive = new AtomicBoolean();
+        when(focusSessionService.completeLiveSession(eq(inBatchUser), eq(inBatch.getSessionId()), any()))
+                .thenAnswer(invocation -> {
+                    writtenBeforeArchive.set(written.get());
+                    return new FocusSessionResponse();
+                });
+        CompletableFuture<Boolean> stop = CompletableFuture.supplyAsync(
+                () -> registry.stop(inBatchUser, inBatch.getSessionId(), null).isPresent());
+        Thread.sleep(100);
+        assertThat(stop).isNotDone();
+
+        release.countDown();
+        checkpoint.get(10, TimeUnit.SECONDS);
+        assertThat(stop.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(writtenBeforeArchive).isTrue();
+        assertThat(registry.current(inBatchUser)).isEmpty();
+    }
+
+    @Test
+    void failedArchiveIsCheckpointedAgain() {
+        UUID userId = UUID.randomUUID();
+        LiveFocusResponse session = registry.start(userId, null).orElseThrow();
+        registry.checkpoint();
+        when(focusSessionService.completeLiveSession(eq(userId), eq(session.getSessionId()), any()))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        assertThatThrownBy(() -> registry.stop(userId, session.getSessionId(), null))
+                .hasMessage("database unavailable");
+
+        assertThat(registry.current(userId)).isPresent();
+        when(checkpointWriter.upsert(anyList())).thenReturn(1);
+        registry.checkpoint();
+        verify(checkpointWriter, times(2)).upsert(anyList());
+    }
+}
@@ -0,0 +1,174 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.entity.User;
+import com.flowstate.api.repository.TimeRecordMoveWriter;
+import com.flowstate.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 并发写同一批记录时两种并发控制的对比基准：
+ * <ul>
+ *   <li>条件更新：读版本后走 {@link TimeRecordMoveWriter} 的 (id, version) 条件 UPDATE，未命中即冲突，重读后重试</li>
+ *   <li>悲观锁：事务内先 SELECT ... FOR UPDATE 取得行锁与当前版本，再执行同一条 UPDATE，不会冲突但要排队</li>
+ * </ul>
+ * 每种组合报告吞吐、每次成功写入的延迟分位与冲突重试次数。需要 PostgreSQL，
+ * 使用 DATABASE_URL=jdbc:postgresql://... mvn test -Dbenchmarks=true -Dtest=TimeRecordContentionBenchmarkTest 执行。
+ */
+@SpringBootTest(properties = "app.habits.write-behind.enabled=false")
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = "jdbc:postgresql:.*")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TimeRecordContentionBenchmarkTest {
+
+    private static final int[] WRITERS = {1, 8, 32};
+    private static final int[] HOT_ROWS = {1, 16};
+    private static final int OPS_PER_WRITER = 200;
+
+    @Autowired
+    private TimeRecordMoveWriter moveWriter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID userId;
+    private final LocalDate date = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("contention-" + UUID.randomUUID() + "@test.local");
+        user.setPasswordHash("x");
+        user.setName("contention");
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM time_records WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void conditionalUpdateVersusSelectForUpdate() throws Exception {
+        for (int hotRows : HOT_ROWS) {
+            for (int writers : WRITERS) {
+                run("conditional update", writers, hotRows, false);
+                run("select for update", writers, hotRows, true);
+            }
+        }
+    }
+
+    private void run(String label, int writers, int hotRows, boolean pessimistic) throws Exception {
+        List<UUID> ids = insertRows(hotRows);
+        AtomicLong conflicts = new AtomicLong();
+        long[][] latencies = new long[writers][OPS_PER_WRITER];
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            futures.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(writer);
+                start.await();
+                for (int op = 0; op < OPS_PER_WRITER; op++) {
+                    UUID id = ids.get(random.nextInt(ids.size()));
+                    int startTime = random.nextInt(1380);
+                    long begin = System.nanoTime();
+                    if (pessimistic) {
+                        lockAndMove(id, startTime);
+                    } else {
+                        conflicts.addAndGet(moveWithRetry(id, startTime));
+                    }
+                    latencies[writer][op] = System.nanoTime() - begin;
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        long total = (long) writers * OPS_PER_WRITER;
+        Long versions = jdbcTemplate.queryForObject("SELECT SUM(version) FROM time_records WHERE user_id = ?",
+                Long.class, userId);
+        // 每次成功写入版本加一，两种方式都不能丢失更新
+        assertThat(versions).isEqualTo(total);
+
+        System.out.printf("time_records contention (%s): writers=%d hotRows=%d ops=%d throughput=%.0f ops/s "
+                        + "p50=%.2fms p99=%.2fms conflicts=%d%n",
+                label, writers, hotRows, total, total / (elapsed / 1e9), all[all.length / 2] / 1e6,
+                all[all.length * 99 / 100] / 1e6, conflicts.get());
+        jdbcTemplate.update("DELETE FROM time_records WHERE user_id = ?", userId);
+    }
+
+    // 客户端式乐观并发：读当前版本，条件更新未命中则重读重试，返回冲突次数
+    private int moveWithRetry(UUID id, int startTime) {
+        int conflicts = 0;
+        while (true) {
+            Long version = jdbcTemplate.queryForObject("SELECT version FROM time_records WHERE id = ?", Long.class, id);
+            List<TimeRecordMoveWriter.Moved> moved = moveWriter.move(userId,
+                    List.of(new TimeRecordMoveWriter.Move(id, version, null, startTime, 30)));
+            if (!moved.isEmpty()) {
+                return conflicts;
+            }
+            conflicts++;
+        }
+    }
+
+    private void lockAndMove(UUID id, int startTime) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Long version = jdbcTemplate.queryForObject("SELECT version FROM time_records WHERE id = ? FOR UPDATE",
+                    Long.class, id);
+            List<TimeRecordMoveWriter.Moved> moved = moveWriter.move(userId,
+                    List.of(new TimeRecordMoveWriter.Move(id, version, null, startTime, 30)));
+            assertThat(moved).hasSize(1);
+        });
+    }
+
+    private List<UUID> insertRows(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO time_records (id, user_id, title, start_time, duration, record_date, "
+                            + "version, created_at, updated_at) VALUES (?, ?, 'contention', 0, 30, ?, 0, now(), now())",
+                    id, userId, Date.valueOf(date));
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,133 @@
+package com.flowstate.api.service;
+
+import com.flowstate.api.enums.Frequency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 重复规则展开的计时基准：一个用户的一批系列展开整整一年的区间，系列分别从十年前与区间起点开始，
+ * 验证耗时只与区间内的发生次数有关；并与从系列起点逐日判断的朴素展开对照结果与耗时。
+ * 默认不运行，使用 mvn test -Dbenchmarks=true -Dtest=TimeRecordRecurrenceBenchmarkTest 执行，结果打印到标准输出。
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TimeRecordRecurrenceBenchmarkTest {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+    private static final int SERIES = 50;
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);
+    private static final LocalDate TO = FROM.plusYears(1).minusDays(1);
+
+    @Test
+    void yearLongRangeExpansion() {
+        List<Series> recent = series(new SplittableRandom(17), FROM);
+        List<Series> old = series(new SplittableRandom(17), FROM.minusYears(10));
+
+        for (List<Series> batch : Arrays.asList(recent, old)) {
+            for (Series s : batch) {
+                List<LocalDate> expanded = new ArrayList<>();
+                TimeRecordRecurrence.forEachOccurrence(s.frequency, s.interval, s.weekdays, s.start, null, FROM, TO,
+                        expanded::add);
+                assertThat(expanded).isEqualTo(naive(s, FROM, TO));
+            }
+        }
+
+        report("series start = range start", recent, false);
+        report("series start = 10 years earlier", old, false);
+        report("naive day walk, 10 years earlier", old, true);
+    }
+
+    private static void report(String label, List<Series> batch, boolean naive) {
+        long[] nanos = new long[ITERATIONS];
+        long occurrences = 0;
+        for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+            long[] count = new long[1];
+            long start = System.nanoTime();
+            for (Series s : batch) {
+                if (naive) {
+                    count[0] += naive(s, FROM, TO).size();
+                } else {
+                    TimeRecordRecurrence.forEachOccurrence(s.frequency, s.interval, s.weekdays, s.start, null, FROM,
+                            TO, date -> count[0]++);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP) {
+                nanos[i - WARMUP] = elapsed;
+            }
+            occurrences = count[0];
+        }
+        Arrays.sort(nanos);
+        System.out.printf("TimeRecordRecurrence year-long expansion (%s): series=%d occurrences=%d "
+                        + "median=%.1fus p95=%.1fus%n",
+                label, batch.size(), occurrences, nanos[ITERATIONS / 2] / 1e3, nanos[ITERATIONS * 95 / 100] / 1e3);
+    }
+
+    // 日 / 周 / 月各占约三分之一，间隔 1-3，周重复随机选 1-5 个星期
+    private static List<Series> series(SplittableRandom random, LocalDate start) {
+        List<Series> list = new ArrayList<>();
+        Frequency[] frequencies = {Frequency.DAILY, Frequency.WEEKLY, Frequency.MONTHLY};
+        for (int i = 0; i < SERIES; i++) {
+            Frequency frequency = frequencies[i % 3];
+            int interval = 1 + random.nextInt(3);
+            int weekdays = 0;
+            int picks = 1 + random.nextInt(5);
+            for (int p = 0; p < picks; p++) {
+                weekdays |= 1 << random.nextInt(7);
+            }
+            list.add(new Series(frequency, interval, weekdays, start.plusDays(random.nextInt(28))));
+        }
+        return list;
+    }
+
+    // 从系列起点逐日判断是否发生，作为结果的对照与耗时基线
+    private static List<LocalDate> naive(Series s, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate weekAnchor = HabitPeriods.start(Frequency.WEEKLY, s.start);
+        for (LocalDate date = s.start; !date.isAfter(to); date = date.plusDays(1)) {
+            boolean occurs;
+            switch (s.frequency) {
+                case WEEKLY:
+                    occurs = ChronoUnit.WEEKS.between(weekAnchor, HabitPeriods.start(Frequency.WEEKLY, date))
+                            % s.interval == 0 && (s.weekdays & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+                    break;
+                case MONTHLY:
+                    occurs = date.getDayOfMonth() == s.start.getDayOfMonth()
+                            && ChronoUnit.MONTHS.between(YearMonth.from(s.start), YearMonth.from(date))
+                            % s.interval == 0;
+                    break;
+                default:
+                    occurs = ChronoUnit.DAYS.between(s.start, date) % s.interval == 0;
+                    break;
+            }
+            if (occurs && !date.isBefore(from)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    private static final class Series {
+        private final Frequency frequency;
+        private final int interval;
+        private final int weekdays;
+        private final LocalDate start;
+
+        private Series(Frequency frequency, int interval, int weekdays, LocalDate start) {
+            this.frequency = frequency;
+            this.interval = interval;
+            this.weekdays = weekdays;
+            this.start = start;
+        }
+    }
+}